@@ -0,0 +1,185 @@
+package hitori.app;
+
+import hitori.Puzzle;
+import hitori.PuzzleMetrics;
+
+import java.io.File;
+
+import javafx.application.Application;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+//Where the game is loaded
+//The grid is drawn on a single PuzzleCanvas the size of the window, so large boards load quickly and take little
+//memory; a PuzzleView scrolls it over boards that do not fit
+//Moves are checked by a MoveValidator on a background thread; a clicked cell shows as pending until its result
+//comes back, so the user interface never waits for the rule checks
+//Puzzle events (rejected moves, loads) are logged; run with -Dhitori.metrics to also collect PuzzleMetrics
+//and read them over JMX
+public class Hitori extends Application implements MoveValidator.Listener {
+
+    private static final Logger LOGGER = LogManager.getLogger(Hitori.class);
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+
+    private Puzzle puzzle;
+    private PuzzleCanvas puzzleCanvas;
+    private PuzzleView puzzleView;
+    private MoveValidator validator;
+
+    /**
+     * Default puzzle shown
+     * Load and reset button created
+     * @param primaryStage
+     * @throws Exception
+     */
+    @Override
+    public void start(Stage primaryStage) throws Exception {
+
+        PuzzleMetrics.setEventSink(event -> LOGGER.info("{}", event));
+        if (System.getProperty("hitori.metrics") != null) {
+            PuzzleMetrics.setEnabled(true);
+            PuzzleMetrics.registerMBean();
+        }
+
+        //Default puzzle
+        puzzle = new Puzzle();
+
+        puzzleCanvas = new PuzzleCanvas();
+        puzzleCanvas.setOnMousePressed(this::handleClick);
+        //Boards too big for the window can be scrolled
+        puzzleView = new PuzzleView(puzzleCanvas);
+        play(puzzle);
+
+        HBox hbButtons = new HBox();
+        hbButtons.setPadding(new Insets(20));
+        hbButtons.setAlignment(Pos.CENTER);
+
+        //Load button that enables user to choose a file from their system and load the puzzle
+        Button btnLoad = new Button("Load");
+        btnLoad.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+
+            File file = fileChooser.showOpenDialog(primaryStage);
+
+            if (file != null) {
+                try {
+                    play(new Puzzle(file));
+                } catch (Exception ex) {
+                    LOGGER.warn("Cannot load {}: {}", file, ex.getMessage());
+                }
+            }
+        });
+
+        //Reset button that enables user to reset the puzzle (clear all blacked out cells)
+        Button btnReset = new Button("Reset");
+        btnReset.setOnAction(e -> {
+
+            Alert alert = new Alert(AlertType.CONFIRMATION);
+            alert.setContentText("Are you sure you want to reset?");
+            if (alert.showAndWait().get() == ButtonType.OK) {
+                puzzleCanvas.reset();
+                validator.reset();
+            }
+
+        });
+
+        //Hint button that points out the next forced move and why
+        Button btnHint = new Button("Hint");
+        btnHint.setOnAction(e -> validator.hint(hint -> {
+            Alert alert = new Alert(AlertType.INFORMATION);
+
+            if (hint == null) {
+                alert.setContentText("No move is forced right now");
+            } else {
+                puzzleView.reveal(hint.getRow(), hint.getColumn());
+                puzzleCanvas.highlight(hint.getRow(), hint.getColumn());
+                alert.setContentText(hint.toString());
+            }
+            alert.show();
+        }));
+
+        hbButtons.getChildren().addAll(btnLoad, btnReset, btnHint);
+
+        Scene scene = new Scene(new BorderPane(puzzleView, null, null, hbButtons, null));
+
+        primaryStage.setScene(scene);
+        primaryStage.show();
+
+    }
+
+    /**
+     * The puzzle being played; its covered cells belong to the validator's thread
+     */
+    public Puzzle getPuzzle() {
+        return puzzle;
+    }
+
+    /**
+     * Shows a puzzle and hands it over to a new validator
+     */
+    private void play(Puzzle puzzle) {
+        if (validator != null)
+            validator.shutdown();
+
+        this.puzzle = puzzle;
+        puzzleView.setPuzzle(puzzle);
+        validator = new MoveValidator(puzzle, this);
+    }
+
+    /**
+     * Left-click covers the cell under the mouse (eliminate), right-click brings it back (reactivate)
+     * The cell shows the move straight away as pending and only that cell is drawn
+     * @param event
+     */
+    private void handleClick(MouseEvent event) {
+        int row = puzzleCanvas.rowAt(event.getY());
+        int col = puzzleCanvas.columnAt(event.getX());
+
+        if (row < 0 || col < 0)
+            return;
+
+        if (event.getButton() == MouseButton.PRIMARY) {
+            puzzleCanvas.setPending(row, col, true);
+            validator.submit(row, col, true);
+        } else if (event.getButton() == MouseButton.SECONDARY) {
+            puzzleCanvas.setPending(row, col, false);
+            validator.submit(row, col, false);
+        }
+    }
+
+    @Override
+    public void moveDone(int row, int col, boolean covered, int result) {
+        puzzleCanvas.setCovered(row, col, covered);
+
+        //The int returned by the the method eliminate determines the alert message shown
+        if (result == 2 || result == 3) {
+            Alert alert = new Alert(AlertType.ERROR);
+            alert.setContentText("Error: Constraint " + result + " violated");
+            alert.show();
+        }
+    }
+
+    @Override
+    public void gameWon() {
+        Alert alert = new Alert(AlertType.INFORMATION);
+        alert.setContentText("You won!");
+        alert.show();
+    }
+
+}
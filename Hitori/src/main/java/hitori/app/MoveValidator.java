@@ -0,0 +1,201 @@
+package hitori.app;
+
+import hitori.Puzzle;
+import hitori.solver.Hint;
+import hitori.solver.HintEngine;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+//Checks moves on a background thread so a click never waits for the rule checks.
+//The worker thread owns the puzzle from the moment the validator is made: every move, reset and hint runs there,
+//and results come back to the JavaFX thread in batches through Platform.runLater.
+//Clicks waiting for the worker run in the order they were made; a click straight after another on the same cell
+//replaces it, and a result is only passed on if no newer click on that cell (and no reset) has come in since,
+//so a superseded validation never shows.
+public class MoveValidator {
+
+    //Told about results on the JavaFX thread
+    public interface Listener {
+
+        /**
+         * @param covered whether the cell is covered now
+         * @param result what Puzzle.eliminate returned for a cover, 0 for an uncover
+         */
+        void moveDone(int row, int col, boolean covered, int result);
+
+        void gameWon();
+    }
+
+    private final Puzzle puzzle;
+    private final int columns;
+    private final Listener listener;
+    private final ExecutorService worker;
+    private HintEngine hints; //Worker thread only, made on the first request for a hint
+
+    //JavaFX thread only: the latest click on each cell, and the number of resets so far
+    private final int[] generations;
+    private int epoch;
+
+    //Clicks not yet taken by the worker, in order, and a reset to do before them; guarded by this
+    private List<Move> waiting = new ArrayList<>();
+    private boolean resetWaiting;
+    private boolean scheduled;
+
+    private static final class Move {
+
+        private final int cell;
+        private final boolean cover;
+        private final int generation;
+        private final int epoch;
+        private boolean covered;
+        private int result;
+
+        private Move(int cell, boolean cover, int generation, int epoch) {
+            this.cell = cell;
+            this.cover = cover;
+            this.generation = generation;
+            this.epoch = epoch;
+        }
+    }
+
+    /**
+     * @param puzzle puzzle to play on; from now on only the worker thread may touch it
+     * @param listener receives the results
+     */
+    public MoveValidator(Puzzle puzzle, Listener listener) {
+        this.puzzle = puzzle;
+        this.listener = listener;
+        columns = puzzle.getColumns();
+        generations = new int[puzzle.getRows() * columns];
+        worker = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "move-validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a click, to be called on the JavaFX thread
+     * @param cover true to cover the cell (eliminate), false to bring it back (reactivate)
+     */
+    public void submit(int row, int col, boolean cover) {
+        int cell = row * columns + col;
+        Move move = new Move(cell, cover, ++generations[cell], epoch);
+
+        synchronized (this) {
+            //Only the last click can be merged: replacing an earlier one would move it ahead of the clicks since
+            int last = waiting.size() - 1;
+            if (last >= 0 && waiting.get(last).cell == cell)
+                waiting.set(last, move);
+            else
+                waiting.add(move);
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        synchronized (this) {
+            if (scheduled)
+                return;
+            scheduled = true;
+        }
+        worker.execute(this::drain);
+    }
+
+    /**
+     * Takes every waiting click in one go, applies them in order and sends the results back together
+     */
+    private void drain() {
+        List<Move> batch;
+        boolean reset;
+        synchronized (this) {
+            batch = waiting;
+            waiting = new ArrayList<>();
+            reset = resetWaiting;
+            resetWaiting = false;
+            scheduled = false;
+        }
+
+        if (reset)
+            puzzle.reset();
+
+        List<Move> done = new ArrayList<>(batch.size());
+        boolean covered = false;
+
+        for (Move move : batch) {
+            int i = move.cell / columns;
+            int j = move.cell % columns;
+
+            if (move.cover) {
+                move.result = puzzle.eliminate(i, j);
+                covered |= move.result == 0;
+            } else {
+                puzzle.reactivate(i, j);
+            }
+            move.covered = puzzle.isCovered(i, j);
+            done.add(move);
+        }
+
+        if (done.isEmpty())
+            return;
+
+        boolean won = covered && puzzle.isGameOver();
+        Platform.runLater(() -> deliver(done, won));
+    }
+
+    /**
+     * Passes on the results still wanted, on the JavaFX thread
+     */
+    private void deliver(List<Move> done, boolean won) {
+        boolean current = false;
+
+        for (Move move : done) {
+            if (move.epoch != epoch || move.generation != generations[move.cell])
+                continue; //A newer click or a reset has taken over
+            current = true;
+            listener.moveDone(move.cell / columns, move.cell % columns, move.covered, move.result);
+        }
+
+        if (won && current)
+            listener.gameWon();
+    }
+
+    /**
+     * Drops every waiting click and uncovers every cell before any later click, to be called on the JavaFX thread
+     */
+    public void reset() {
+        epoch++;
+        synchronized (this) {
+            waiting.clear();
+            resetWaiting = true;
+        }
+        schedule();
+    }
+
+    /**
+     * Works out a hint after every move already queued
+     * @param sink receives the hint, or null, on the JavaFX thread
+     */
+    public void hint(Consumer<Hint> sink) {
+        worker.execute(() -> {
+            if (hints == null)
+                hints = new HintEngine(puzzle);
+            Hint hint = hints.next();
+            Platform.runLater(() -> sink.accept(hint));
+        });
+    }
+
+    /**
+     * Stops the worker once it has finished what it is doing; results still on their way are dropped
+     */
+    public void shutdown() {
+        epoch++;
+        worker.shutdown();
+    }
+
+}
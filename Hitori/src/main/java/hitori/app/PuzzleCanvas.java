@@ -0,0 +1,263 @@
+package hitori.app;
+
+import hitori.Puzzle;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+//Draws the grid on one Canvas the size of the visible area, so a board costs one node and one viewport of pixels
+//whatever its size. The canvas shows the part of the grid starting at the scroll offset (see PuzzleView), and only
+//cells in view are ever drawn. Mouse positions are turned into cells by arithmetic, and only the cells that change
+//are drawn again: the cell of an eliminate or reactivate, the cells that were covered before a reset, and the
+//hinted cell; scrolling or resizing draws the visible cells once.
+//The canvas keeps its own copy of what each cell shows, so it never reads the covered cells of a puzzle that
+//a MoveValidator is changing on another thread. A cell whose move is still being checked is shown as pending.
+public class PuzzleCanvas extends Canvas {
+
+    //Shared by every cell and every board
+    private static final Color GRID = Color.BLACK;
+    private static final Color WHITE = Color.WHITE;
+    private static final Color COVERED = Color.BLACK;
+    private static final Color HIGHLIGHT = Color.GOLD;
+    private static final Color PENDING_COVERED = Color.DIMGRAY;
+    private static final Color PENDING_WHITE = Color.LIGHTGRAY;
+    private static final Color TEXT = Color.BLACK;
+
+    //Cells shrink from the largest size to fit big boards on screen, but never below the smallest;
+    //boards that still do not fit are scrolled
+    private static final double MAX_CELL = 30;
+    private static final double MIN_CELL = 6;
+    private static final double FIT = 900;
+    //Below this cell size the numbers are no longer drawn, they would not be readable
+    private static final double MIN_TEXT_CELL = 12;
+
+    //What each cell shows, flat index i * columns + j
+    private static final byte COVERED_CELL = 1;
+    private static final byte PENDING_CELL = 2;
+
+    private Puzzle puzzle;
+    private int rows;
+    private int columns;
+    private byte[] shown;
+    private double cell;
+    private Font font;
+    private int highlighted = -1; //Flat index of the hinted cell, or -1
+    private double offsetX; //Position of the grid shown at the top left corner of the canvas
+    private double offsetY;
+
+    /**
+     * Sizes the cells for the puzzle, scrolls back to the top left corner and draws the cells in view,
+     * as the puzzle is now. Afterwards only its values are read, which never change.
+     */
+    public void setPuzzle(Puzzle puzzle) {
+        this.puzzle = puzzle;
+        highlighted = -1;
+
+        rows = puzzle.getRows();
+        columns = puzzle.getColumns();
+        shown = new byte[rows * columns];
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                if (puzzle.isCovered(i, j))
+                    shown[i * columns + j] = COVERED_CELL;
+
+        cell = Math.max(MIN_CELL, Math.min(MAX_CELL, Math.floor(FIT / Math.max(rows, columns))));
+        font = new Font("Times New Roman", cell * 2 / 3);
+
+        GraphicsContext g = getGraphicsContext2D();
+        g.setFont(font);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.CENTER);
+        g.setLineWidth(1);
+
+        offsetX = offsetY = 0;
+        drawVisible();
+    }
+
+    /**
+     * @return width of the whole grid in pixels, which the canvas only shows part of when it is narrower
+     */
+    public double getGridWidth() {
+        return columns * cell + 1;
+    }
+
+    public double getGridHeight() {
+        return rows * cell + 1;
+    }
+
+    public double getCellSize() {
+        return cell;
+    }
+
+    public double getOffsetX() {
+        return offsetX;
+    }
+
+    public double getOffsetY() {
+        return offsetY;
+    }
+
+    /**
+     * Resizes the canvas to the visible area and draws what is now in view
+     */
+    public void setViewport(double width, double height) {
+        setWidth(Math.max(0, Math.floor(width)));
+        setHeight(Math.max(0, Math.floor(height)));
+        offsetX = clamp(offsetX, getGridWidth() - getWidth());
+        offsetY = clamp(offsetY, getGridHeight() - getHeight());
+        drawVisible();
+    }
+
+    /**
+     * Shows the grid from the given position, kept within the grid, drawing the cells in view if it moved
+     */
+    public void scrollTo(double x, double y) {
+        x = clamp(x, getGridWidth() - getWidth());
+        y = clamp(y, getGridHeight() - getHeight());
+        if (x == offsetX && y == offsetY)
+            return;
+
+        offsetX = x;
+        offsetY = y;
+        drawVisible();
+    }
+
+    //Whole pixels keep the half pixel grid lines sharp
+    private static double clamp(double offset, double max) {
+        return Math.floor(Math.max(0, Math.min(offset, max)));
+    }
+
+    /**
+     * Clears the canvas and draws every cell at least partly in view
+     */
+    private void drawVisible() {
+        if (shown == null)
+            return;
+
+        GraphicsContext g = getGraphicsContext2D();
+        g.clearRect(0, 0, getWidth(), getHeight());
+
+        int lastRow = Math.min(rows - 1, (int) ((offsetY + getHeight()) / cell));
+        int lastColumn = Math.min(columns - 1, (int) ((offsetX + getWidth()) / cell));
+        for (int i = (int) (offsetY / cell); i <= lastRow; i++)
+            for (int j = (int) (offsetX / cell); j <= lastColumn; j++)
+                drawCell(i, j);
+    }
+
+    /**
+     * @return the row under a y coordinate of the canvas, or -1 outside of the grid
+     */
+    public int rowAt(double y) {
+        return indexAt(y + offsetY, rows);
+    }
+
+    /**
+     * @return the column under an x coordinate of the canvas, or -1 outside of the grid
+     */
+    public int columnAt(double x) {
+        return indexAt(x + offsetX, columns);
+    }
+
+    private int indexAt(double position, int count) {
+        int index = (int) Math.floor(position / cell);
+        return index >= 0 && index < count ? index : -1;
+    }
+
+    /**
+     * @return true if the cell shows as covered, pending or not
+     */
+    public boolean isShownCovered(int i, int j) {
+        return (shown[i * columns + j] & COVERED_CELL) != 0;
+    }
+
+    /**
+     * Shows a cell as it will be if the move being checked is accepted
+     * @param cover true for a cell about to be covered, false for one about to be uncovered
+     */
+    public void setPending(int i, int j, boolean cover) {
+        shown[i * columns + j] = (byte) (PENDING_CELL | (cover ? COVERED_CELL : 0));
+        refresh(i, j);
+    }
+
+    /**
+     * Shows the checked state of a cell, ending any pending move on it
+     */
+    public void setCovered(int i, int j, boolean covered) {
+        shown[i * columns + j] = covered ? COVERED_CELL : 0;
+        refresh(i, j);
+    }
+
+    /**
+     * Draws one cell again after it may have changed, dropping the hint highlight if it was on it
+     */
+    private void refresh(int i, int j) {
+        if (highlighted == i * columns + j)
+            highlighted = -1;
+        drawCell(i, j);
+    }
+
+    /**
+     * Shows every cell white again, drawing only the cells in view that were not
+     */
+    public void reset() {
+        clearHighlight();
+
+        for (int c = 0; c < shown.length; c++) {
+            if (shown[c] != 0) {
+                shown[c] = 0;
+                drawCell(c / columns, c % columns);
+            }
+        }
+    }
+
+    /**
+     * Marks a cell until it next changes or another cell is marked
+     */
+    public void highlight(int i, int j) {
+        clearHighlight();
+        highlighted = i * columns + j;
+        drawCell(i, j);
+    }
+
+    private void clearHighlight() {
+        if (highlighted >= 0) {
+            int previous = highlighted;
+            highlighted = -1;
+            drawCell(previous / columns, previous % columns);
+        }
+    }
+
+    private void drawCell(int i, int j) {
+        double x = j * cell - offsetX;
+        double y = i * cell - offsetY;
+        if (x + cell < 0 || y + cell < 0 || x > getWidth() || y > getHeight())
+            return; //Out of view, drawn when scrolled to
+
+        GraphicsContext g = getGraphicsContext2D();
+        byte state = shown[i * columns + j];
+        boolean covered = (state & COVERED_CELL) != 0;
+
+        if ((state & PENDING_CELL) != 0)
+            g.setFill(covered ? PENDING_COVERED : PENDING_WHITE);
+        else if (covered)
+            g.setFill(COVERED);
+        else if (highlighted == i * columns + j)
+            g.setFill(HIGHLIGHT);
+        else
+            g.setFill(WHITE);
+        g.fillRect(x, y, cell, cell);
+
+        //Half pixel offsets keep one pixel lines sharp
+        g.setStroke(GRID);
+        g.strokeRect(x + 0.5, y + 0.5, cell, cell);
+
+        if (!covered && cell >= MIN_TEXT_CELL) {
+            g.setFill(TEXT);
+            g.fillText(Integer.toString(puzzle.getValue(i, j)), x + cell / 2, y + cell / 2);
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package hitori.app;
+
+import hitori.Puzzle;
+import javafx.geometry.Orientation;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.Pane;
+
+//Scrolls a PuzzleCanvas over boards too big for the window
+//The canvas is kept the size of the visible area and told where the view starts, instead of being sized to the
+//whole board and scrolled by a ScrollPane: a 2000 x 2000 board would otherwise need a canvas of 12001 x 12001
+//pixels, far more memory than the board itself and more than most graphics cards accept as one texture.
+//Scroll bars only show when the board does not fit.
+public class PuzzleView extends BorderPane {
+
+    //The view asks for no more than this, bigger boards are scrolled
+    private static final double PREFERRED = 900;
+
+    private final PuzzleCanvas canvas;
+    private final Pane viewport;
+    private final ScrollBar horizontal = new ScrollBar();
+    private final ScrollBar vertical = new ScrollBar();
+
+    public PuzzleView(PuzzleCanvas canvas) {
+        this.canvas = canvas;
+
+        viewport = new Pane(canvas) {
+            @Override
+            protected double computePrefWidth(double height) {
+                return Math.min(canvas.getGridWidth(), PREFERRED);
+            }
+
+            @Override
+            protected double computePrefHeight(double width) {
+                return Math.min(canvas.getGridHeight(), PREFERRED);
+            }
+
+            @Override
+            protected void layoutChildren() {
+                canvas.setViewport(getWidth(), getHeight());
+                updateBars();
+            }
+        };
+        viewport.setMinSize(0, 0);
+
+        vertical.setOrientation(Orientation.VERTICAL);
+        horizontal.valueProperty().addListener((observable, before, value) -> scroll());
+        vertical.valueProperty().addListener((observable, before, value) -> scroll());
+
+        //Wheel and touchpad scrolling
+        viewport.setOnScroll(e -> {
+            horizontal.setValue(clamp(horizontal, horizontal.getValue() - e.getDeltaX()));
+            vertical.setValue(clamp(vertical, vertical.getValue() - e.getDeltaY()));
+        });
+
+        setCenter(viewport);
+        setRight(vertical);
+        setBottom(horizontal);
+    }
+
+    /**
+     * Shows a puzzle from its top left corner
+     */
+    public void setPuzzle(Puzzle puzzle) {
+        canvas.setPuzzle(puzzle);
+        horizontal.setValue(0);
+        vertical.setValue(0);
+        viewport.requestLayout();
+    }
+
+    /**
+     * Scrolls just enough to bring a cell into view
+     */
+    public void reveal(int i, int j) {
+        double cell = canvas.getCellSize();
+        horizontal.setValue(clamp(horizontal, into(j * cell, cell, horizontal.getValue(), canvas.getWidth())));
+        vertical.setValue(clamp(vertical, into(i * cell, cell, vertical.getValue(), canvas.getHeight())));
+    }
+
+    //Offset that shows [start, start + length) in a view of the given size, moving the current one as little as possible
+    private static double into(double start, double length, double offset, double size) {
+        if (start < offset)
+            return start;
+        if (start + length + 1 > offset + size)
+            return start + length + 1 - size;
+        return offset;
+    }
+
+    private void scroll() {
+        canvas.scrollTo(horizontal.getValue(), vertical.getValue());
+    }
+
+    /**
+     * Fits the bars to the part of the grid in view, hiding the ones that are not needed
+     */
+    private void updateBars() {
+        fit(horizontal, canvas.getGridWidth(), canvas.getWidth(), canvas.getOffsetX());
+        fit(vertical, canvas.getGridHeight(), canvas.getHeight(), canvas.getOffsetY());
+    }
+
+    private void fit(ScrollBar bar, double grid, double size, double offset) {
+        double range = Math.max(0, grid - size);
+        boolean needed = range > 0;
+        if (bar.isManaged() != needed) {
+            //Showing or hiding a bar changes the space left for the viewport, which is laid out again
+            bar.setManaged(needed);
+            bar.setVisible(needed);
+        }
+
+        bar.setMax(range);
+        //The thumb covers the visible share of the grid
+        bar.setVisibleAmount(grid > 0 ? range * size / grid : 0);
+        bar.setUnitIncrement(canvas.getCellSize());
+        bar.setBlockIncrement(size);
+        bar.setValue(offset);
+    }
+
+    private static double clamp(ScrollBar bar, double value) {
+        return Math.max(bar.getMin(), Math.min(bar.getMax(), value));
+    }
+
+}
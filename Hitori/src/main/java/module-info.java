@@ -1,7 +1,8 @@
-module hitori {
-    requires java.scripting;
-    requires javafx.controls;
-    requires org.apache.logging.log4j;
-    opens hitori to javafx.fxml;
-    exports hitori;
-}
\ No newline at end of file
+module hitori {
+    requires hitori.core;
+    requires java.scripting;
+    requires javafx.controls;
+    requires org.apache.logging.log4j;
+    opens hitori.app to javafx.fxml;
+    exports hitori.app;
+}
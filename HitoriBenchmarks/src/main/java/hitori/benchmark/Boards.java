@@ -0,0 +1,64 @@
+package hitori.benchmark;
+
+import hitori.Puzzle;
+
+import java.util.Random;
+
+//Deterministic boards for the benchmarks: the same size and seed always give the same values and shading
+final class Boards {
+
+    private Boards() {
+    }
+
+    /**
+     * @return a latin square of values 1 to size, with rows, columns and symbols shuffled by the seed
+     */
+    static int[][] latinSquare(int size, long seed) {
+        Random random = new Random(seed);
+        int[] rows = permutation(size, random);
+        int[] cols = permutation(size, random);
+        int[] symbols = permutation(size, random);
+
+        int[][] values = new int[size][size];
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                values[i][j] = symbols[(rows[i] + cols[j]) % size] + 1;
+
+        return values;
+    }
+
+    /**
+     * Covers cells in a seeded random order through tryEliminate until the given share of cells is covered,
+     * so the board keeps constraints 2 and 3
+     */
+    static Puzzle shaded(int size, long seed, double density) {
+        Puzzle puzzle = new Puzzle(latinSquare(size, seed));
+        Random random = new Random(seed + 1);
+        int[] order = permutation(size * size, random);
+        int limit = (int) (size * size * density);
+        int covered = 0;
+
+        for (int k = 0; k < order.length && covered < limit; k++) {
+            if (puzzle.tryEliminate(order[k] / size, order[k] % size) == 0)
+                covered++;
+        }
+
+        return puzzle;
+    }
+
+    private static int[] permutation(int n, Random random) {
+        int[] permutation = new int[n];
+        for (int k = 0; k < n; k++)
+            permutation[k] = k;
+
+        for (int k = n - 1; k > 0; k--) {
+            int other = random.nextInt(k + 1);
+            int swap = permutation[k];
+            permutation[k] = permutation[other];
+            permutation[other] = swap;
+        }
+
+        return permutation;
+    }
+
+}
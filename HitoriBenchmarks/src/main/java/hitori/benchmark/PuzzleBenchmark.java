@@ -0,0 +1,143 @@
+package hitori.benchmark;
+
+import hitori.Puzzle;
+import hitori.PuzzleMetrics;
+import hitori.SolutionVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+//Rule checks on a board about 20% covered: accepted and rejected moves, the full constraint 3 check, win detection
+//and a one pass check of the whole shading, with PuzzleMetrics off and on to show what recording costs
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PuzzleBenchmark {
+
+    @Param({"8", "50", "200", "500"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private Puzzle puzzle;
+    private int start; //Checkpoint of the shaded board, which every accepted move goes back to
+
+    //Cells whose elimination is accepted, rejected by constraint 2 and rejected by constraint 3
+    private int[] accept;
+    private int[] rule2;
+    private int[] rule3;
+    private int next;
+
+    private SolutionVerifier verifier;
+    private BitSet shading;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PuzzleMetrics.setEnabled(metrics);
+        puzzle = Boards.shaded(size, 42, 0.2);
+
+        int cells = size * size;
+        int[] accepted = new int[cells];
+        int[] rejected2 = new int[cells];
+        int[] rejected3 = new int[cells];
+        int a = 0;
+        int r2 = 0;
+        int r3 = 0;
+
+        for (int cell = 0; cell < cells; cell++) {
+            int i = cell / size;
+            int j = cell % size;
+            if (puzzle.isCovered(i, j))
+                continue;
+
+            int result = puzzle.tryEliminate(i, j);
+            if (result == 0) {
+                puzzle.reactivate(i, j);
+                accepted[a++] = cell;
+            } else if (result == 2) {
+                rejected2[r2++] = cell;
+            } else {
+                rejected3[r3++] = cell;
+            }
+        }
+
+        if (a == 0 || r2 == 0 || r3 == 0)
+            throw new IllegalStateException("Board of size " + size + " lacks a kind of move to benchmark");
+
+        accept = Arrays.copyOf(accepted, a);
+        rule2 = Arrays.copyOf(rejected2, r2);
+        rule3 = Arrays.copyOf(rejected3, r3);
+
+        verifier = new SolutionVerifier(puzzle);
+        shading = new BitSet(cells);
+        for (int cell = 0; cell < cells; cell++)
+            if (puzzle.isCovered(cell / size, cell % size))
+                shading.set(cell);
+
+        //Drop the moves made above, and make sure the next move is checked incrementally
+        puzzle.clearJournal();
+        start = puzzle.checkpoint();
+        puzzle.tryEliminate(accept[0] / size, accept[0] % size);
+        puzzle.jumpTo(start);
+    }
+
+    private int nextCell(int[] cells) {
+        if (++next >= cells.length)
+            next = 0;
+        return cells[next];
+    }
+
+    @Benchmark
+    public int eliminateAccepted() {
+        int cell = nextCell(accept);
+        int result = puzzle.tryEliminate(cell / size, cell % size);
+        //Undoing rather than reactivating keeps the journal at one entry, so every call does the same work
+        puzzle.jumpTo(start);
+        return result;
+    }
+
+    @Benchmark
+    public int eliminateRejectedRule2() {
+        int cell = nextCell(rule2);
+        return puzzle.tryEliminate(cell / size, cell % size);
+    }
+
+    @Benchmark
+    public int eliminateRejectedRule3() {
+        int cell = nextCell(rule3);
+        return puzzle.tryEliminate(cell / size, cell % size);
+    }
+
+    @Benchmark
+    public boolean fullRule3Check() {
+        return puzzle.isConnected();
+    }
+
+    @Benchmark
+    public boolean isGameOver() {
+        return puzzle.isGameOver();
+    }
+
+    @Benchmark
+    public Object verifyShading() {
+        return verifier.verify(shading);
+    }
+
+}
@@ -0,0 +1,70 @@
+package hitori.benchmark;
+
+import hitori.Puzzle;
+import hitori.generator.Difficulty;
+import hitori.generator.PuzzleGenerator;
+import hitori.solver.SolveResult;
+import hitori.solver.Solver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+//Solving (with a uniqueness check) and generating puzzles from fixed seeds
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    private static final int PUZZLES = 16;
+
+    @Param({"8", "10", "15"})
+    public int size;
+
+    @Param({"EASY", "HARD"})
+    public Difficulty difficulty;
+
+    private Puzzle[] puzzles;
+    private Solver solver;
+    private PuzzleGenerator generator;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PuzzleGenerator fixtures = new PuzzleGenerator(size, difficulty, 42);
+        puzzles = new Puzzle[PUZZLES];
+        for (int k = 0; k < PUZZLES; k++)
+            puzzles[k] = fixtures.generate(k).getPuzzle();
+
+        solver = new Solver();
+        generator = new PuzzleGenerator(size, difficulty, 7);
+    }
+
+    @Benchmark
+    public SolveResult solve() {
+        next = (next + 1) % PUZZLES;
+        return solver.solve(puzzles[next]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object generate() {
+        //Cycle through a fixed set of indices so every iteration does comparable work
+        next = (next + 1) % PUZZLES;
+        return generator.generate(next);
+    }
+
+}
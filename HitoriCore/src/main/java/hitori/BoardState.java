@@ -0,0 +1,386 @@
+package hitori;
+
+//Immutable snapshot of a board: the values of a puzzle and which of its cells are covered.
+//Covered cells are kept as 64 bit words (cell c = i * columns + j at bit c % 64 of word c / 64) in a persistent
+//trie with 32 children per node, so withCovered and withUncovered copy only the path down to one word,
+//O(log n) in the number of cells, and share everything else with the state they came from.
+//Values are shared by every state of the same puzzle and never written after construction.
+//Nothing a state holds ever changes, so any number of threads can read it and derive new states from it
+//without locks; the duplicate count and connectivity are worked out on first use and cached.
+public final class BoardState {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    //Neighbour offsets in clockwise order: up, right, down, left
+    private static final int[] di = {-1, 0, 1, 0};
+    private static final int[] dj = {0, 1, 0, -1};
+
+    private final int rows;
+    private final int columns;
+    private final CellValues values; //Value of cell (i, j) at i * columns + j
+
+    private final Object root; //long[WIDTH] leaf, or Object[WIDTH] of nodes one level down
+    private final int shift; //BITS times the number of levels above the leaves
+    private final int coveredCount;
+    private final int adjacentPairs; //Pairs of neighbouring covered cells, each one a breach of constraint 2
+
+    //Cached on first use; racing threads may both compute them, but always to the same value
+    private int duplicates = -1;
+    private byte connected; //0 not known yet, 1 connected, 2 split
+
+    private BoardState(CellValues values, Object root, int shift, int coveredCount, int adjacentPairs) {
+        this.rows = values.rows();
+        this.columns = values.columns();
+        this.values = values;
+        this.root = root;
+        this.shift = shift;
+        this.coveredCount = coveredCount;
+        this.adjacentPairs = adjacentPairs;
+    }
+
+    /**
+     * State with every cell white
+     * @param values values[i][j] is the number in row i, column j; every row as long as the first
+     */
+    public static BoardState of(int[][] values) {
+        CellValues cells = CellValues.of(values);
+        return of(cells, new long[(cells.cells() + 63) >>> 6]);
+    }
+
+    /**
+     * State sharing the values of a puzzle, with the covered cells as flat words, used by Puzzle.snapshot
+     * @param words bit i * columns + j set when cell (i, j) is covered
+     */
+    static BoardState of(CellValues values, long[] words) {
+        int columns = values.columns();
+        int cells = values.cells();
+
+        int shift = 0;
+        while ((long) WIDTH << shift < words.length)
+            shift += BITS;
+
+        int coveredCount = 0;
+        int adjacentPairs = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (!bit(words, cell))
+                continue;
+
+            coveredCount++;
+            //Count each pair once, from its upper or left cell
+            if (cell % columns + 1 < columns && bit(words, cell + 1))
+                adjacentPairs++;
+            if (cell + columns < cells && bit(words, cell + columns))
+                adjacentPairs++;
+        }
+
+        return new BoardState(values, build(words, 0, shift), shift, coveredCount, adjacentPairs);
+    }
+
+    private static boolean bit(long[] words, int cell) {
+        return (words[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Builds the subtree holding the words from first onwards, sharing one node for every run of empty words
+     */
+    private static Object build(long[] words, int first, int shift) {
+        if (shift == 0) {
+            long[] leaf = new long[WIDTH];
+            if (first < words.length)
+                System.arraycopy(words, first, leaf, 0, Math.min(WIDTH, words.length - first));
+            return leaf;
+        }
+
+        Object[] node = new Object[WIDTH];
+        Object empty = null;
+        int span = WIDTH << (shift - BITS);
+
+        for (int k = 0; k < WIDTH; k++) {
+            int start = first + k * span;
+            if (isEmpty(words, start, span)) {
+                if (empty == null)
+                    empty = build(new long[0], 0, shift - BITS);
+                node[k] = empty;
+            } else {
+                node[k] = build(words, start, shift - BITS);
+            }
+        }
+
+        return node;
+    }
+
+    private static boolean isEmpty(long[] words, int start, int span) {
+        for (int w = start; w < words.length && w < start + span; w++) {
+            if (words[w] != 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of rows, which is also the number of columns
+     * @throws IllegalStateException if the grid is not square; use getRows and getColumns instead
+     */
+    public int getSize() {
+        if (rows != columns)
+            throw new IllegalStateException("A " + rows + "x" + columns + " board is not square");
+        return rows;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @param i index row
+     * @param j index column
+     * @return the value stored in that cell
+     */
+    public int getValue(int i, int j) {
+        return values.get(i * columns + j);
+    }
+
+    /**
+     * @param i index row
+     * @param j index column
+     * @return true if that cell is covered (black)
+     */
+    public boolean isCovered(int i, int j) {
+        int cell = i * columns + j;
+        return (word(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    /**
+     * Same as isCovered, but positions outside of the grid count as white
+     */
+    private boolean coveredAt(int i, int j) {
+        return isValidPosition(i, j) && isCovered(i, j);
+    }
+
+    public boolean isValidPosition(int i, int j) {
+        return i >= 0 && i < rows && j >= 0 && j < columns;
+    }
+
+    public int getCoveredCount() {
+        return coveredCount;
+    }
+
+    private long word(int w) {
+        Object node = root;
+        for (int s = shift; s > 0; s -= BITS)
+            node = ((Object[]) node)[(w >>> s) & MASK];
+        return ((long[]) node)[w & MASK];
+    }
+
+    /**
+     * @return a copy of the node with word w replaced, sharing every other child
+     */
+    private static Object with(Object node, int shift, int w, long word) {
+        if (shift == 0) {
+            long[] leaf = ((long[]) node).clone();
+            leaf[w & MASK] = word;
+            return leaf;
+        }
+
+        Object[] copy = ((Object[]) node).clone();
+        int k = (w >>> shift) & MASK;
+        copy[k] = with(copy[k], shift - BITS, w, word);
+        return copy;
+    }
+
+    /**
+     * @param i index row
+     * @param j index column
+     * @return this state with the cell covered, or this state itself if it already was.
+     * No constraint is checked; see canCover.
+     */
+    public BoardState withCovered(int i, int j) {
+        return with(i, j, true);
+    }
+
+    /**
+     * @param i index row
+     * @param j index column
+     * @return this state with the cell uncovered, or this state itself if it already was
+     */
+    public BoardState withUncovered(int i, int j) {
+        return with(i, j, false);
+    }
+
+    private BoardState with(int i, int j, boolean covered) {
+        if (!isValidPosition(i, j))
+            throw new IllegalArgumentException("Position (" + i + ", " + j + ") is outside of the grid");
+
+        if (isCovered(i, j) == covered)
+            return this;
+
+        int cell = i * columns + j;
+        int w = cell >>> 6;
+        long word = word(w) ^ (1L << cell);
+
+        int neighbours = coveredNeighbours(i, j);
+        return new BoardState(values, with(root, shift, w, word), shift,
+                coveredCount + (covered ? 1 : -1), adjacentPairs + (covered ? neighbours : -neighbours));
+    }
+
+    private int coveredNeighbours(int i, int j) {
+        int count = 0;
+        for (int d = 0; d < 4; d++) {
+            if (coveredAt(i + di[d], j + dj[d]))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Constraint 2 and 3 check for covering one more cell, without building the new state
+     * @param i index row
+     * @param j index column
+     * @return true if the cell is white, has no covered neighbour and covering it keeps the white cells linked
+     */
+    public boolean canCover(int i, int j) {
+        if (!isValidPosition(i, j) || isCovered(i, j) || coveredNeighbours(i, j) > 0)
+            return false;
+
+        return countReachable(flatWords(), i * columns + j) == rows * columns - coveredCount - 1;
+    }
+
+    /**
+     * @return true if no two covered cells are next to each other (constraint 2)
+     */
+    public boolean hasNoAdjacentCovered() {
+        return adjacentPairs == 0;
+    }
+
+    /**
+     * @return true if every white cell can be reached from every other (constraint 3)
+     */
+    public boolean isConnected() {
+        if (connected == 0) {
+            int white = rows * columns - coveredCount;
+            boolean linked = white == 0 || countReachable(flatWords(), -1) == white;
+            connected = linked ? (byte) 1 : (byte) 2;
+        }
+        return connected == 1;
+    }
+
+    /**
+     * @return the number of (row, value) and (column, value) pairs shared by more than one white cell
+     */
+    public int getDuplicateCount() {
+        if (duplicates < 0) {
+            long[] words = flatWords();
+            int[] counts = new int[values.distinct()];
+            int count = 0;
+
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    int cell = i * columns + j;
+                    if (!bit(words, cell) && ++counts[values.code(cell)] == 2)
+                        count++;
+                }
+                for (int j = 0; j < columns; j++)
+                    counts[values.code(i * columns + j)] = 0;
+            }
+
+            for (int j = 0; j < columns; j++) {
+                for (int i = 0; i < rows; i++) {
+                    int cell = i * columns + j;
+                    if (!bit(words, cell) && ++counts[values.code(cell)] == 2)
+                        count++;
+                }
+                for (int i = 0; i < rows; i++)
+                    counts[values.code(i * columns + j)] = 0;
+            }
+
+            duplicates = count;
+        }
+        return duplicates;
+    }
+
+    /**
+     * @return true if all three constraints hold, so the state is a solution of the puzzle
+     */
+    public boolean isSolved() {
+        return adjacentPairs == 0 && getDuplicateCount() == 0 && isConnected();
+    }
+
+    /**
+     * @return the covered cells as flat words, bit i * columns + j for cell (i, j)
+     */
+    private long[] flatWords() {
+        long[] words = new long[(rows * columns + 63) >>> 6];
+        for (int w = 0; w < words.length; w++)
+            words[w] = word(w);
+        return words;
+    }
+
+    /**
+     * Flood fill over the white cells, starting next to a cell about to be covered or from the first white cell
+     * @param excluded flat index of a white cell to treat as covered, or -1
+     * @return the number of white cells reachable from the start
+     */
+    private int countReachable(long[] words, int excluded) {
+        int cells = rows * columns;
+        int seed = -1;
+        for (int cell = 0; cell < cells && seed < 0; cell++) {
+            if (cell != excluded && !bit(words, cell))
+                seed = cell;
+        }
+        if (seed < 0)
+            return 0;
+
+        long[] seen = new long[words.length];
+        int[] queue = new int[cells - coveredCount];
+        int head = 0;
+        int tail = 0;
+
+        seen[seed >>> 6] |= 1L << seed;
+        queue[tail++] = seed;
+
+        while (head < tail) {
+            int index = queue[head++];
+            int r = index / columns;
+            int c = index % columns;
+
+            for (int d = 0; d < 4; d++) {
+                int nr = r + di[d];
+                int nc = c + dj[d];
+                int next = nr * columns + nc;
+
+                if (!isValidPosition(nr, nc) || next == excluded || bit(words, next) || bit(seen, next))
+                    continue;
+
+                seen[next >>> 6] |= 1L << next;
+                queue[tail++] = next;
+            }
+        }
+
+        return tail;
+    }
+
+    /**
+     * @return a new mutable puzzle with the same values and covered cells, and an empty journal
+     */
+    public Puzzle toPuzzle() {
+        return new Puzzle(this);
+    }
+
+    /**
+     * @return a flat copy of the state, without the trie; connectivity is kept only if already worked out
+     */
+    public PackedBoard pack() {
+        return new PackedBoard(values, flatWords(), connected == 1);
+    }
+
+    CellValues values() {
+        return values;
+    }
+
+}
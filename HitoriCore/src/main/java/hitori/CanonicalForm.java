@@ -0,0 +1,165 @@
+package hitori;
+
+import java.util.Arrays;
+
+//The representative of a board among all the boards that are the same puzzle: its rotations and reflections
+//(see Symmetry) with the values given other names. Only equal and unequal values matter to the rules, so such
+//boards have the same solutions, turned the same way, and the same difficulty.
+//For each symmetry the grid is read in row order and every value is renamed by the order in which it first
+//appears (1, 2, 3, ...), which gives the same labels whatever the original names were. The canonical form is
+//the smallest of these label sequences, compared in row order. A reading stops as soon as it falls behind the
+//best one so far, so the cost is at most eight passes over the cells, plus one over the value range.
+public final class CanonicalForm {
+
+    private final int rows;
+    private final int columns;
+    private final int[] labels; //Label of cell (i, j) at i * columns + j
+    private final int valueCount;
+    private final Symmetry symmetry;
+
+    private CanonicalForm(int rows, int columns, int[] labels, int valueCount, Symmetry symmetry) {
+        this.rows = rows;
+        this.columns = columns;
+        this.labels = labels;
+        this.valueCount = valueCount;
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Canonical form of the values of a puzzle; covered cells play no part
+     */
+    public static CanonicalForm of(Puzzle puzzle) {
+        return of(puzzle.values());
+    }
+
+    static CanonicalForm of(CellValues values) {
+        int rows = values.rows();
+        int columns = values.columns();
+        int cells = values.cells();
+
+        int[] label = new int[values.distinct()]; //Label given to each value code in this reading, 0 if none yet
+        int[] named = new int[cells]; //Values labelled in this reading, in order, to clear afterwards
+        int[] best = null;
+        int[] candidate = new int[cells];
+        Symmetry bestSymmetry = null;
+        int bestCount = 0;
+
+        for (Symmetry symmetry : Symmetry.of(rows, columns)) {
+            int newRows = symmetry.swapsSides() ? columns : rows;
+            int newColumns = symmetry.swapsSides() ? rows : columns;
+            int rowStep = symmetry.rowStep(rows, columns);
+            int columnStep = symmetry.columnStep(rows, columns);
+            int next = 0;
+            int order = best == null ? -1 : 0; //-1 once this reading is known to be smaller, 0 while equal so far
+            boolean behind = false;
+            int cell = 0;
+
+            reading:
+            for (int i = 0, start = symmetry.source(0, 0, rows, columns); i < newRows; i++, start += rowStep) {
+                for (int j = 0, source = start; j < newColumns; j++, source += columnStep, cell++) {
+                    int value = values.code(source);
+                    int l = label[value];
+                    if (l == 0) {
+                        l = label[value] = ++next;
+                        named[next - 1] = value;
+                    }
+                    candidate[cell] = l;
+
+                    if (order == 0 && l != best[cell]) {
+                        if (l > best[cell]) {
+                            behind = true;
+                            break reading;
+                        }
+                        order = -1;
+                    }
+                }
+            }
+
+            for (int k = 0; k < next; k++)
+                label[named[k]] = 0;
+
+            if (!behind && order < 0) {
+                int[] swap = best;
+                best = candidate;
+                candidate = swap == null ? new int[cells] : swap;
+                bestSymmetry = symmetry;
+                bestCount = next;
+            }
+        }
+
+        boolean swaps = bestSymmetry.swapsSides();
+        return new CanonicalForm(swaps ? columns : rows, swaps ? rows : columns, best, bestCount, bestSymmetry);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the label of cell (i, j) of the canonical grid, from 1 to getValueCount()
+     */
+    public int getLabel(int i, int j) {
+        return labels[i * columns + j];
+    }
+
+    /**
+     * @return the number of different values on the board
+     */
+    public int getValueCount() {
+        return valueCount;
+    }
+
+    /**
+     * @return the symmetry that turns the original board into the canonical one: cell (i, j) of the canonical
+     * grid is cell getSymmetry().source(i, j, rows, columns) of the original
+     */
+    public Symmetry getSymmetry() {
+        return symmetry;
+    }
+
+    /**
+     * @return a new puzzle whose values are the labels, every cell white
+     */
+    public Puzzle toPuzzle() {
+        return new Puzzle(rows, columns, labels);
+    }
+
+    /**
+     * @return a 64 bit hash of the canonical grid, the same for every board that is the same puzzle
+     */
+    public long hash64() {
+        long hash = rows * 0x9E3779B97F4A7C15L + columns;
+        for (int label : labels) {
+            hash += label * 0xC2B2AE3D27D4EB4FL;
+            hash = Long.rotateLeft(hash, 31) * 0x9E3779B97F4A7C15L;
+        }
+
+        //Final mix so every bit of the hash depends on every label
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * @return true if the other form has the same canonical grid, so both boards are the same puzzle
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof CanonicalForm))
+            return false;
+        CanonicalForm form = (CanonicalForm) other;
+        return rows == form.rows && columns == form.columns && Arrays.equals(labels, form.labels);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash64());
+    }
+
+}
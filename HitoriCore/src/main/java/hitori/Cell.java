@@ -0,0 +1,39 @@
+package hitori;
+
+//Class with methods for each individual cell (to cover, uncover) and to check the value and its state.
+//A cell is only a view of one position of its puzzle, the puzzle itself holds the values and covered state.
+public class Cell {
+
+    private final Puzzle puzzle;
+    private final int row;
+    private final int col;
+
+    //View of the cell at (row, col) of the puzzle
+    Cell(Puzzle puzzle, int row, int col) {
+        this.puzzle = puzzle;
+        this.row = row;
+        this.col = col;
+    }
+
+    //Enable cell to be covered
+    public void cover() {
+        puzzle.change(row, col, true);
+    }
+
+    //Enable cell to be uncovered
+    public void uncover() {
+        puzzle.change(row, col, false);
+    }
+
+    //Check the state of cell (whether covered or not/black or white)
+    public boolean isCovered() {
+        return puzzle.isCovered(row, col);
+    }
+
+    //Get the value stored in that cell
+    public int getValue() {
+        return puzzle.getValue(row, col);
+    }
+
+}
+
@@ -0,0 +1,250 @@
+package hitori;
+
+import java.util.Arrays;
+
+//Values of a grid in row order, cell (i, j) at i * columns + j. Each different value gets a code, 0, 1, 2, ... in
+//increasing order of value, and cells store their code: one byte each when there are at most 256 different values,
+//two bytes each up to 65536 and four beyond, so a board takes no more memory than its alphabet needs whatever
+//the values themselves are. Counters indexed by code are sized by the values that appear rather than by their range.
+//Never written after construction, so every Puzzle and BoardState made from the same values shares one copy.
+final class CellValues {
+
+    private final int rows;
+    private final int columns;
+    private final int[] alphabet; //Value of each code, in increasing order
+    private final byte[] bytes; //Unsigned codes, set when there are at most 256 codes
+    private final char[] chars; //Codes when there are at most 65536
+    private final int[] ints; //Codes otherwise
+    private WhiteCounts whiteCounts; //Worked out on first use; racing threads may both do it, to the same counts
+
+    private CellValues(int rows, int columns, int[] alphabet, byte[] bytes, char[] chars, int[] ints) {
+        this.rows = rows;
+        this.columns = columns;
+        this.alphabet = alphabet;
+        this.bytes = bytes;
+        this.chars = chars;
+        this.ints = ints;
+    }
+
+    /**
+     * Codes an array of values
+     * @param values values in row order, any int
+     */
+    static CellValues of(int rows, int columns, int[] values) {
+        if (rows < 1 || columns < 1 || (long) rows * columns != values.length)
+            throw new IllegalArgumentException("A " + rows + "x" + columns + " grid cannot hold " + values.length
+                    + " values");
+
+        int minValue = Integer.MAX_VALUE;
+        int maxValue = Integer.MIN_VALUE;
+        for (int value : values) {
+            minValue = Math.min(minValue, value);
+            maxValue = Math.max(maxValue, value);
+        }
+
+        int[] alphabet;
+        int[] code = null; //Code of each value less minValue, when the values are close enough for a table
+
+        if ((long) maxValue - minValue < Math.max(256, 2 * values.length)) {
+            code = new int[maxValue - minValue + 1];
+            for (int value : values)
+                code[value - minValue] = 1;
+            int count = 0;
+            for (int k = 0; k < code.length; k++)
+                if (code[k] != 0)
+                    code[k] = count++;
+            alphabet = new int[count];
+            for (int value : values)
+                alphabet[code[value - minValue]] = value;
+        } else {
+            int[] sorted = values.clone();
+            Arrays.sort(sorted);
+            int count = 0;
+            for (int k = 0; k < sorted.length; k++)
+                if (k == 0 || sorted[k] != sorted[k - 1])
+                    sorted[count++] = sorted[k];
+            alphabet = Arrays.copyOf(sorted, count);
+        }
+
+        if (alphabet.length <= 1 << 8) {
+            byte[] bytes = new byte[values.length];
+            for (int cell = 0; cell < values.length; cell++)
+                bytes[cell] = (byte) code(alphabet, code, minValue, values[cell]);
+            return new CellValues(rows, columns, alphabet, bytes, null, null);
+        }
+
+        if (alphabet.length <= 1 << 16) {
+            char[] chars = new char[values.length];
+            for (int cell = 0; cell < values.length; cell++)
+                chars[cell] = (char) code(alphabet, code, minValue, values[cell]);
+            return new CellValues(rows, columns, alphabet, null, chars, null);
+        }
+
+        int[] ints = new int[values.length];
+        for (int cell = 0; cell < values.length; cell++)
+            ints[cell] = code(alphabet, code, minValue, values[cell]);
+        return new CellValues(rows, columns, alphabet, null, null, ints);
+    }
+
+    private static int code(int[] alphabet, int[] code, int minValue, int value) {
+        return code != null ? code[value - minValue] : Arrays.binarySearch(alphabet, value);
+    }
+
+    /**
+     * Copies a grid of values
+     * @param values values[i][j] is the number in row i, column j; every row as long as the first
+     */
+    static CellValues of(int[][] values) {
+        int rows = values.length;
+        int columns = rows == 0 ? 0 : values[0].length;
+        int[] flat = new int[rows * columns];
+
+        for (int i = 0; i < rows; i++) {
+            if (values[i].length != columns)
+                throw new IllegalArgumentException("Row " + i + " has " + values[i].length + " values, expected "
+                        + columns);
+
+            System.arraycopy(values[i], 0, flat, i * columns, columns);
+        }
+
+        return of(rows, columns, flat);
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    int columns() {
+        return columns;
+    }
+
+    int cells() {
+        return rows * columns;
+    }
+
+    int minValue() {
+        return alphabet[0];
+    }
+
+    int maxValue() {
+        return alphabet[alphabet.length - 1];
+    }
+
+    /**
+     * @return the number of different values, so codes run from 0 to distinct() - 1
+     */
+    int distinct() {
+        return alphabet.length;
+    }
+
+    /**
+     * @param cell flat index i * columns + j
+     */
+    int get(int cell) {
+        return alphabet[code(cell)];
+    }
+
+    /**
+     * @param cell flat index i * columns + j
+     * @return the code of the value of the cell; equal values have equal codes
+     */
+    int code(int cell) {
+        return bytes != null ? bytes[cell] & 0xff : chars != null ? chars[cell] : ints[cell];
+    }
+
+    /**
+     * @return 1, 2 or 4, the bytes taken by each cell
+     */
+    int width() {
+        return bytes != null ? 1 : chars != null ? 2 : 4;
+    }
+
+    //How many cells of each row and column hold each value when every cell is white, and how many (line, value)
+    //pairs appear more than once. Puzzles copy them rather than count again on every reset.
+    //A counter is normally at line * distinct() + code. When that would take much more room than the board itself,
+    //as with a grid of mostly different values, only the pairs that occur get a counter, numbered densely, and
+    //rowSlots and columnSlots give the counter of each cell.
+    //The fields are final so that a thread reading whiteCounts without a lock sees them filled in.
+    static final class WhiteCounts {
+
+        final int[] rows;
+        final int[] columns;
+        final int[] rowSlots; //Counter of the (row, value) pair of each cell, null if at line * distinct() + code
+        final int[] columnSlots;
+        final int duplicates;
+
+        private WhiteCounts(int[] rows, int[] columns, int[] rowSlots, int[] columnSlots, int duplicates) {
+            this.rows = rows;
+            this.columns = columns;
+            this.rowSlots = rowSlots;
+            this.columnSlots = columnSlots;
+            this.duplicates = duplicates;
+        }
+    }
+
+    /**
+     * @return the value counters of the board with every cell white; the arrays must not be written
+     */
+    WhiteCounts whiteCounts() {
+        WhiteCounts counts = whiteCounts;
+        if (counts != null)
+            return counts;
+
+        int codes = alphabet.length;
+        int cells = rows * columns;
+        int[] rowSlots = null;
+        int[] columnSlots = null;
+        int rowCounters = rows * codes;
+        int columnCounters = columns * codes;
+
+        if ((long) (rows + columns) * codes > 4L * cells) {
+            rowSlots = new int[cells];
+            columnSlots = new int[cells];
+            int[] line = new int[codes]; //Line a code last got a counter in, plus one
+            int[] slot = new int[codes]; //Counter it got there
+
+            rowCounters = 0;
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    int code = code(i * columns + j);
+                    if (line[code] != i + 1) {
+                        line[code] = i + 1;
+                        slot[code] = rowCounters++;
+                    }
+                    rowSlots[i * columns + j] = slot[code];
+                }
+            }
+
+            Arrays.fill(line, 0);
+            columnCounters = 0;
+            for (int j = 0; j < columns; j++) {
+                for (int i = 0; i < rows; i++) {
+                    int code = code(i * columns + j);
+                    if (line[code] != j + 1) {
+                        line[code] = j + 1;
+                        slot[code] = columnCounters++;
+                    }
+                    columnSlots[i * columns + j] = slot[code];
+                }
+            }
+        }
+
+        int[] rowCounts = new int[rowCounters];
+        int[] colCounts = new int[columnCounters];
+        int duplicates = 0;
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                int cell = i * columns + j;
+                int code = code(cell);
+                if (++rowCounts[rowSlots != null ? rowSlots[cell] : i * codes + code] == 2)
+                    duplicates++;
+                if (++colCounts[columnSlots != null ? columnSlots[cell] : j * codes + code] == 2)
+                    duplicates++;
+            }
+        }
+
+        return whiteCounts = new WhiteCounts(rowCounts, colCounts, rowSlots, columnSlots, duplicates);
+    }
+
+}
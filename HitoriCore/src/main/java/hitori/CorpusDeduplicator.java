@@ -0,0 +1,189 @@
+package hitori;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.BitSet;
+
+//Drops the puzzles of a corpus that are the same puzzle as one before them: a rotation or reflection of it, with
+//its values renamed or not (see CanonicalForm). The first of each kind is kept, with its solution if it has one.
+//Puzzles are streamed from a binary corpus (memory mapped) or a text file and written out as they are kept, so
+//only the 64 bit hash of each canonical form seen stays in memory, in an open addressing table of 16 to 32 bytes
+//per distinct puzzle. Two different puzzles sharing a hash would drop the second one; with 64 bits the chance of
+//that stays below one in a million up to about six million distinct puzzles.
+//Usage: CorpusDeduplicator [--canonical] <corpus or text file> <output corpus, or text file ending in .txt>
+//With --canonical every kept puzzle is written in its canonical form instead of as it came.
+public class CorpusDeduplicator {
+
+    private final LongSet seen = new LongSet();
+    private long read;
+
+    /**
+     * @return true if no puzzle offered before is the same puzzle as this one
+     */
+    public boolean add(Puzzle puzzle) {
+        return add(CanonicalForm.of(puzzle));
+    }
+
+    private boolean add(CanonicalForm form) {
+        read++;
+        return seen.add(form.hash64());
+    }
+
+    /**
+     * @return number of puzzles offered so far
+     */
+    public long getRead() {
+        return read;
+    }
+
+    /**
+     * @return number of distinct puzzles among them
+     */
+    public long getUnique() {
+        return seen.size();
+    }
+
+    /**
+     * Copies the puzzles of a file that are not the same as one before them, in order
+     * @param input binary corpus or text file
+     * @param output binary corpus, or text file if its name ends in .txt; replaced if it exists
+     * @param canonical true to write the canonical form of each puzzle kept
+     */
+    public void deduplicate(Path input, Path output, boolean canonical) throws IOException {
+        boolean text = output.getFileName().toString().endsWith(".txt");
+
+        try (Writer writer = text ? new BufferedWriter(Files.newBufferedWriter(output, StandardCharsets.US_ASCII))
+                : null;
+             PuzzleCorpusWriter corpusWriter = text ? null : new PuzzleCorpusWriter(output)) {
+
+            if (PuzzleCorpus.isCorpus(input)) {
+                try (PuzzleCorpus corpus = new PuzzleCorpus(input)) {
+                    for (int n = 0; n < corpus.size(); n++)
+                        offer(corpus.values(n), corpus.getSolution(n), canonical, writer, corpusWriter);
+                }
+            } else {
+                try (PuzzleParser parser = new PuzzleParser(input)) {
+                    for (int[] values = parser.nextValues(); values != null; values = parser.nextValues())
+                        offer(CellValues.of(parser.rows(), parser.columns(), values), null, canonical, writer,
+                                corpusWriter);
+                }
+            }
+        }
+    }
+
+    private void offer(CellValues values, BitSet solution, boolean canonical, Writer writer,
+                       PuzzleCorpusWriter corpusWriter) throws IOException {
+        CanonicalForm form = CanonicalForm.of(values);
+        if (!add(form))
+            return;
+
+        Puzzle puzzle = canonical ? form.toPuzzle() : new Puzzle(values);
+        if (canonical && solution != null)
+            solution = turn(solution, form, values.rows(), values.columns());
+
+        if (writer != null) {
+            if (getUnique() > 1)
+                writer.write('\n');
+            PuzzleCorpusConverter.writeText(puzzle, writer);
+        } else {
+            corpusWriter.add(puzzle, solution);
+        }
+    }
+
+    /**
+     * @return the solution of the original board as covered cells of the canonical grid
+     */
+    private static BitSet turn(BitSet solution, CanonicalForm form, int rows, int columns) {
+        BitSet turned = new BitSet(rows * columns);
+        int newColumns = form.getColumns();
+        for (int cell = 0; cell < rows * columns; cell++) {
+            if (solution.get(form.getSymmetry().source(cell / newColumns, cell % newColumns, rows, columns)))
+                turned.set(cell);
+        }
+        return turned;
+    }
+
+    //Set of longs in one open addressing table with linear probing, kept at most half full
+    private static final class LongSet {
+
+        private long[] table = new long[1 << 10];
+        private boolean hasZero;
+        private int size;
+
+        /**
+         * @return false if the key was already there
+         */
+        private boolean add(long key) {
+            if (key == 0) {
+                if (hasZero)
+                    return false;
+                hasZero = true;
+                size++;
+                return true;
+            }
+
+            if (!insert(table, key))
+                return false;
+            if (++size * 2 > table.length)
+                grow();
+            return true;
+        }
+
+        private static boolean insert(long[] table, long key) {
+            int mask = table.length - 1;
+            //Keys are already well mixed hashes, so their low bits serve as the slot
+            for (int slot = (int) key & mask; ; slot = (slot + 1) & mask) {
+                if (table[slot] == key)
+                    return false;
+                if (table[slot] == 0) {
+                    table[slot] = key;
+                    return true;
+                }
+            }
+        }
+
+        private void grow() {
+            long[] bigger = new long[table.length * 2];
+            for (long key : table) {
+                if (key != 0)
+                    insert(bigger, key);
+            }
+            table = bigger;
+        }
+
+        private int size() {
+            return size;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean canonical = false;
+        int a = 0;
+        if (args.length > 0 && args[0].equals("--canonical")) {
+            canonical = true;
+            a++;
+        }
+
+        if (args.length - a != 2) {
+            System.err.println("Usage: CorpusDeduplicator [--canonical] <corpus or text file> "
+                    + "<output corpus, or text file ending in .txt>");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        CorpusDeduplicator deduplicator = new CorpusDeduplicator();
+        deduplicator.deduplicate(Paths.get(args[a]), Paths.get(args[a + 1]), canonical);
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long read = deduplicator.getRead();
+        System.err.println(read + " puzzles in " + String.format("%.2f", seconds) + " s ("
+                + String.format("%.0f", read / seconds) + " per second): " + deduplicator.getUnique() + " kept, "
+                + (read - deduplicator.getUnique()) + " duplicates dropped");
+    }
+
+}
@@ -0,0 +1,88 @@
+package hitori;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//Lock-free histogram of durations in nanoseconds, with log-linear buckets in the style of HdrHistogram:
+//every power of two is split into 16 buckets, so any value is known to within about 6%, and 976 counters
+//cover the whole range of a long. Any number of threads can record at once; a snapshot taken while they do
+//may miss the values being recorded at that moment, but never counts one twice.
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB = 1 << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @return the bucket of a value: itself below 16, then 16 buckets for each power of two
+     */
+    static int index(long value) {
+        if (value < SUB)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB + (int) ((value >>> shift) & (SUB - 1));
+    }
+
+    /**
+     * @return the largest value that falls in the bucket
+     */
+    static long highestInBucket(int index) {
+        if (index < SUB)
+            return index;
+        int shift = index / SUB - 1;
+        return ((long) (SUB + index % SUB) << shift) + (1L << shift) - 1;
+    }
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        total.add(value);
+
+        long seen = max.get();
+        while (value > seen && !max.compareAndSet(seen, value))
+            seen = max.get();
+    }
+
+    void reset() {
+        for (int k = 0; k < counts.length(); k++)
+            counts.set(k, 0);
+        total.reset();
+        max.set(0);
+    }
+
+    PuzzleMetrics.Latency snapshot() {
+        long[] copy = new long[counts.length()];
+        long n = 0;
+        for (int k = 0; k < copy.length; k++) {
+            copy[k] = counts.get(k);
+            n += copy[k];
+        }
+
+        long highest = max.get();
+        return new PuzzleMetrics.Latency(n, n == 0 ? 0 : total.sum() / (double) n,
+                percentile(copy, n, 0.5, highest), percentile(copy, n, 0.9, highest),
+                percentile(copy, n, 0.99, highest), highest);
+    }
+
+    /**
+     * @return the highest value of the bucket holding the given share of the values, no more than the maximum
+     */
+    private static long percentile(long[] counts, long n, double share, long highest) {
+        if (n == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(share * n));
+        long seen = 0;
+        for (int k = 0; k < counts.length; k++) {
+            seen += counts[k];
+            if (seen >= rank)
+                return Math.min(highestInBucket(k), highest);
+        }
+        return highest;
+    }
+
+}
@@ -0,0 +1,54 @@
+package hitori;
+
+//Flat, immutable copy of a board for keeping it idle in as little memory as possible: the values, shared with the
+//puzzle it came from, and one bit per cell for the covered cells (cell c = i * columns + j at bit c % 64 of word
+//c / 64), about an eighth of a byte per cell beyond the values.
+//Unlike a BoardState it derives no new states and answers no questions about the board;
+//it is only ever made back into a Puzzle or a BoardState.
+public final class PackedBoard {
+
+    private final CellValues values;
+    private final long[] words;
+    private final boolean connected; //Known to satisfy constraint 3; false when not known either way
+
+    PackedBoard(CellValues values, long[] words, boolean connected) {
+        this.values = values;
+        this.words = words;
+        this.connected = connected;
+    }
+
+    public int getRows() {
+        return values.rows();
+    }
+
+    public int getColumns() {
+        return values.columns();
+    }
+
+    /**
+     * @return a new mutable puzzle with the same values and covered cells, and an empty journal
+     */
+    public Puzzle toPuzzle() {
+        return new Puzzle(this);
+    }
+
+    /**
+     * @return an immutable state of the same board, sharing its values
+     */
+    public BoardState toBoardState() {
+        return BoardState.of(values, words.clone());
+    }
+
+    CellValues values() {
+        return values;
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    boolean isKnownConnected() {
+        return connected;
+    }
+
+}
@@ -0,0 +1,1088 @@
+package hitori;
+
+import java.io.File;
+import java.util.Arrays;
+
+//Class in charge of setting up the puzzle, and monitoring all that happens on the puzzle including resetting.
+//Includes methods to check for the breach of any constraints and whether the game has been finished
+//The board is kept compact: values in one flat array and covered cells as bitsets, one by row and one by column.
+//Grids need not be square; rows and columns are sized separately, and values take one byte each when they fit.
+public class Puzzle {
+
+    //Neighbour offsets in clockwise order: up, right, down, left
+    private static final int[] di = {-1, 0, 1, 0};
+    private static final int[] dj = {0, 1, 0, -1};
+
+    //Scratch buffers shared by every puzzle checked on the same thread, so boards kept in memory stay small
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private int rows;
+    private int columns;
+    private int rowWords; //Number of 64 bit words per row
+    private int colWords; //Number of 64 bit words per column
+    private CellValues values; //Value of cell (i, j) at i * columns + j
+    private int distinct; //Number of different values, the stride of the value counters
+    private long[] rowBits; //Bit j of row i set when cell (i, j) is covered
+    private long[] colBits; //Bit i of column j set when cell (i, j) is covered
+
+    //How many white cells of each row and column hold each value, at line * distinct + code of the value
+    //or, on boards with very many values, at the slot CellValues.WhiteCounts gives the cell,
+    //and how many (line, value) pairs currently appear on more than one white cell
+    private int[] rowCounts;
+    private int[] colCounts;
+    private int[] rowSlots; //Shared with the values, null unless counters are found through slots
+    private int[] colSlots;
+    private int duplicates;
+
+    //Bumped whenever a cell changes; connectedVersion remembers the last version known to satisfy constraint 3
+    private int version;
+    private int connectedVersion = 0; //A new board is all white, so connected
+
+    //Move journal, one entry per change of a cell: cell << 2, plus 2 if the cell was covered before the change,
+    //plus 1 if the board was known to satisfy constraint 3 after it. Entries from moves onwards can be redone.
+    //Once it holds journalLimit entries the oldest half is dropped, so a long lived puzzle keeps bounded history.
+    private int[] journal;
+    private int journalSize;
+    private int moves;
+    private int journalLimit = DEFAULT_JOURNAL_LIMIT;
+    private boolean startConnected = true; //Whether the board was known to be connected before the first entry
+
+
+    //Moves kept for undo unless setJournalLimit says otherwise, 4 MB of journal
+    public static final int DEFAULT_JOURNAL_LIMIT = 1 << 20;
+
+    public Puzzle() {
+        loadDefaultPuzzle();
+    }
+
+
+    /**
+     * Second constructor called when puzzle is loaded from the file
+     * Reads the first puzzle of the file with PuzzleParser
+     * @param file
+     * @throws Exception if the file cannot be read or is not a valid grid (PuzzleFormatException)
+     */
+    public Puzzle(File file) throws Exception {
+        long start = System.nanoTime();
+        try (PuzzleParser parser = new PuzzleParser(file.toPath())) {
+            int[] values = parser.nextValues();
+
+            if (values == null)
+                throw new PuzzleFormatException("No puzzle in file", 1, 1);
+
+            adopt(CellValues.of(parser.rows(), parser.columns(), values));
+        }
+
+        long nanos = System.nanoTime() - start;
+        if (PuzzleMetrics.enabled)
+            PuzzleMetrics.loaded(nanos);
+        if (PuzzleMetrics.hasSink())
+            PuzzleMetrics.emit(PuzzleEvent.puzzleLoaded(file.getPath(), nanos));
+    }
+
+    /**
+     * Puzzle that takes over an array of values already read, used by PuzzleParser and PuzzleCorpus
+     * @param rows number of rows
+     * @param columns number of columns
+     * @param values values in row order
+     */
+    Puzzle(int rows, int columns, int[] values) {
+        adopt(CellValues.of(rows, columns, values));
+    }
+
+    /**
+     * Puzzle sharing values already checked, with every cell white
+     */
+    Puzzle(CellValues values) {
+        adopt(values);
+    }
+
+    /**
+     * Puzzle with the values and covered cells of a board state, sharing its values
+     * @param state
+     */
+    Puzzle(BoardState state) {
+        adopt(state.values());
+
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                if (state.isCovered(i, j))
+                    setCovered(i, j, true);
+
+        connectedVersion = state.isConnected() ? version : version - 1;
+        startConnected = connectedVersion == version;
+    }
+
+    /**
+     * Puzzle with the values and covered cells of a packed board, sharing its values
+     */
+    Puzzle(PackedBoard packed) {
+        adopt(packed.values());
+
+        long[] words = packed.words();
+        for (int w = 0; w < words.length; w++) {
+            for (long covered = words[w]; covered != 0; covered &= covered - 1) {
+                int cell = (w << 6) + Long.numberOfTrailingZeros(covered);
+                setCovered(cell / columns, cell % columns, true);
+            }
+        }
+
+        connectedVersion = packed.isKnownConnected() ? version : version - 1;
+        startConnected = connectedVersion == version;
+    }
+
+    /**
+     * Puzzle built straight from a grid of values
+     * @param values values[i][j] is the number in row i, column j; every row as long as the first
+     */
+    public Puzzle(int[][] values) {
+        adopt(CellValues.of(values));
+    }
+
+    /**
+     * Starting puzzle set up
+     */
+    private void loadDefaultPuzzle() {
+        int[][] values = {{4,8,1,6,3,2,5,7},
+                {3,6,7,2,1,6,5,4},
+                {2,3,4,8,2,8,6,1},
+                {4,1,6,5,7,7,3,5},
+                {7,2,3,1,8,5,1,2},
+                {3,5,6,7,3,1,8,4},
+                {6,4,2,3,5,4,7,8},
+                {8,7,1,4,2,3,5,6}};
+
+        adopt(CellValues.of(values));
+    }
+
+    /**
+     * Sets up an empty (all white) board over the given values
+     */
+    private void adopt(CellValues values) {
+        this.values = values;
+        rows = values.rows();
+        columns = values.columns();
+        distinct = values.distinct();
+        rowWords = (columns + 63) >>> 6;
+        colWords = (rows + 63) >>> 6;
+        rowBits = new long[rows * rowWords];
+        colBits = new long[columns * colWords];
+
+        countValues();
+    }
+
+    /**
+     * Fills in the value counters for a board where every cell is white, copied from the counts the values keep
+     */
+    private void countValues() {
+        CellValues.WhiteCounts white = values.whiteCounts();
+        rowSlots = white.rowSlots;
+        colSlots = white.columnSlots;
+        if (rowCounts == null) {
+            rowCounts = white.rows.clone();
+            colCounts = white.columns.clone();
+        } else {
+            System.arraycopy(white.rows, 0, rowCounts, 0, rowCounts.length);
+            System.arraycopy(white.columns, 0, colCounts, 0, colCounts.length);
+        }
+        duplicates = white.duplicates;
+    }
+
+    /**
+     * @param i index row
+     * @param j index column
+     * @return a view of the cell at specified position
+     */
+    public Cell get(int i, int j) {
+        return new Cell(this, i, j);
+    }
+
+    /**
+     * Returns the size of a square grid
+     * @return the number of rows, which is also the number of columns
+     * @throws IllegalStateException if the grid is not square; use getRows and getColumns instead
+     */
+    public int getSize() {
+        if (rows != columns)
+            throw new IllegalStateException("A " + rows + "x" + columns + " puzzle is not square");
+        return rows;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @param i index row
+     * @param j index column
+     * @return the value stored in that cell
+     */
+    public int getValue(int i, int j) {
+        return values.get(i * columns + j);
+    }
+
+    /**
+     * @return the values themselves, for readers in this package
+     */
+    CellValues values() {
+        return values;
+    }
+
+    /**
+     * @param i index row
+     * @param j index column
+     * @return true if that cell is covered (black)
+     */
+    public boolean isCovered(int i, int j) {
+        return (rowBits[i * rowWords + (j >>> 6)] & (1L << j)) != 0;
+    }
+
+    /**
+     * Same as isCovered, but positions outside of the grid count as white
+     */
+    private boolean coveredAt(int i, int j) {
+        return isValidPosition(i, j) && isCovered(i, j);
+    }
+
+    /**
+     * @return the number of covered cells on the board
+     */
+    public int getCoveredCount() {
+        int count = 0;
+        for (long word : rowBits)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * @return the number of (row, value) and (column, value) pairs still shared by more than one white cell
+     */
+    public int getDuplicateCount() {
+        return duplicates;
+    }
+
+    /**
+     * Full constraint 3 check with one flood fill over the board; moves use the cheaper incremental check instead
+     * @return true if every white cell can reach every other
+     */
+    public boolean isConnected() {
+        return checkRule3();
+    }
+
+    /**
+     * @return an immutable copy of the board as it is now, which later moves on this puzzle leave untouched
+     */
+    public BoardState snapshot() {
+        return BoardState.of(values, flatWords());
+    }
+
+    /**
+     * @return a flat copy of the board as it is now, the smallest form to keep it in while it is not played;
+     * the journal is not kept
+     */
+    public PackedBoard pack() {
+        return new PackedBoard(values, flatWords(), connectedVersion == version);
+    }
+
+    /**
+     * @return the covered cells as flat words, bit i * columns + j for cell (i, j)
+     */
+    private long[] flatWords() {
+        long[] flat = new long[(rows * columns + 63) >>> 6];
+
+        for (int i = 0; i < rows; i++) {
+            for (int w = 0; w < rowWords; w++) {
+                long covered = rowBits[i * rowWords + w];
+                while (covered != 0) {
+                    int cell = i * columns + (w << 6) + Long.numberOfTrailingZeros(covered);
+                    flat[cell >>> 6] |= 1L << cell;
+                    covered &= covered - 1;
+                }
+            }
+        }
+
+        return flat;
+    }
+
+    /**
+     * Covers or uncovers a cell without checking any constraint
+     * Both the row and the column bitset are kept in step, as are the value counters
+     * @param i index row
+     * @param j index column
+     * @param covered new state of the cell
+     */
+    private void setCovered(int i, int j, boolean covered) {
+        long rowBit = 1L << j;
+        long colBit = 1L << i;
+        int r = i * rowWords + (j >>> 6);
+        int c = j * colWords + (i >>> 6);
+
+        if (((rowBits[r] & rowBit) != 0) == covered)
+            return; //Nothing changes
+
+        int cell = i * columns + j;
+        int rowCount;
+        int colCount;
+        if (rowSlots == null) {
+            int code = values.code(cell);
+            rowCount = i * distinct + code;
+            colCount = j * distinct + code;
+        } else {
+            rowCount = rowSlots[cell];
+            colCount = colSlots[cell];
+        }
+
+        if (covered) {
+            rowBits[r] |= rowBit;
+            colBits[c] |= colBit;
+
+            //A value seen twice in a line and now only once is no longer a duplicate
+            if (rowCounts[rowCount]-- == 2)
+                duplicates--;
+            if (colCounts[colCount]-- == 2)
+                duplicates--;
+        } else {
+            rowBits[r] &= ~rowBit;
+            colBits[c] &= ~colBit;
+
+            if (++rowCounts[rowCount] == 2)
+                duplicates++;
+            if (++colCounts[colCount] == 2)
+                duplicates++;
+        }
+
+        version++;
+    }
+
+    /**
+     * When called, the puzzle is reset (i.e all the cells are uncovered)
+     */
+    public void reset() {
+        Arrays.fill(rowBits, 0);
+        Arrays.fill(colBits, 0);
+        countValues();
+        version++;
+        connectedVersion = version; //An all white grid is always connected
+        journalSize = moves = 0;
+        startConnected = true;
+    }
+
+    /**
+     * Covers or uncovers a cell on behalf of a Cell view, recording the change in the journal
+     */
+    void change(int i, int j, boolean covered) {
+        if (isCovered(i, j) != covered) {
+            setCovered(i, j, covered);
+            record(i, j, !covered);
+        }
+    }
+
+    /**
+     * Appends a change to the journal, dropping any moves that had been undone
+     * @param oldCovered state of the cell before the change
+     */
+    private void record(int i, int j, boolean oldCovered) {
+        if (journalLimit == 0)
+            return;
+
+        if (journal == null) {
+            journal = new int[Math.min(16, journalLimit)];
+        } else if (moves == journal.length) {
+            if (moves >= journalLimit)
+                dropOldest(moves - journalLimit / 2);
+            else
+                journal = Arrays.copyOf(journal, (int) Math.min(2L * moves, journalLimit));
+        }
+
+        journal[moves++] = (i * columns + j) << 2 | (oldCovered ? 2 : 0) | (connectedVersion == version ? 1 : 0);
+        journalSize = moves;
+    }
+
+    /**
+     * Forgets the oldest moves, which can no longer be undone; move numbers then count from the oldest move kept
+     * @param count number of moves to forget, at most the number applied
+     */
+    private void dropOldest(int count) {
+        if (count == 0)
+            return;
+
+        startConnected = (journal[count - 1] & 1) != 0;
+        System.arraycopy(journal, count, journal, 0, journalSize - count);
+        moves -= count;
+        journalSize -= count;
+    }
+
+    /**
+     * Forgets every recorded move, keeping the board as it is; nothing can be undone or redone afterwards
+     */
+    public void clearJournal() {
+        journal = null;
+        journalSize = moves = 0;
+        startConnected = connectedVersion == version;
+    }
+
+    /**
+     * Bounds the move journal. When a move would take it past the limit, the oldest half of the moves is forgotten
+     * and move numbers (and checkpoints) count from the oldest move kept. A limit of 0 turns recording off,
+     * for code that only probes moves and never undoes them.
+     * @param limit largest number of moves kept, DEFAULT_JOURNAL_LIMIT unless set
+     */
+    public void setJournalLimit(int limit) {
+        if (limit < 0)
+            throw new IllegalArgumentException("Journal limit cannot be negative");
+
+        journalLimit = limit;
+        if (journalSize > limit)
+            journalSize = moves; //Moves that had been undone go first
+        if (moves > limit)
+            dropOldest(moves - limit);
+        if (limit == 0)
+            clearJournal();
+        else if (journal != null && journal.length > limit)
+            journal = Arrays.copyOf(journal, limit);
+    }
+
+    public int getJournalLimit() {
+        return journalLimit;
+    }
+
+    /**
+     * @return a number that changes whenever a cell is covered or uncovered, for caches of anything derived
+     * from the covered cells
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of moves currently applied (the position in the journal)
+     */
+    public int getMoveCount() {
+        return moves;
+    }
+
+    /**
+     * @return the number of moves recorded, including undone moves that can still be redone
+     */
+    public int getJournalSize() {
+        return journalSize;
+    }
+
+    /**
+     * Takes back the last move (an accepted eliminate, a reactivate or a cell covered or uncovered directly)
+     * @return false if there is nothing to undo
+     */
+    public boolean undo() {
+        if (moves == 0)
+            return false;
+
+        int entry = journal[--moves];
+        int cell = entry >>> 2;
+        setCovered(cell / columns, cell % columns, (entry & 2) != 0);
+
+        //The board is back to a state recorded earlier, so whatever was known about it then still holds
+        if (moves == 0 ? startConnected : (journal[moves - 1] & 1) != 0)
+            connectedVersion = version;
+
+        return true;
+    }
+
+    /**
+     * Applies the next undone move again
+     * @return false if there is nothing to redo
+     */
+    public boolean redo() {
+        if (moves == journalSize)
+            return false;
+
+        int entry = journal[moves++];
+        int cell = entry >>> 2;
+        setCovered(cell / columns, cell % columns, (entry & 2) == 0);
+
+        if ((entry & 1) != 0)
+            connectedVersion = version;
+
+        return true;
+    }
+
+    /**
+     * @return a checkpoint to come back to with jumpTo (the current move number)
+     */
+    public int checkpoint() {
+        return moves;
+    }
+
+    /**
+     * Undoes or redoes moves until the given number of moves is applied, one change per move in between
+     * @param move a move number between 0 and getJournalSize()
+     */
+    public void jumpTo(int move) {
+        if (move < 0 || move > journalSize)
+            throw new IndexOutOfBoundsException("Move " + move + " of " + journalSize);
+
+        while (moves > move)
+            undo();
+        while (moves < move)
+            redo();
+    }
+
+
+    /**
+     * When method is called, the appropriate cell can be covered (turned black)
+     * However, if this breaches constraint 2 or 3, then the cell is uncovered
+     * and a MOVE_REJECTED event goes to the sink set with PuzzleMetrics.setEventSink, if any
+     * @param i
+     * @param j
+     * @return
+     */
+    public int eliminate(int i, int j) {
+        int result = tryEliminate(i, j);
+
+        if (result != 0 && PuzzleMetrics.hasSink())
+            PuzzleMetrics.emit(PuzzleEvent.moveRejected(i, j, result));
+
+        return result;
+    }
+
+    /**
+     * Same as eliminate, without reporting illegal moves
+     * Used by code that tries many moves, such as the puzzle generator
+     * @param i index row
+     * @param j index column
+     * @return 0 if the cell was covered, otherwise the constraint (2 or 3) that would be violated
+     */
+    public int tryEliminate(int i, int j) {
+        if (!PuzzleMetrics.enabled)
+            return cover(i, j);
+
+        long start = System.nanoTime();
+        int result = cover(i, j);
+        PuzzleMetrics.eliminated(result, System.nanoTime() - start);
+        return result;
+    }
+
+    private int cover(int i, int j) {
+        //Only a board already known to be connected can be checked locally around the new black cell
+        boolean wasCovered = isCovered(i, j);
+        boolean connected = connectedVersion == version;
+        boolean incremental = connected && !wasCovered;
+
+        setCovered(i, j, true);
+
+        if(!checkRule2(i, j)) {
+            undoEliminate(i, j, wasCovered, incremental);
+            return 2;
+        }
+
+        //Covering a cell that is already covered changes nothing, so a board known to be connected still is
+        if(!(wasCovered && connected) && !checkRule3(i, j, incremental)) {
+            undoEliminate(i, j, wasCovered, incremental);
+            return 3;
+        }
+
+        connectedVersion = version;
+        if (!wasCovered)
+            record(i, j, false);
+        return 0;
+    }
+
+    /**
+     * Uncovers a cell after a rejected move
+     * A cell that was white is simply put back, leaving the board as it was before the move,
+     * while a cell that was already covered really changes and goes in the journal
+     * @param wasCovered whether the cell was covered before the move
+     * @param connected whether the board was known to be connected before the move and the cell was white
+     */
+    private void undoEliminate(int i, int j, boolean wasCovered, boolean connected) {
+        setCovered(i, j, false);
+        if (wasCovered)
+            record(i, j, true);
+        else if (connected)
+            connectedVersion = version;
+    }
+
+    /**
+     * When called, the initially covered (black) cell is reverted back to white
+     * @param i
+     * @param j
+     */
+    public void reactivate(int i, int j) {
+        if (!isCovered(i, j))
+            return;
+
+        boolean connected = connectedVersion == version;
+
+        setCovered(i, j, false);
+
+        //A white cell joining the board keeps it connected as long as it touches another white cell
+        if (connected && (hasWhiteNeighbour(i, j) || rows * columns == 1))
+            connectedVersion = version;
+
+        record(i, j, true);
+    }
+
+    private boolean hasWhiteNeighbour(int i, int j) {
+        return (isValidPosition(i - 1, j) && !isCovered(i - 1, j))
+                || (isValidPosition(i + 1, j) && !isCovered(i + 1, j))
+                || (isValidPosition(i, j - 1) && !isCovered(i, j - 1))
+                || (isValidPosition(i, j + 1) && !isCovered(i, j + 1));
+    }
+
+    /**
+     * Constraint 2 check (No black cells are right next to each other)
+     * @param i index row
+     * @param j index column
+     * Once the position is input, the cells around are checked
+     * @return true if constraint is not violated
+     */
+    private boolean checkRule2(int i, int j) {
+        //Vertical neighbours are the bits either side of i in the column word, horizontal ones either side of j
+        //in the row word; only a neighbour in the next word over needs a separate look
+        long column = colBits[j * colWords + (i >>> 6)] >>> (i & 63);
+        long row = rowBits[i * rowWords + (j >>> 6)] >>> (j & 63);
+
+        if ((column & 2) != 0 || (row & 2) != 0)
+            return false;
+
+        if ((i & 63) != 0 ? (colBits[j * colWords + (i >>> 6)] & (1L << (i - 1))) != 0 : coveredAt(i - 1, j))
+            return false;
+
+        if ((j & 63) != 0 ? (rowBits[i * rowWords + (j >>> 6)] & (1L << (j - 1))) != 0 : coveredAt(i, j - 1))
+            return false;
+
+        if ((i & 63) == 63 && coveredAt(i + 1, j))
+            return false;
+
+        if ((j & 63) == 63 && coveredAt(i, j + 1))
+            return false;
+
+        return true;
+    }
+
+
+    /**
+     * Constraint 3 check after covering a cell, timed when metrics are on
+     * @param incremental whether the board was connected before, so only the area around the cell needs checking
+     * @return true if constraint is not violated
+     */
+    private boolean checkRule3(int i, int j, boolean incremental) {
+        if (!PuzzleMetrics.enabled)
+            return incremental ? checkRule3(i, j) : checkRule3();
+
+        Scratch scratch = SCRATCH.get();
+        scratch.visited = 0;
+        long start = System.nanoTime();
+        boolean connected = incremental ? checkRule3(i, j) : checkRule3();
+        PuzzleMetrics.rule3Checked(incremental, scratch.visited, System.nanoTime() - start);
+        return connected;
+    }
+
+    /**
+     * Constraint 3 check (all white cells are linked in some way)
+     * @return true if constraint is not violated
+     */
+    private boolean checkRule3() {
+        int white = rows * columns - getCoveredCount();
+
+        if (white == 0)
+            return true;
+
+        //Every white cell must be reachable from the first one
+        return floodFill(firstWhiteCell()) == white;
+    }
+
+    /**
+     * @return flat index of the first white cell in reading order, or -1 if every cell is covered
+     */
+    private int firstWhiteCell() {
+        for (int i = 0; i < rows; i++) {
+            for (int w = 0; w < rowWords; w++) {
+                long white = ~rowBits[i * rowWords + w] & rowMask(w);
+                if (white != 0)
+                    return i * columns + (w << 6) + Long.numberOfTrailingZeros(white);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param w index of a word within a row
+     * @return mask of the bits of that word that fall inside the grid
+     */
+    private long rowMask(int w) {
+        int bits = columns - (w << 6);
+        return bits >= 64 ? -1L : (1L << bits) - 1;
+    }
+
+    /**
+     * Incremental constraint 3 check for a cell that has just been covered on a board that was connected before.
+     * The board stays connected exactly when the white neighbours of the new black cell can still reach each other.
+     * Neighbours joined through a white diagonal cell are merged straight away, the rest are grown as one
+     * breadth first search from all neighbours at once. The search stops as soon as every neighbour has met,
+     * or as soon as one of them runs out of cells to visit, so the cost depends on the cells around the move
+     * rather than on the size of the board.
+     * @param i index row of the cell that was covered
+     * @param j index column of the cell that was covered
+     * @return true if constraint is not violated
+     */
+    private boolean checkRule3(int i, int j) {
+        //Bit d set when neighbour d is white
+        int white = 0;
+        if (i > 0 && !isCovered(i - 1, j))
+            white |= 1;
+        if (j < columns - 1 && !isCovered(i, j + 1))
+            white |= 2;
+        if (i < rows - 1 && !isCovered(i + 1, j))
+            white |= 4;
+        if (j > 0 && !isCovered(i, j - 1))
+            white |= 8;
+
+        if (Integer.bitCount(white) <= 1)
+            return true;
+
+        //Two neighbours next to each other in the ring are joined if the diagonal cell between them is white;
+        //bit d set when neighbours d and d + 1 (round the ring) are
+        int pairs = white & (white >>> 1 | white << 3) & 15;
+        int joined = 0;
+        for (int d = 0; d < 4; d++) {
+            int e = (d + 1) & 3;
+            if ((pairs & 1 << d) != 0 && !isCovered(i + di[d] + di[e], j + dj[d] + dj[e]))
+                joined |= 1 << d;
+        }
+
+        //Each group starts at a white neighbour not joined to the one before it; there is none when all four
+        //neighbours are joined round the ring, which is one group
+        int groups = Integer.bitCount(white) - Integer.bitCount(joined);
+        if (groups <= 1)
+            return true;
+
+        Scratch scratch = SCRATCH.get();
+
+        if (rowWords == 1) {
+            int[] targets = scratch.targets;
+            int count = 0;
+            for (int d = 0; d < 4; d++)
+                if ((white & 1 << d) != 0 && (joined & 1 << ((d + 3) & 3)) == 0)
+                    targets[count++] = (i + di[d]) * columns + (j + dj[d]);
+            boolean connected = spread(targets[0], targets, count);
+            if (PuzzleMetrics.enabled)
+                scratch.countReached(rows);
+            return connected;
+        }
+
+        int[] parent = scratch.parent;
+        int[] pending = scratch.pending;
+        for (int d = 0; d < 4; d++)
+            parent[d] = (white & 1 << d) != 0 ? d : -1;
+        for (int d = 0; d < 4; d++)
+            if ((joined & 1 << d) != 0)
+                scratch.union(d, (d + 1) & 3);
+
+        scratch.prepare(rows * columns);
+        int[] stamp = scratch.stamp;
+        int[] label = scratch.label;
+        int[] queue = scratch.queue;
+        int generation = scratch.generation;
+
+        int head = 0;
+        int tail = 0;
+        pending[0] = pending[1] = pending[2] = pending[3] = 0;
+
+        for (int d = 0; d < 4; d++) {
+            if (parent[d] >= 0) {
+                int index = (i + di[d]) * columns + (j + dj[d]);
+                stamp[index] = generation;
+                label[index] = d;
+                queue[tail++] = index;
+                pending[scratch.find(d)]++;
+            }
+        }
+
+        while (head < tail) {
+            int index = queue[head++];
+            int root = scratch.find(label[index]);
+            pending[root]--;
+
+            int r = index / columns;
+            int c = index % columns;
+
+            for (int d = 0; d < 4; d++) {
+                int nr = r + di[d];
+                int nc = c + dj[d];
+
+                if (!isValidPosition(nr, nc) || isCovered(nr, nc))
+                    continue;
+
+                int next = nr * columns + nc;
+
+                if (stamp[next] == generation) {
+                    //Two searches met, so those neighbours are still linked
+                    int other = scratch.find(label[next]);
+                    if (other != root) {
+                        scratch.union(root, other);
+                        int merged = scratch.find(root);
+                        pending[merged] = pending[root] + pending[other];
+                        root = merged;
+                        if (--groups == 1) {
+                            scratch.visited = tail;
+                            return true;
+                        }
+                    }
+                } else {
+                    stamp[next] = generation;
+                    label[next] = root;
+                    queue[tail++] = next;
+                    pending[root]++;
+                }
+            }
+
+            //This search has nowhere left to go without meeting the others, so it is cut off
+            if (pending[root] == 0) {
+                scratch.visited = tail;
+                return false;
+            }
+        }
+
+        scratch.visited = tail;
+        return false;
+    }
+
+    /**
+     * Flood fill used for constraint 3
+     * Works through an explicit queue instead of recursion, so large boards cannot overflow the thread stack,
+     * and marks visited cells with the current generation so the scratch buffers are reused without clearing
+     * @param seed flat index (row * columns + column) of a white cell to start from
+     * @return the number of white cells reachable from the seed
+     */
+    private int floodFill(int seed) {
+        if (rowWords == 1) {
+            spread(seed, null, 0);
+            return SCRATCH.get().countReached(rows);
+        }
+
+        Scratch scratch = SCRATCH.get();
+        scratch.prepare(rows * columns);
+        int[] stamp = scratch.stamp;
+        int[] queue = scratch.queue;
+        int generation = scratch.generation;
+
+        int head = 0;
+        int tail = 0;
+
+        stamp[seed] = generation;
+        queue[tail++] = seed;
+
+        while (head < tail) {
+            int index = queue[head++];
+            int r = index / columns;
+            int c = index % columns;
+
+            for (int d = 0; d < 4; d++) {
+                int nr = r + di[d];
+                int nc = c + dj[d];
+
+                if (!isValidPosition(nr, nc) || isCovered(nr, nc))
+                    continue;
+
+                int next = nr * columns + nc;
+                if (stamp[next] != generation) {
+                    stamp[next] = generation;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        scratch.visited = tail;
+        return tail;
+    }
+
+    /**
+     * Search over the white cells of a board at most 64 columns wide, where each row is a single word.
+     * The cells reached are kept as one word per row. A pass down the rows and back up takes them to the white
+     * cells above and below and along the whole run of white cells in each row, with a few word operations per row
+     * whatever the number of cells, and passes repeat until nothing new is reached.
+     * @param seed flat index (row * columns + column) of a white cell to start from
+     * @param targets flat indexes of white cells; the search stops as soon as all of them are reached
+     * @param count number of targets, 0 to reach every white cell linked to the seed
+     * @return true if there were targets and every one was reached; the cells reached are left in Scratch.reach
+     */
+    private boolean spread(int seed, int[] targets, int count) {
+        Scratch scratch = SCRATCH.get();
+        long[] reach = scratch.reach(rows);
+        long[] wanted = scratch.wanted; //Targets not reached yet, by row
+        int remaining = 0; //Rows with targets not reached yet
+
+        for (int k = 0; k < count; k++) {
+            int row = targets[k] / columns;
+            if (wanted[row] == 0)
+                remaining++;
+            wanted[row] |= 1L << (targets[k] - row * columns);
+        }
+
+        long mask = rowMask(0);
+        int first = seed / columns;
+        int last = first;
+        reach[first] = fillRow(1L << (seed - first * columns), ~rowBits[first] & mask);
+        if (wanted[first] != 0 && (reach[first] & wanted[first]) == wanted[first]) {
+            wanted[first] = 0;
+            if (--remaining == 0)
+                return true;
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int pass = 0; pass < 2; pass++) {
+                int step = pass == 0 ? 1 : -1;
+                for (int i = pass == 0 ? first : last; i >= 0 && i < rows; i += step) {
+                    long white = ~rowBits[i] & mask;
+                    long seeds = reach[i];
+                    if (i > 0)
+                        seeds |= reach[i - 1] & white;
+                    if (i < rows - 1)
+                        seeds |= reach[i + 1] & white;
+                    if (seeds == reach[i])
+                        continue;
+
+                    reach[i] = fillRow(seeds, white);
+                    changed = true;
+                    first = Math.min(first, i);
+                    last = Math.max(last, i);
+
+                    if (wanted[i] != 0 && (reach[i] & wanted[i]) == wanted[i]) {
+                        wanted[i] = 0;
+                        if (--remaining == 0)
+                            return true;
+                    }
+                }
+            }
+        }
+
+        for (int k = 0; k < count; k++)
+            wanted[targets[k] / columns] = 0;
+        return false;
+    }
+
+    /**
+     * @param seeds cells reached in a row, all white
+     * @param white white cells of the row
+     * @return every white cell on a run of white cells holding a seed. Adding the seeds to the white cells carries
+     * from the lowest seed of each run up past the top of the run, flipping every cell on the way. Downwards each
+     * step doubles how far the seeds have spread, as long as every cell on the way is white.
+     */
+    private long fillRow(long seeds, long white) {
+        long up = (((seeds + white) ^ white ^ seeds) | seeds) & white;
+
+        long down = seeds;
+        long open = white; //Cells with the next shift - 1 cells below them white as well
+        for (int shift = 1; shift < columns; shift <<= 1) {
+            down |= open & (down >>> shift);
+            open &= open >>> shift;
+        }
+        return up | down;
+    }
+
+    /**
+     * Checks if it is a valid position (e.g in case position specified is outside of puzzle
+     * @param i index row
+     * @param j index column
+     * @return true if within puzzle grid
+     */
+    public boolean isValidPosition(int i, int j) {
+        return i >= 0 && i < rows && j >= 0 && j < columns;
+    }
+
+
+    /**
+     *Checks for duplicate values in a row or column
+     * The counters kept up to date by every cover and uncover make this a single comparison
+     * @return true if no duplicity, method then used to determine if game is over
+     */
+    public boolean isGameOver() {
+        if (PuzzleMetrics.enabled)
+            PuzzleMetrics.gameOverChecked();
+        return duplicates == 0;
+    }
+
+    public Cell getCells(int i,int j) {
+        return get(i, j);
+    }
+
+    //Buffers for flood fills and duplicate checks, grown as needed and reused by every puzzle on a thread
+    private static final class Scratch {
+
+        private int[] stamp = new int[0];
+        private long[] reach = new long[0]; //White cells reached by spread, one word per row
+        private long[] wanted = new long[0]; //Targets of spread by row, all clear between searches
+        private final int[] targets = new int[4];
+        private int[] label = new int[0];
+        private int[] queue = new int[0];
+        private int generation;
+        private int visited; //Cells reached by the last constraint 3 search, for PuzzleMetrics
+        private final int[] parent = new int[4];
+        private final int[] pending = new int[4];
+
+        /**
+         * @return the reach buffer, cleared for a board of that many rows
+         */
+        private long[] reach(int rows) {
+            if (reach.length < rows) {
+                reach = new long[rows];
+                wanted = new long[rows];
+            } else {
+                Arrays.fill(reach, 0, rows, 0);
+            }
+            return reach;
+        }
+
+        /**
+         * @return the number of cells reached by the last spread, also kept in visited
+         */
+        private int countReached(int rows) {
+            int count = 0;
+            for (int i = 0; i < rows; i++)
+                count += Long.bitCount(reach[i]);
+            return visited = count;
+        }
+
+        /**
+         * Makes sure the buffers can hold the given number of cells and starts a new search generation,
+         * so old stamps count as unvisited without clearing the arrays
+         */
+        private void prepare(int cells) {
+            if (stamp.length < cells) {
+                stamp = new int[cells];
+                label = new int[cells];
+                queue = new int[cells];
+                generation = 0;
+            }
+
+            if (++generation == 0) {
+                Arrays.fill(stamp, 0);
+                generation = 1;
+            }
+        }
+
+        //Union find over the (at most four) neighbours of the covered cell
+        private int find(int d) {
+            while (parent[d] != d)
+                d = parent[d];
+            return d;
+        }
+
+        private boolean union(int a, int b) {
+            int ra = find(a);
+            int rb = find(b);
+            if (ra == rb)
+                return false;
+            parent[rb] = ra;
+            return true;
+        }
+    }
+
+}
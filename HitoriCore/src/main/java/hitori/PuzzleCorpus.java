@@ -0,0 +1,190 @@
+package hitori;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+//Random access to the puzzles of a binary corpus file written by PuzzleCorpusWriter.
+//The file is memory mapped and only the record asked for is ever decoded, so opening a corpus of
+//millions of puzzles costs nothing more than reading its footer.
+//A single mapping is used, so a corpus file can be at most 2 GB.
+public class PuzzleCorpus implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final long indexOffset;
+    private final int count;
+
+    /**
+     * Opens a corpus file for reading
+     * @param path
+     * @throws PuzzleFormatException if the file is not a corpus of a version this reader knows
+     */
+    public PuzzleCorpus(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE)
+                throw new IOException("Corpus file larger than 2 GB");
+            if (length < PuzzleCorpusWriter.HEADER_BYTES + PuzzleCorpusWriter.FOOTER_BYTES)
+                throw new PuzzleFormatException("File too short to be a corpus", 1, 1);
+
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+
+            int footer = (int) length - PuzzleCorpusWriter.FOOTER_BYTES;
+            if (map.getInt(0) != PuzzleCorpusWriter.MAGIC || map.getInt(footer + 12) != PuzzleCorpusWriter.MAGIC)
+                throw new PuzzleFormatException("Not a puzzle corpus", 1, 1);
+            short version = map.getShort(4);
+            if (version < PuzzleCorpusWriter.FIRST_VERSION || version > PuzzleCorpusWriter.VERSION)
+                throw new PuzzleFormatException("Unsupported corpus version " + map.getShort(4), 1, 5);
+
+            indexOffset = map.getLong(footer);
+            count = map.getInt(footer + 8);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if the file starts with the corpus magic number, so it is no use trying it as text
+     */
+    public static boolean isCorpus(Path path) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (head.hasRemaining() && file.read(head) >= 0) {
+            }
+            return !head.hasRemaining() && head.getInt(0) == PuzzleCorpusWriter.MAGIC;
+        }
+    }
+
+    /**
+     * @return the number of puzzles in the corpus
+     */
+    public int size() {
+        return count;
+    }
+
+    private int offset(int n) {
+        if (n < 0 || n >= count)
+            throw new IndexOutOfBoundsException("Puzzle " + n + " of " + count);
+        return (int) map.getLong((int) indexOffset + n * 8);
+    }
+
+    /**
+     * @param n index of a puzzle, from 0
+     * @return the number of rows and columns of that puzzle, without decoding it
+     * @throws IllegalStateException if the puzzle is not square; use getRows and getColumns instead
+     */
+    public int getSize(int n) {
+        int rows = getRows(n);
+        int columns = getColumns(n);
+        if (rows != columns)
+            throw new IllegalStateException("Puzzle " + n + " is " + rows + "x" + columns + ", not square");
+        return rows;
+    }
+
+    /**
+     * @param n index of a puzzle, from 0
+     * @return the number of rows of that puzzle, without decoding it
+     */
+    public int getRows(int n) {
+        return map.getShort(offset(n)) & 0xffff;
+    }
+
+    /**
+     * @param n index of a puzzle, from 0
+     * @return the number of columns of that puzzle, without decoding it
+     */
+    public int getColumns(int n) {
+        return columns(offset(n));
+    }
+
+    private int columns(int offset) {
+        if ((map.get(offset + 3) & PuzzleCorpusWriter.FLAG_COLUMNS) == 0)
+            return map.getShort(offset) & 0xffff;
+        return map.getShort(offset + 4) & 0xffff;
+    }
+
+    /**
+     * @return the number of bytes before the solution or values of the record at that offset
+     */
+    private int headerBytes(int offset) {
+        return (map.get(offset + 3) & PuzzleCorpusWriter.FLAG_COLUMNS) == 0 ? 4 : 6;
+    }
+
+    public boolean hasSolution(int n) {
+        return (map.get(offset(n) + 3) & PuzzleCorpusWriter.FLAG_SOLUTION) != 0;
+    }
+
+    /**
+     * @param n index of a puzzle, from 0
+     * @return the covered cells of its solution (bit i * columns + j for cell (i, j)), or null if none was stored
+     */
+    public BitSet getSolution(int n) {
+        int offset = offset(n);
+        if ((map.get(offset + 3) & PuzzleCorpusWriter.FLAG_SOLUTION) == 0)
+            return null;
+
+        int cells = (map.getShort(offset) & 0xffff) * columns(offset);
+        byte[] bytes = new byte[(cells + 7) >>> 3];
+        map.get(offset + headerBytes(offset), bytes);
+        return BitSet.valueOf(bytes);
+    }
+
+    /**
+     * Decodes one puzzle
+     * @param n index of a puzzle, from 0
+     * @return a new puzzle with every cell white
+     */
+    public Puzzle get(int n) {
+        return new Puzzle(values(n));
+    }
+
+    /**
+     * Decodes the values of one puzzle only, for tools that never need a Puzzle
+     * @param n index of a puzzle, from 0
+     */
+    CellValues values(int n) {
+        int offset = offset(n);
+        int rows = map.getShort(offset) & 0xffff;
+        int columns = columns(offset);
+        int width = map.get(offset + 2);
+        int cells = rows * columns;
+
+        int position = offset + headerBytes(offset);
+        if ((map.get(offset + 3) & PuzzleCorpusWriter.FLAG_SOLUTION) != 0)
+            position += (cells + 7) >>> 3;
+
+        int[] values = new int[cells];
+        long bits = 0;
+        int available = 0;
+        long mask = (1L << width) - 1;
+
+        for (int cell = 0; cell < cells; cell++) {
+            while (available < width) {
+                bits |= (long) (map.get(position++) & 0xff) << available;
+                available += 8;
+            }
+            values[cell] = (int) (bits & mask);
+            bits >>>= width;
+            available -= width;
+        }
+
+        return CellValues.of(rows, columns, values);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
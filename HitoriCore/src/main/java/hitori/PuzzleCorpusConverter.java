@@ -0,0 +1,99 @@
+package hitori;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//Converts between the text format read by PuzzleParser and the binary corpus format.
+//Usage: PuzzleCorpusConverter toBinary <corpus> <text file or directory>...
+//       PuzzleCorpusConverter toText <corpus> <text file>
+public class PuzzleCorpusConverter {
+
+    /**
+     * Writes every puzzle of the text files, in order, to one corpus file
+     * @param corpus corpus file to create
+     * @param textFiles files in the text format, each holding one or more puzzles
+     * @return the number of puzzles written
+     */
+    public static int toBinary(Path corpus, List<Path> textFiles) throws IOException {
+        try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(corpus)) {
+            for (Path file : textFiles) {
+                try (PuzzleParser parser = new PuzzleParser(file)) {
+                    for (Puzzle puzzle = parser.next(); puzzle != null; puzzle = parser.next())
+                        writer.add(puzzle);
+                }
+            }
+            return writer.getCount();
+        }
+    }
+
+    /**
+     * Writes every puzzle of a corpus to one text file, separated by blank lines
+     * @param corpus corpus file to read
+     * @param textFile text file to create
+     * @return the number of puzzles written
+     */
+    public static int toText(Path corpus, Path textFile) throws IOException {
+        try (PuzzleCorpus puzzles = new PuzzleCorpus(corpus);
+             Writer writer = Files.newBufferedWriter(textFile, StandardCharsets.US_ASCII)) {
+            for (int n = 0; n < puzzles.size(); n++) {
+                if (n > 0)
+                    writer.write('\n');
+                writeText(puzzles.get(n), writer);
+            }
+            return puzzles.size();
+        }
+    }
+
+    /**
+     * Writes the values of a puzzle in the text format, one line per row
+     */
+    public static void writeText(Puzzle puzzle, Writer writer) throws IOException {
+        for (int i = 0; i < puzzle.getRows(); i++) {
+            for (int j = 0; j < puzzle.getColumns(); j++) {
+                if (j > 0)
+                    writer.write(' ');
+                writer.write(Integer.toString(puzzle.getValue(i, j)));
+            }
+            writer.write('\n');
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || !(args[0].equals("toBinary") || args[0].equals("toText"))) {
+            System.err.println("Usage: PuzzleCorpusConverter toBinary <corpus> <text file or directory>...");
+            System.err.println("       PuzzleCorpusConverter toText <corpus> <text file>");
+            System.exit(1);
+        }
+
+        Path corpus = Paths.get(args[1]);
+        int count;
+
+        if (args[0].equals("toBinary")) {
+            List<Path> files = new ArrayList<>();
+            for (int a = 2; a < args.length; a++) {
+                Path path = Paths.get(args[a]);
+                if (Files.isDirectory(path)) {
+                    try (Stream<Path> walk = Files.walk(path)) {
+                        files.addAll(walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+                    }
+                } else {
+                    files.add(path);
+                }
+            }
+            count = toBinary(corpus, files);
+        } else {
+            count = toText(corpus, Paths.get(args[2]));
+        }
+
+        System.err.println(count + " puzzles converted");
+    }
+
+}
@@ -0,0 +1,174 @@
+package hitori;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+//Writes puzzles to a binary corpus file, read back with PuzzleCorpus.
+//
+//Layout (little endian):
+//  header  magic "HTRC" (int), format version (short), reserved (short)
+//  records one per puzzle:
+//          rows (short), value bit width (byte), flags (byte, bit 0 set when a solution follows,
+//          bit 1 set when the grid is not square), columns (short) only if not square,
+//          solution bitmask of rows * columns bits if flagged, then the values packed at the bit width,
+//          both in row order, least significant bit first, each padded to a whole byte
+//  index   offset of every record (long)
+//  footer  offset of the index (long), number of records (int), magic "HTRC" (int)
+//Version 2 added flag bit 1 and the columns field for rectangular grids. Version 1 corpora hold only square grids,
+//whose records are laid out the same in both versions, so PuzzleCorpus reads either.
+public class PuzzleCorpusWriter implements Closeable {
+
+    static final int MAGIC = 0x43525448; //"HTRC" read as a little endian int
+    static final short VERSION = 2;
+    static final short FIRST_VERSION = 1; //Oldest version PuzzleCorpus still reads
+    static final int HEADER_BYTES = 8;
+    static final int FOOTER_BYTES = 16;
+    static final int FLAG_SOLUTION = 1;
+    static final int FLAG_COLUMNS = 2;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private long position;
+    private long[] offsets = new long[1024];
+    private int count;
+
+    /**
+     * Creates (or replaces) a corpus file
+     * @param path
+     * @throws IOException
+     */
+    public PuzzleCorpusWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0);
+        position = HEADER_BYTES;
+    }
+
+    /**
+     * Appends a puzzle without a solution
+     */
+    public void add(Puzzle puzzle) throws IOException {
+        add(puzzle, null);
+    }
+
+    /**
+     * Appends a puzzle
+     * @param puzzle
+     * @param solution covered cells of its solution, bit i * columns + j for cell (i, j), or null if unknown
+     * @throws IllegalArgumentException if the puzzle has more than 65535 rows or columns
+     */
+    public void add(Puzzle puzzle, BitSet solution) throws IOException {
+        int rows = puzzle.getRows();
+        int columns = puzzle.getColumns();
+        int cells = rows * columns;
+
+        if (rows > 0xffff || columns > 0xffff)
+            throw new IllegalArgumentException("A " + rows + "x" + columns + " puzzle does not fit in a corpus");
+
+        //Negative values take all 32 bits, read back as the same int
+        CellValues values = puzzle.values();
+        int width = values.minValue() < 0 ? 32 : Math.max(1, 32 - Integer.numberOfLeadingZeros(values.maxValue()));
+
+        if (count == offsets.length)
+            offsets = Arrays.copyOf(offsets, count * 2);
+        offsets[count++] = position;
+
+        int flags = (solution != null ? FLAG_SOLUTION : 0) | (rows != columns ? FLAG_COLUMNS : 0);
+        ensure(6);
+        buffer.putShort((short) rows).put((byte) width).put((byte) flags);
+        position += 4;
+        if (rows != columns) {
+            buffer.putShort((short) columns);
+            position += 2;
+        }
+
+        if (solution != null) {
+            BitPacker packer = new BitPacker();
+            for (int cell = 0; cell < cells; cell++)
+                packer.put(solution.get(cell) ? 1 : 0, 1);
+            packer.finish();
+        }
+
+        BitPacker packer = new BitPacker();
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                packer.put(puzzle.getValue(i, j), width);
+        packer.finish();
+    }
+
+    /**
+     * @return the number of puzzles written so far
+     */
+    public int getCount() {
+        return count;
+    }
+
+    //Packs values of a few bits each into bytes, least significant bit first
+    private final class BitPacker {
+
+        private long bits;
+        private int pending;
+
+        private void put(int value, int width) throws IOException {
+            bits |= (value & 0xffffffffL) << pending;
+            pending += width;
+
+            while (pending >= 8) {
+                ensure(1);
+                buffer.put((byte) bits);
+                position++;
+                bits >>>= 8;
+                pending -= 8;
+            }
+        }
+
+        private void finish() throws IOException {
+            if (pending > 0) {
+                ensure(1);
+                buffer.put((byte) bits);
+                position++;
+            }
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes)
+            flush();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Writes the index and footer and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = position;
+            for (int k = 0; k < count; k++) {
+                ensure(8);
+                buffer.putLong(offsets[k]);
+            }
+
+            ensure(FOOTER_BYTES);
+            buffer.putLong(indexOffset).putInt(count).putInt(MAGIC);
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package hitori;
+
+//Something worth telling whoever watches the puzzles, handed to the sink set with PuzzleMetrics.setEventSink.
+//toString gives one line of key=value pairs, ready for a log.
+public final class PuzzleEvent {
+
+    public enum Type {
+        MOVE_REJECTED, //Puzzle.eliminate refused a cell; row, column and the rule it would break
+        PUZZLE_LOADED //A puzzle was read from a file; source and the time it took
+    }
+
+    private final Type type;
+    private final int row;
+    private final int column;
+    private final int rule;
+    private final String source;
+    private final long nanos;
+
+    private PuzzleEvent(Type type, int row, int column, int rule, String source, long nanos) {
+        this.type = type;
+        this.row = row;
+        this.column = column;
+        this.rule = rule;
+        this.source = source;
+        this.nanos = nanos;
+    }
+
+    static PuzzleEvent moveRejected(int row, int column, int rule) {
+        return new PuzzleEvent(Type.MOVE_REJECTED, row, column, rule, null, 0);
+    }
+
+    static PuzzleEvent puzzleLoaded(String source, long nanos) {
+        return new PuzzleEvent(Type.PUZZLE_LOADED, -1, -1, 0, source, nanos);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return row of the cell concerned, -1 if the event is not about a cell
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return column of the cell concerned, -1 if the event is not about a cell
+     */
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return the constraint (2 or 3) a rejected move would have broken, 0 for other events
+     */
+    public int getRule() {
+        return rule;
+    }
+
+    /**
+     * @return the file a puzzle was loaded from, null for other events
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return time taken by what the event reports, 0 if not measured
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.MOVE_REJECTED)
+            return type + " row=" + row + " column=" + column + " rule=" + rule;
+        return type + " source=" + source + " ms=" + String.format("%.3f", nanos / 1e6);
+    }
+
+}
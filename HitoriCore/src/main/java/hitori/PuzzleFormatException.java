@@ -0,0 +1,30 @@
+package hitori;
+
+import java.io.IOException;
+
+//Thrown when a puzzle file cannot be read as a grid of numbers, with the position of the problem
+public class PuzzleFormatException extends IOException {
+
+    private final long line;
+    private final long column;
+
+    /**
+     * @param message what is wrong
+     * @param line line number, starting at 1
+     * @param column column number (in bytes), starting at 1
+     */
+    public PuzzleFormatException(String message, long line, long column) {
+        super(message + " at line " + line + ", column " + column);
+        this.line = line;
+        this.column = column;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public long getColumn() {
+        return column;
+    }
+
+}
@@ -0,0 +1,386 @@
+package hitori;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+//Counters and latency histograms for the work every Puzzle does, shared by all puzzles of the process:
+//  eliminate     - moves accepted and rejected by each rule, and the time each tryEliminate took
+//  constraint 3  - checks made (full or incremental around the new black cell), cells visited and time taken
+//  isGameOver    - calls
+//  loads         - puzzles read from a file and the time it took
+//Metrics are off until setEnabled(true); while off, each instrumented call costs one read of a volatile flag.
+//Counters are LongAdders and histograms are lock-free, so recording never blocks the threads being measured.
+//Events are separate: Puzzle.eliminate and Puzzle(File) hand them to the sink, if one is set, whether metrics
+//are on or not. Read everything with snapshot(), or over JMX after registerMBean().
+public final class PuzzleMetrics {
+
+    static volatile boolean enabled;
+    private static volatile Consumer<PuzzleEvent> sink;
+
+    private static final LongAdder ACCEPTED = new LongAdder();
+    private static final LongAdder REJECTED_RULE2 = new LongAdder();
+    private static final LongAdder REJECTED_RULE3 = new LongAdder();
+    private static final LatencyHistogram ELIMINATE = new LatencyHistogram();
+
+    private static final LongAdder RULE3_INCREMENTAL = new LongAdder();
+    private static final LongAdder RULE3_VISITED = new LongAdder();
+    private static final LatencyHistogram RULE3 = new LatencyHistogram();
+
+    private static final LongAdder GAME_OVER_CHECKS = new LongAdder();
+    private static final LatencyHistogram LOAD = new LatencyHistogram();
+
+    private PuzzleMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns recording on or off for every puzzle; figures already recorded are kept
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * @param eventSink receives every event, on the thread of the puzzle it comes from, so it must be thread safe
+     * if puzzles are used on several threads; null to drop events
+     */
+    public static void setEventSink(Consumer<PuzzleEvent> eventSink) {
+        sink = eventSink;
+    }
+
+    /**
+     * @return a sink writing each event as one line on standard error
+     */
+    public static Consumer<PuzzleEvent> consoleSink() {
+        return event -> System.err.println(event);
+    }
+
+    /**
+     * Sets every counter and histogram back to zero
+     */
+    public static void reset() {
+        ACCEPTED.reset();
+        REJECTED_RULE2.reset();
+        REJECTED_RULE3.reset();
+        ELIMINATE.reset();
+        RULE3_INCREMENTAL.reset();
+        RULE3_VISITED.reset();
+        RULE3.reset();
+        GAME_OVER_CHECKS.reset();
+        LOAD.reset();
+    }
+
+    /**
+     * @return the figures recorded so far; values recorded while the snapshot is taken may or may not be in it
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot(ACCEPTED.sum(), REJECTED_RULE2.sum(), REJECTED_RULE3.sum(), ELIMINATE.snapshot(),
+                RULE3_INCREMENTAL.sum(), RULE3_VISITED.sum(), RULE3.snapshot(), GAME_OVER_CHECKS.sum(),
+                LOAD.snapshot());
+    }
+
+    /**
+     * Makes the figures readable over JMX, as hitori:type=PuzzleMetrics on the platform MBean server
+     * @return the name the bean is registered under; calling this again does nothing more
+     */
+    public static ObjectName registerMBean() {
+        try {
+            ObjectName name = new ObjectName("hitori:type=PuzzleMetrics");
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), name);
+            } catch (InstanceAlreadyExistsException alreadyThere) {
+                //Registered earlier
+            }
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register the metrics bean", e);
+        }
+    }
+
+    //Recording, called by Puzzle only while enabled
+
+    static void eliminated(int result, long nanos) {
+        if (result == 0)
+            ACCEPTED.increment();
+        else if (result == 2)
+            REJECTED_RULE2.increment();
+        else
+            REJECTED_RULE3.increment();
+        ELIMINATE.record(nanos);
+    }
+
+    static void rule3Checked(boolean incremental, int visited, long nanos) {
+        if (incremental)
+            RULE3_INCREMENTAL.increment();
+        RULE3_VISITED.add(visited);
+        RULE3.record(nanos);
+    }
+
+    static void gameOverChecked() {
+        GAME_OVER_CHECKS.increment();
+    }
+
+    static void loaded(long nanos) {
+        LOAD.record(nanos);
+    }
+
+    /**
+     * Hands an event to the sink, if there is one
+     */
+    static void emit(PuzzleEvent event) {
+        Consumer<PuzzleEvent> target = sink;
+        if (target != null)
+            target.accept(event);
+    }
+
+    /**
+     * @return true if events are wanted, so they are only built when someone will see them
+     */
+    static boolean hasSink() {
+        return sink != null;
+    }
+
+    //Count, mean and percentiles of one histogram, in nanoseconds; percentiles are bucket upper bounds
+    public static final class Latency {
+
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long max;
+
+        Latency(long count, double mean, long p50, long p90, long p99, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + " mean=" + String.format("%.0f", mean) + " p50=" + p50 + " p90=" + p90
+                    + " p99=" + p99 + " max=" + max;
+        }
+    }
+
+    //Every figure at one moment
+    public static final class Snapshot {
+
+        private final long accepted;
+        private final long rejectedRule2;
+        private final long rejectedRule3;
+        private final Latency eliminate;
+        private final long rule3Incremental;
+        private final long rule3Visited;
+        private final Latency rule3;
+        private final long gameOverChecks;
+        private final Latency load;
+
+        private Snapshot(long accepted, long rejectedRule2, long rejectedRule3, Latency eliminate,
+                         long rule3Incremental, long rule3Visited, Latency rule3, long gameOverChecks, Latency load) {
+            this.accepted = accepted;
+            this.rejectedRule2 = rejectedRule2;
+            this.rejectedRule3 = rejectedRule3;
+            this.eliminate = eliminate;
+            this.rule3Incremental = rule3Incremental;
+            this.rule3Visited = rule3Visited;
+            this.rule3 = rule3;
+            this.gameOverChecks = gameOverChecks;
+            this.load = load;
+        }
+
+        public long getEliminateAccepted() {
+            return accepted;
+        }
+
+        /**
+         * @param rule 2 or 3
+         * @return moves rejected because they would break that constraint
+         */
+        public long getEliminateRejected(int rule) {
+            if (rule != 2 && rule != 3)
+                throw new IllegalArgumentException("Only constraints 2 and 3 reject moves, not " + rule);
+            return rule == 2 ? rejectedRule2 : rejectedRule3;
+        }
+
+        /**
+         * @return time taken by every tryEliminate (and eliminate), accepted or not
+         */
+        public Latency getEliminateLatency() {
+            return eliminate;
+        }
+
+        /**
+         * @return constraint 3 checks made, full and incremental
+         */
+        public long getRule3Checks() {
+            return rule3.getCount();
+        }
+
+        public long getRule3IncrementalChecks() {
+            return rule3Incremental;
+        }
+
+        /**
+         * @return white cells visited by all constraint 3 checks together
+         */
+        public long getRule3CellsVisited() {
+            return rule3Visited;
+        }
+
+        public Latency getRule3Latency() {
+            return rule3;
+        }
+
+        public long getGameOverChecks() {
+            return gameOverChecks;
+        }
+
+        public Latency getLoadLatency() {
+            return load;
+        }
+
+        @Override
+        public String toString() {
+            return "eliminate accepted=" + accepted + " rule2=" + rejectedRule2 + " rule3=" + rejectedRule3
+                    + " " + eliminate + "\n"
+                    + "rule3 incremental=" + rule3Incremental + " visited=" + rule3Visited + " " + rule3 + "\n"
+                    + "isGameOver calls=" + gameOverChecks + "\n"
+                    + "load " + load;
+        }
+    }
+
+    //Reads a fresh snapshot for every attribute
+    private static final class Bean implements PuzzleMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return PuzzleMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            PuzzleMetrics.setEnabled(on);
+        }
+
+        @Override
+        public void reset() {
+            PuzzleMetrics.reset();
+        }
+
+        @Override
+        public long getEliminateAccepted() {
+            return ACCEPTED.sum();
+        }
+
+        @Override
+        public long getEliminateRejectedRule2() {
+            return REJECTED_RULE2.sum();
+        }
+
+        @Override
+        public long getEliminateRejectedRule3() {
+            return REJECTED_RULE3.sum();
+        }
+
+        @Override
+        public long getEliminateP50() {
+            return ELIMINATE.snapshot().getP50();
+        }
+
+        @Override
+        public long getEliminateP99() {
+            return ELIMINATE.snapshot().getP99();
+        }
+
+        @Override
+        public long getEliminateMax() {
+            return ELIMINATE.snapshot().getMax();
+        }
+
+        @Override
+        public long getRule3Checks() {
+            return RULE3.snapshot().getCount();
+        }
+
+        @Override
+        public long getRule3IncrementalChecks() {
+            return RULE3_INCREMENTAL.sum();
+        }
+
+        @Override
+        public long getRule3CellsVisited() {
+            return RULE3_VISITED.sum();
+        }
+
+        @Override
+        public long getRule3P50() {
+            return RULE3.snapshot().getP50();
+        }
+
+        @Override
+        public long getRule3P99() {
+            return RULE3.snapshot().getP99();
+        }
+
+        @Override
+        public long getRule3Max() {
+            return RULE3.snapshot().getMax();
+        }
+
+        @Override
+        public long getGameOverChecks() {
+            return GAME_OVER_CHECKS.sum();
+        }
+
+        @Override
+        public long getLoads() {
+            return LOAD.snapshot().getCount();
+        }
+
+        @Override
+        public long getLoadP50() {
+            return LOAD.snapshot().getP50();
+        }
+
+        @Override
+        public long getLoadMax() {
+            return LOAD.snapshot().getMax();
+        }
+    }
+
+}
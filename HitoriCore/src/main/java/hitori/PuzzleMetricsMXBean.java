@@ -0,0 +1,45 @@
+package hitori;
+
+//The figures of PuzzleMetrics as a JMX MXBean, registered by PuzzleMetrics.registerMBean under hitori:type=PuzzleMetrics.
+//Latencies are in nanoseconds.
+public interface PuzzleMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+
+    long getEliminateAccepted();
+
+    long getEliminateRejectedRule2();
+
+    long getEliminateRejectedRule3();
+
+    long getEliminateP50();
+
+    long getEliminateP99();
+
+    long getEliminateMax();
+
+    long getRule3Checks();
+
+    long getRule3IncrementalChecks();
+
+    long getRule3CellsVisited();
+
+    long getRule3P50();
+
+    long getRule3P99();
+
+    long getRule3Max();
+
+    long getGameOverChecks();
+
+    long getLoads();
+
+    long getLoadP50();
+
+    long getLoadMax();
+
+}
@@ -0,0 +1,261 @@
+package hitori;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+//Reads puzzles from text, one byte at a time, straight into the value array of each puzzle.
+//A puzzle is one line per row with its numbers, any int with an optional sign, separated by spaces or tabs;
+//the number of values on the
+//first row gives the number of columns and every other row must have exactly as many. The grid need not be
+//square: its rows run until a blank line or the end of the input. A file can hold any number of puzzles
+//separated by blank lines, and lines starting with # are comments.
+//Nothing is allocated per number or per line, only the value array of each puzzle read; the input goes through
+//a plain byte array scanned by index.
+public class PuzzleParser implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    //Rows the value array has room for once the width is known; it doubles from there as more rows come
+    private static final int INITIAL_ROWS = 16;
+    //Largest grid read, so every flat index and the move journal of a puzzle stay within an int
+    static final int MAX_CELLS = 1 << 28;
+
+    private final ReadableByteChannel channel;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    private int position; //Next byte of bytes to read
+    private int limit; //End of the bytes read
+    private boolean endOfInput;
+
+    //Position of the byte being read
+    private long line = 1;
+    private long column;
+
+    //Values of the first row of a puzzle, before its width is known
+    private int[] firstRow = new int[16];
+    private int rows;
+    private int columns;
+
+    /**
+     * Opens a puzzle file for reading
+     * @param path
+     * @throws IOException
+     */
+    public PuzzleParser(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * @param channel source of the puzzle text, closed with this parser
+     */
+    public PuzzleParser(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return the next puzzle, or null once there are no more
+     * @throws PuzzleFormatException if the text is not a valid grid, with the position of the problem
+     */
+    public Puzzle next() throws IOException {
+        int[] values = nextValues();
+        return values == null ? null : new Puzzle(rows, columns, values);
+    }
+
+    /**
+     * @return number of rows of the puzzle last read by nextValues
+     */
+    int rows() {
+        return rows;
+    }
+
+    /**
+     * @return number of columns of the puzzle last read by nextValues
+     */
+    int columns() {
+        return columns;
+    }
+
+    /**
+     * Reads the next puzzle
+     * @return its values in row order (row * columns + column), or null once there are no more
+     */
+    int[] nextValues() throws IOException {
+        columns = -1;
+        int[] values = null;
+        int row = 0;
+        int col = 0; //Values read so far on the current row
+
+        boolean inNumber = false;
+        boolean comment = false;
+        int sign = 0; //-1 or 1 once a sign has been read, until the number ends
+        long value = 0;
+        long numberColumn = 0;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                //End of input finishes the number, the row and the puzzle being read
+                if (sign != 0 && !inNumber)
+                    throw new PuzzleFormatException("Sign without a number", line, numberColumn);
+                if (inNumber) {
+                    values = store(values, row, col++, (int) (sign * value), numberColumn);
+                }
+                if (col > 0) {
+                    values = endRow(values, row++, col);
+                }
+                if (row == 0)
+                    return null;
+                return endPuzzle(values, row);
+            }
+
+            byte b = bytes[position++];
+            column++;
+
+            if (comment) {
+                if (b == '\n') {
+                    comment = false;
+                    line++;
+                    column = 0;
+                }
+                continue;
+            }
+
+            if (b >= '0' && b <= '9') {
+                if (!inNumber) {
+                    inNumber = true;
+                    value = 0;
+                    if (sign == 0) {
+                        sign = 1;
+                        numberColumn = column;
+                    }
+                }
+                value = value * 10 + (b - '0');
+                if (value > (sign < 0 ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE))
+                    throw new PuzzleFormatException("Value out of range", line, numberColumn);
+                continue;
+            }
+
+            if ((b == '-' || b == '+') && sign == 0) {
+                sign = b == '-' ? -1 : 1;
+                numberColumn = column;
+                continue;
+            }
+
+            if (sign != 0 && !inNumber)
+                throw new PuzzleFormatException("Sign without a number", line, numberColumn);
+
+            if (inNumber) {
+                values = store(values, row, col++, (int) (sign * value), numberColumn);
+                inNumber = false;
+            }
+            sign = 0;
+
+            if (b == ' ' || b == '\t' || b == '\r')
+                continue;
+
+            if (b == '\n') {
+                if (col > 0) {
+                    values = endRow(values, row++, col);
+                    col = 0;
+                    line++;
+                    column = 0;
+                } else {
+                    //A blank line after some rows ends the puzzle
+                    if (row > 0)
+                        values = endPuzzle(values, row);
+                    line++;
+                    column = 0;
+                    if (row > 0)
+                        return values;
+                }
+                continue;
+            }
+
+            if (b == '#' && col == 0) {
+                comment = true;
+                continue;
+            }
+
+            throw new PuzzleFormatException("Unexpected character '" + (char) (b & 0xff) + "'", line, column);
+        }
+    }
+
+    /**
+     * Stores a value of the current row
+     * @return the array values are stored in, which changes once the first row is complete and whenever
+     * more rows come than it has room for
+     */
+    private int[] store(int[] values, int row, int col, int value, long numberColumn) throws PuzzleFormatException {
+        if (columns < 0) {
+            if (col == firstRow.length)
+                firstRow = Arrays.copyOf(firstRow, col * 2);
+            firstRow[col] = value;
+            return values;
+        }
+
+        if (col >= columns)
+            throw new PuzzleFormatException("More than " + columns + " values on a row", line, numberColumn);
+
+        int cell = row * columns + col;
+        if (cell == values.length) {
+            if ((long) (row + 1) * columns > MAX_CELLS)
+                throw new PuzzleFormatException("More than " + MAX_CELLS + " cells in the puzzle", line, numberColumn);
+            //Room for twice as many rows, or as many as the grid can still take
+            values = Arrays.copyOf(values, (int) Math.min((long) values.length * 2, MAX_CELLS / columns * columns));
+        }
+
+        values[cell] = value;
+        return values;
+    }
+
+    private int[] endRow(int[] values, int row, int col) throws PuzzleFormatException {
+        if (columns < 0) {
+            //The first row gives the width of the whole grid; room is made for a few rows to start with
+            columns = col;
+            values = new int[Math.min(INITIAL_ROWS, MAX_CELLS / columns) * columns];
+            System.arraycopy(firstRow, 0, values, 0, columns);
+        } else if (col != columns) {
+            throw new PuzzleFormatException("Expected " + columns + " values on the row, found " + col, line, column);
+        }
+
+        return values;
+    }
+
+    private int[] endPuzzle(int[] values, int rows) {
+        this.rows = rows;
+        return values.length == rows * columns ? values : Arrays.copyOf(values, rows * columns);
+    }
+
+    /**
+     * Reads more input into the buffer
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        if (endOfInput)
+            return false;
+
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        position = 0;
+        limit = buffer.position();
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,321 @@
+package hitori;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+//Checks candidate shadings against their puzzles without any user interface, for validating submitted solutions.
+//Each pair is checked in one pass by a SolutionVerifier, which also says where a broken constraint shows.
+//A shading file has one line per row and one character per cell: '#' for a covered cell, '.' for a white one.
+//Pairs are streamed to a fixed pool of workers and every verdict is handed on as soon as it is ready.
+//Usage: SolutionValidator [--threads n] (<puzzle file> <shading file>)...
+//       SolutionValidator [--threads n] --list <file, or - for standard input>
+//A list file holds one pair per line, puzzle file then shading file, separated by whitespace.
+public class SolutionValidator {
+
+    public enum Status {
+        VALID,
+        ADJACENT, //Two covered cells are next to each other (constraint 2)
+        SPLIT, //The white cells are not all linked (constraint 3)
+        DUPLICATES, //A value appears more than once on the white cells of a row or column
+        ERROR //A file could not be read
+    }
+
+    private final int threads;
+
+    public SolutionValidator() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads number of pairs checked at the same time
+     */
+    public SolutionValidator(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be at least 1");
+        this.threads = threads;
+    }
+
+    //Verdict for one pair of files
+    public static class Report {
+
+        private final Path puzzle;
+        private final Path shading;
+        private final SolutionVerifier.Verification verification;
+        private final String error;
+        private final long nanos;
+
+        private Report(Path puzzle, Path shading, SolutionVerifier.Verification verification, String error,
+                       long nanos) {
+            this.puzzle = puzzle;
+            this.shading = shading;
+            this.verification = verification;
+            this.error = error;
+            this.nanos = nanos;
+        }
+
+        public Path getPuzzle() {
+            return puzzle;
+        }
+
+        public Path getShading() {
+            return shading;
+        }
+
+        public Status getStatus() {
+            return verification == null ? Status.ERROR : verification.getStatus();
+        }
+
+        /**
+         * @return the broken constraint and where, or null if the files could not be read
+         */
+        public SolutionVerifier.Verification getVerification() {
+            return verification;
+        }
+
+        /**
+         * @return why the files could not be read, or null
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return time taken to load and check the pair
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return puzzle + "\t" + shading + "\t" + (verification == null ? Status.ERROR + "\t" + error : verification)
+                    + "\t" + String.format("%.3f", nanos / 1e6) + " ms";
+        }
+    }
+
+    /**
+     * Loads and checks one pair on the calling thread
+     * @param puzzle puzzle file in the format read by Puzzle(File); only its first puzzle is used
+     * @param shading shading file for that puzzle
+     * @return the verdict for the pair
+     */
+    public Report check(Path puzzle, Path shading) {
+        long start = System.nanoTime();
+
+        try {
+            SolutionVerifier.Verification verification;
+            try (PuzzleParser parser = new PuzzleParser(puzzle)) {
+                int[] values = parser.nextValues();
+                if (values == null)
+                    throw new PuzzleFormatException("No puzzle in file", 1, 1);
+                int rows = parser.rows();
+                int columns = parser.columns();
+                verification = new SolutionVerifier(CellValues.of(rows, columns, values))
+                        .verify(readShading(shading, rows, columns));
+            }
+
+            return new Report(puzzle, shading, verification, null, System.nanoTime() - start);
+        } catch (IOException | RuntimeException e) {
+            return new Report(puzzle, shading, null, String.valueOf(e.getMessage()), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the first constraint the state breaks, or VALID
+     */
+    public static Status check(BoardState state) {
+        if (!state.hasNoAdjacentCovered())
+            return Status.ADJACENT;
+        if (!state.isConnected())
+            return Status.SPLIT;
+        if (state.getDuplicateCount() > 0)
+            return Status.DUPLICATES;
+        return Status.VALID;
+    }
+
+    /**
+     * Reads a shading file into flat words, bit i * columns + j set when cell (i, j) is covered.
+     * Blank lines and spaces are ignored.
+     * @param rows number of rows of the puzzle
+     * @param columns number of columns of the puzzle
+     * @throws PuzzleFormatException if the grid has the wrong shape or an unknown character
+     */
+    static long[] readShading(Path path, int rows, int columns) throws IOException {
+        long[] words = new long[(rows * columns + 63) >>> 6];
+        int i = 0;
+        int lineNumber = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lineNumber++;
+                int j = 0;
+
+                for (int k = 0; k < line.length(); k++) {
+                    char c = line.charAt(k);
+                    if (c == ' ' || c == '\t')
+                        continue;
+                    if (c != '#' && c != '.')
+                        throw new PuzzleFormatException("Unexpected character '" + c + "'", lineNumber, k + 1);
+                    if (i >= rows || j >= columns)
+                        throw new PuzzleFormatException("Shading larger than the " + rows + "x" + columns + " puzzle",
+                                lineNumber, k + 1);
+
+                    if (c == '#') {
+                        int cell = i * columns + j;
+                        words[cell >>> 6] |= 1L << cell;
+                    }
+                    j++;
+                }
+
+                if (j == 0)
+                    continue;
+                if (j != columns)
+                    throw new PuzzleFormatException("Row has " + j + " cells, expected " + columns, lineNumber, 1);
+                i++;
+            }
+        }
+
+        if (i != rows)
+            throw new PuzzleFormatException("Shading has " + i + " rows, expected " + rows, lineNumber + 1, 1);
+
+        return words;
+    }
+
+    /**
+     * Checks every pair of the stream on the worker threads, blocking until all are done.
+     * At most a few pairs per worker are read ahead, so the stream can be as long as needed.
+     * @param pairs puzzle file and shading file of each pair
+     * @param sink receives each report as soon as it is ready, called from one thread at a time
+     */
+    public void checkAll(Stream<Path[]> pairs, Consumer<Report> sink) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 4);
+
+        try {
+            Iterator<Path[]> iterator = pairs.iterator();
+            while (iterator.hasNext()) {
+                Path[] pair = iterator.next();
+                inFlight.acquire();
+
+                executor.execute(() -> {
+                    try {
+                        Report report = check(pair[0], pair[1]);
+                        synchronized (sink) {
+                            sink.accept(report);
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @param reader lines of a list file, read lazily
+     * @return the pairs it names
+     */
+    static Stream<Path[]> readList(BufferedReader reader) {
+        return reader.lines()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .map(line -> {
+                    String[] parts = line.split("\\s+");
+                    if (parts.length != 2)
+                        throw new IllegalArgumentException("Expected a puzzle file and a shading file: " + line);
+                    return new Path[]{Paths.get(parts[0]), Paths.get(parts[1])};
+                });
+    }
+
+    /**
+     * @param sorted latencies in ascending order
+     * @return the latency below which the given share of them fall, in milliseconds
+     */
+    private static double percentile(long[] sorted, double share) {
+        int index = (int) Math.ceil(share * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path list = null;
+        List<Path> files = new ArrayList<>();
+
+        for (int a = 0; a < args.length; a++) {
+            switch (args[a]) {
+                case "--threads": threads = Integer.parseInt(args[++a]); break;
+                case "--list": list = Paths.get(args[++a]); break;
+                default: files.add(Paths.get(args[a]));
+            }
+        }
+
+        if ((list == null) == files.isEmpty() || files.size() % 2 != 0) {
+            System.err.println("Usage: SolutionValidator [--threads n] (<puzzle file> <shading file>)...");
+            System.err.println("       SolutionValidator [--threads n] --list <file, or - for standard input>");
+            System.exit(1);
+        }
+
+        SolutionValidator validator = new SolutionValidator(threads);
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        long[][] latencies = {new long[1024]};
+        int[] total = new int[1];
+        long start = System.nanoTime();
+
+        Consumer<Report> sink = report -> {
+            System.out.println(report);
+            counts.merge(report.getStatus(), 1, Integer::sum);
+            if (total[0] == latencies[0].length)
+                latencies[0] = Arrays.copyOf(latencies[0], total[0] * 2);
+            latencies[0][total[0]++] = report.getNanos();
+        };
+
+        if (list == null) {
+            List<Path[]> pairs = new ArrayList<>();
+            for (int k = 0; k < files.size(); k += 2)
+                pairs.add(new Path[]{files.get(k), files.get(k + 1)});
+            validator.checkAll(pairs.stream(), sink);
+        } else {
+            try (BufferedReader reader = list.toString().equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                    : Files.newBufferedReader(list, StandardCharsets.UTF_8)) {
+                validator.checkAll(readList(reader), sink);
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.println(total[0] + " pairs in " + String.format("%.2f", seconds) + " s ("
+                + String.format("%.0f", total[0] / seconds) + " per second): " + counts);
+
+        if (total[0] > 0) {
+            long[] sorted = Arrays.copyOf(latencies[0], total[0]);
+            Arrays.sort(sorted);
+            System.err.println(String.format("Latency p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms",
+                    percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1] / 1e6));
+        }
+
+        if (counts.containsKey(Status.ERROR))
+            System.exit(2);
+    }
+
+}
@@ -0,0 +1,318 @@
+package hitori;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+//Checks complete shadings of one puzzle in a single pass each, instead of replaying them move by move.
+//A shading is a bitmask with bit i * columns + j set when cell (i, j) is covered, the layout used by Solution
+//and PuzzleCorpus. It is turned into one bitset per row, then:
+//  constraint 2 - each row is ANDed with itself shifted by one and with the next row,
+//  constraint 3 - one flood fill from the first white cell,
+//  duplicates   - the white cells of each line mark their value codes in a bitmask of seen codes.
+//The scratch buffers belong to the verifier and are reused by every shading it checks,
+//so a verifier is not thread safe; use one per thread.
+public class SolutionVerifier {
+
+    //Neighbour offsets in clockwise order: up, right, down, left
+    private static final int[] di = {-1, 0, 1, 0};
+    private static final int[] dj = {0, 1, 0, -1};
+
+    private final int rows;
+    private final int columns;
+    private final int words; //Number of 64 bit words per row
+    private final CellValues values; //Value of cell (i, j) at i * columns + j
+
+    private final long[] covered; //Bit j of row i set when cell (i, j) is covered
+    private final long[] seen; //Value codes met so far on the current line
+    private final long[] reached; //Same layout as covered, for the flood fill
+    private final int[] queue;
+
+    /**
+     * @param puzzle the puzzle every shading given to this verifier belongs to
+     */
+    public SolutionVerifier(Puzzle puzzle) {
+        this(puzzle.values());
+    }
+
+    SolutionVerifier(CellValues values) {
+        this.values = values;
+        rows = values.rows();
+        columns = values.columns();
+        words = (columns + 63) >>> 6;
+
+        covered = new long[rows * words];
+        seen = new long[(values.distinct() + 63) >>> 6];
+        reached = new long[rows * words];
+        queue = new int[rows * columns];
+    }
+
+    //Outcome of one check: the first constraint found broken and the cell where it shows
+    public static final class Verification {
+
+        private static final Verification VALID = new Verification(SolutionValidator.Status.VALID, -1, -1);
+
+        private final SolutionValidator.Status status;
+        private final int row;
+        private final int column;
+
+        private Verification(SolutionValidator.Status status, int row, int column) {
+            this.status = status;
+            this.row = row;
+            this.column = column;
+        }
+
+        public SolutionValidator.Status getStatus() {
+            return status;
+        }
+
+        public boolean isValid() {
+            return status == SolutionValidator.Status.VALID;
+        }
+
+        /**
+         * @return row of the cell at fault, -1 for a valid shading. For ADJACENT the first of the two covered
+         * cells, for DUPLICATES the second white cell holding the value, for SPLIT a white cell cut off from
+         * the first white cell
+         */
+        public int getRow() {
+            return row;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        @Override
+        public String toString() {
+            return isValid() ? status.toString() : status + " at (" + row + ", " + column + ")";
+        }
+    }
+
+    /**
+     * Checks one shading with a verifier used only for it
+     */
+    public static Verification verify(Puzzle puzzle, BitSet shading) {
+        return new SolutionVerifier(puzzle).verify(shading);
+    }
+
+    /**
+     * @param shading bit i * columns + j set when cell (i, j) is covered
+     * @return the first broken constraint and where, or a valid verdict
+     */
+    public Verification verify(BitSet shading) {
+        loadRows(shading);
+        return check();
+    }
+
+    /**
+     * @param shading flat words, bit i * columns + j of the whole array set when cell (i, j) is covered
+     * @return the first broken constraint and where, or a valid verdict
+     */
+    public Verification verify(long[] shading) {
+        loadRows(shading);
+        return check();
+    }
+
+    private Verification check() {
+        //Same order as SolutionValidator.check(BoardState)
+        Verification result = checkAdjacent();
+        if (result == null)
+            result = checkConnected();
+        if (result == null)
+            result = checkDuplicates();
+
+        return result == null ? Verification.VALID : result;
+    }
+
+    /**
+     * Checks many shadings of the puzzle one after the other, reusing the same buffers
+     * @return one verdict per shading, in the same order
+     */
+    public List<Verification> verifyAll(List<BitSet> shadings) {
+        List<Verification> results = new ArrayList<>(shadings.size());
+        for (BitSet shading : shadings)
+            results.add(verify(shading));
+        return results;
+    }
+
+    /**
+     * Copies a flat shading into the row bitsets, dropping any bit beyond the grid
+     */
+    private void loadRows(long[] shading) {
+        for (int i = 0; i < rows; i++) {
+            for (int w = 0; w < words; w++) {
+                int first = i * columns + (w << 6); //Flat index of bit 0 of this row word
+                int bits = Math.min(64, columns - (w << 6));
+                covered[i * words + w] = extract(shading, first) & (bits == 64 ? -1L : (1L << bits) - 1);
+            }
+        }
+    }
+
+    /**
+     * Sets the row bits of the covered cells of a BitSet shading straight into the reused row bitsets,
+     * without copying the BitSet to an array first, dropping any bit beyond the grid
+     */
+    private void loadRows(BitSet shading) {
+        Arrays.fill(covered, 0);
+        int cells = rows * columns;
+        for (int cell = shading.nextSetBit(0); cell >= 0 && cell < cells; cell = shading.nextSetBit(cell + 1)) {
+            int j = cell % columns;
+            covered[cell / columns * words + (j >>> 6)] |= 1L << j;
+        }
+    }
+
+    /**
+     * @return the 64 flat bits starting at the given index, zero past the end of the array
+     */
+    private static long extract(long[] flat, int first) {
+        int w = first >>> 6;
+        int offset = first & 63;
+        long low = w < flat.length ? flat[w] >>> offset : 0;
+        if (offset == 0 || w + 1 >= flat.length)
+            return low;
+        return low | flat[w + 1] << (64 - offset);
+    }
+
+    private boolean covered(int i, int j) {
+        return (covered[i * words + (j >>> 6)] & (1L << j)) != 0;
+    }
+
+    /**
+     * Constraint 2 check, a word of 64 cells at a time
+     * @return the first offending cell, or null if no two covered cells touch
+     */
+    private Verification checkAdjacent() {
+        for (int i = 0; i < rows; i++) {
+            for (int w = 0; w < words; w++) {
+                long row = covered[i * words + w];
+                if (row == 0)
+                    continue;
+
+                //A cell and the one to its right, with the carry from the next word for bit 63
+                long right = row >>> 1;
+                if (w + 1 < words)
+                    right |= covered[i * words + w + 1] << 63;
+                long both = row & right;
+
+                if (i + 1 < rows)
+                    both |= row & covered[(i + 1) * words + w];
+
+                if (both != 0)
+                    return new Verification(SolutionValidator.Status.ADJACENT, i,
+                            (w << 6) + Long.numberOfTrailingZeros(both));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Duplicate check: every line marks the values of its white cells, then clears just those marks
+     * @return the first white cell repeating a value of its row or column, or null if there is none
+     */
+    private Verification checkDuplicates() {
+        //Lines are taken in the order row 0, column 0, row 1, column 1 ... as far as the longer side goes
+        for (int line = 0; line < Math.max(rows, columns); line++) {
+            Verification result = line < rows ? checkLine(line, 0, 0, 1, columns) : null;
+            if (result == null && line < columns)
+                result = checkLine(0, line, 1, 0, rows);
+            if (result != null)
+                return result;
+        }
+        return null;
+    }
+
+    /**
+     * @param row row of the first cell of the line
+     * @param col column of the first cell of the line
+     * @param down 1 to walk down a column, 0 to walk along a row
+     * @param across 1 to walk along a row, 0 to walk down a column
+     * @param length number of cells of the line
+     */
+    private Verification checkLine(int row, int col, int down, int across, int length) {
+        Verification result = null;
+        int k = 0;
+
+        for (int i = row, j = col; k < length; k++, i += down, j += across) {
+            if ((covered[i * words + (j >>> 6)] & (1L << j)) != 0)
+                continue;
+
+            int code = values.code(i * columns + j);
+            long bit = 1L << code;
+            if ((seen[code >>> 6] & bit) != 0) {
+                result = new Verification(SolutionValidator.Status.DUPLICATES, i, j);
+                break;
+            }
+            seen[code >>> 6] |= bit;
+        }
+
+        //Clear only the words touched, so a line costs O(length) whatever the number of values
+        for (int c = 0, i = row, j = col; c < k; c++, i += down, j += across)
+            seen[values.code(i * columns + j) >>> 6] = 0;
+
+        return result;
+    }
+
+    /**
+     * Constraint 3 check, one flood fill from the first white cell
+     * @return a white cell the fill did not reach, or null if all white cells are linked
+     */
+    private Verification checkConnected() {
+        int seed = -1;
+        int white = 0;
+
+        for (int i = 0; i < rows; i++) {
+            for (int w = 0; w < words; w++) {
+                int bits = Math.min(64, columns - (w << 6));
+                long mask = bits == 64 ? -1L : (1L << bits) - 1;
+                long open = ~covered[i * words + w] & mask;
+                white += Long.bitCount(open);
+                if (seed < 0 && open != 0)
+                    seed = i * columns + (w << 6) + Long.numberOfTrailingZeros(open);
+                reached[i * words + w] = 0;
+            }
+        }
+
+        if (seed < 0)
+            return null;
+
+        int head = 0;
+        int tail = 0;
+        reached[(seed / columns) * words + ((seed % columns) >>> 6)] |= 1L << (seed % columns);
+        queue[tail++] = seed;
+
+        while (head < tail) {
+            int index = queue[head++];
+            int r = index / columns;
+            int c = index % columns;
+
+            for (int d = 0; d < 4; d++) {
+                int nr = r + di[d];
+                int nc = c + dj[d];
+
+                if (nr < 0 || nr >= rows || nc < 0 || nc >= columns || covered(nr, nc))
+                    continue;
+
+                int word = nr * words + (nc >>> 6);
+                long bit = 1L << nc;
+                if ((reached[word] & bit) == 0) {
+                    reached[word] |= bit;
+                    queue[tail++] = nr * columns + nc;
+                }
+            }
+        }
+
+        if (tail == white)
+            return null;
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (!covered(i, j) && (reached[i * words + (j >>> 6)] & (1L << j)) == 0)
+                    return new Verification(SolutionValidator.Status.SPLIT, i, j);
+            }
+        }
+        return null;
+    }
+
+}
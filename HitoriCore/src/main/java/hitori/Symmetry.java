@@ -0,0 +1,94 @@
+package hitori;
+
+//The eight rotations and reflections of a grid. A square grid has all eight; a grid that is not square only has
+//the four that keep its shape, the others turn a rows x columns grid into a columns x rows one.
+//Cell (i, j) of the transformed grid holds the value of cell source(i, j) of the original, so a grid is
+//transformed by reading the original in the order given by source.
+public enum Symmetry {
+
+    IDENTITY(false),
+    ROTATE_90(true), //Clockwise
+    ROTATE_180(false),
+    ROTATE_270(true),
+    FLIP_HORIZONTAL(false), //Left and right swapped
+    FLIP_VERTICAL(false), //Top and bottom swapped
+    TRANSPOSE(true), //Mirrored in the main diagonal
+    ANTI_TRANSPOSE(true); //Mirrored in the other diagonal
+
+    private static final Symmetry[] ALL = values();
+    private static final Symmetry[] SAME_SHAPE = {IDENTITY, ROTATE_180, FLIP_HORIZONTAL, FLIP_VERTICAL};
+
+    private final boolean swapsSides;
+
+    Symmetry(boolean swapsSides) {
+        this.swapsSides = swapsSides;
+    }
+
+    /**
+     * @return true if the transformed grid has as many rows as the original has columns, and the other way round
+     */
+    public boolean swapsSides() {
+        return swapsSides;
+    }
+
+    /**
+     * @return the symmetries a grid of that shape has, IDENTITY first; the array must not be written
+     */
+    public static Symmetry[] of(int rows, int columns) {
+        return rows == columns ? ALL : SAME_SHAPE;
+    }
+
+    /**
+     * @param i row of the transformed grid
+     * @param j column of the transformed grid
+     * @param rows rows of the original grid
+     * @param columns columns of the original grid
+     * @return flat index (row * columns + column) of the cell of the original grid that lands on (i, j)
+     */
+    public int source(int i, int j, int rows, int columns) {
+        switch (this) {
+            case IDENTITY: return i * columns + j;
+            case ROTATE_90: return (rows - 1 - j) * columns + i;
+            case ROTATE_180: return (rows - 1 - i) * columns + (columns - 1 - j);
+            case ROTATE_270: return j * columns + (columns - 1 - i);
+            case FLIP_HORIZONTAL: return i * columns + (columns - 1 - j);
+            case FLIP_VERTICAL: return (rows - 1 - i) * columns + j;
+            case TRANSPOSE: return j * columns + i;
+            default: return (rows - 1 - j) * columns + (columns - 1 - i);
+        }
+    }
+
+    /**
+     * Every symmetry reads the original grid along straight lines, so source(i, j) is
+     * source(0, 0) + i * rowStep + j * columnStep, which lets loops walk the grid without calling source per cell
+     * @return the step in the original grid between two rows of the transformed grid
+     */
+    public int rowStep(int rows, int columns) {
+        return source(1, 0, rows, columns) - source(0, 0, rows, columns);
+    }
+
+    /**
+     * @return the step in the original grid between two columns of the transformed grid
+     */
+    public int columnStep(int rows, int columns) {
+        return source(0, 1, rows, columns) - source(0, 0, rows, columns);
+    }
+
+    /**
+     * @param values grid in row order
+     * @param rows rows of the grid
+     * @param columns columns of the grid
+     * @return the transformed grid in row order
+     */
+    public int[] apply(int[] values, int rows, int columns) {
+        int[] result = new int[values.length];
+        int newRows = swapsSides ? columns : rows;
+        int newColumns = swapsSides ? rows : columns;
+
+        for (int i = 0; i < newRows; i++)
+            for (int j = 0; j < newColumns; j++)
+                result[i * newColumns + j] = values[source(i, j, rows, columns)];
+        return result;
+    }
+
+}
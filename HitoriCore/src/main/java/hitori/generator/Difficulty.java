@@ -0,0 +1,44 @@
+package hitori.generator;
+
+//How hard a generated puzzle is, measured by the search nodes the solver needs to solve it and prove it unique
+public enum Difficulty {
+
+    //Solved by deduction alone
+    EASY(1, 1),
+    //Needs a little trial and error
+    MEDIUM(2, 20),
+    //Needs a lot of trial and error
+    HARD(21, Long.MAX_VALUE);
+
+    private final long minNodes;
+    private final long maxNodes;
+
+    Difficulty(long minNodes, long maxNodes) {
+        this.minNodes = minNodes;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * @param nodes search nodes reported by the solver
+     * @return the difficulty that number of nodes falls in
+     */
+    public static Difficulty of(long nodes) {
+        for (Difficulty difficulty : values()) {
+            if (nodes <= difficulty.maxNodes)
+                return difficulty;
+        }
+        return HARD;
+    }
+
+    /**
+     * @return how far a number of nodes is from this difficulty, 0 if it falls inside
+     */
+    long distance(long nodes) {
+        if (nodes < minNodes)
+            return minNodes - nodes;
+        if (nodes > maxNodes)
+            return nodes - maxNodes;
+        return 0;
+    }
+
+}
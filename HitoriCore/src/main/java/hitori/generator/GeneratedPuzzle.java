@@ -0,0 +1,50 @@
+package hitori.generator;
+
+import hitori.Puzzle;
+import hitori.solver.Solution;
+
+//A puzzle made by PuzzleGenerator, together with its unique solution
+public class GeneratedPuzzle {
+
+    private final long index;
+    private final int[][] values;
+    private final Solution solution;
+    private final long nodes;
+
+    GeneratedPuzzle(long index, int[][] values, Solution solution, long nodes) {
+        this.index = index;
+        this.values = values;
+        this.solution = solution;
+        this.nodes = nodes;
+    }
+
+    /**
+     * @return position of this puzzle in its generator's sequence
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * @return a new puzzle with these values and every cell white
+     */
+    public Puzzle getPuzzle() {
+        return new Puzzle(values);
+    }
+
+    public Solution getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return search nodes the solver needed to solve the puzzle and prove it unique
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public Difficulty getDifficulty() {
+        return Difficulty.of(nodes);
+    }
+
+}
@@ -0,0 +1,398 @@
+package hitori.generator;
+
+import hitori.Puzzle;
+import hitori.PuzzleCorpusConverter;
+import hitori.PuzzleCorpusWriter;
+import hitori.solver.SolveResult;
+import hitori.solver.Solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+//Makes puzzles with exactly one solution.
+//  1. Start from a random latin square (or the top left corner of one, for a board that is not square),
+//     so no value repeats in any row or column.
+//  2. Shade cells in random order through Puzzle.tryEliminate, which keeps constraints 2 and 3.
+//  3. Give every shaded cell the value of a white cell in its row or column, so it has to be shaded.
+//  4. Keep the board if the solver finds exactly one solution, then change the values of shaded cells
+//     one at a time, keeping a change only if the puzzle stays unique, clashes with fewer white cells and
+//     does not move away from the difficulty asked for.
+//The same seed and index always give the same puzzle, whichever thread makes it.
+//A generator is not thread safe; generateAll gives every worker thread its own.
+public class PuzzleGenerator {
+
+    //Share of the cells that may be shaded
+    private static final double MAX_DENSITY = 0.32;
+    private static final int FILLS_PER_PATTERN = 4;
+
+    private final int rows;
+    private final int columns;
+    private final int longest; //Side of the latin square the values are taken from
+    private final Difficulty difficulty;
+    private final long seed;
+    private int maxAttempts = 100;
+
+    private final Solver solver = new Solver();
+
+    /**
+     * @param size number of rows and columns
+     * @param difficulty difficulty to aim for
+     * @param seed start of the sequence of puzzles
+     */
+    public PuzzleGenerator(int size, Difficulty difficulty, long seed) {
+        this(size, size, difficulty, seed);
+    }
+
+    /**
+     * @param rows number of rows
+     * @param columns number of columns
+     * @param difficulty difficulty to aim for
+     * @param seed start of the sequence of puzzles
+     */
+    public PuzzleGenerator(int rows, int columns, Difficulty difficulty, long seed) {
+        if (rows < 2 || rows > Short.MAX_VALUE || columns < 2 || columns > Short.MAX_VALUE)
+            throw new IllegalArgumentException("Rows and columns must be between 2 and " + Short.MAX_VALUE);
+
+        this.rows = rows;
+        this.columns = columns;
+        longest = Math.max(rows, columns);
+        this.difficulty = difficulty;
+        this.seed = seed;
+        solver.setSolutionLimit(2);
+    }
+
+    /**
+     * @param maxAttempts shading patterns to try before settling for the unique puzzle closest to the difficulty
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @param index position in the sequence of puzzles for this generator's seed
+     * @return a puzzle with a unique solution, as close to the difficulty as could be found
+     * @throws IllegalStateException if no unique puzzle turned up at all (only likely on tiny boards)
+     */
+    public GeneratedPuzzle generate(long index) {
+        Random random = new Random(seed * 0x9E3779B97F4A7C15L + index);
+        GeneratedPuzzle best = null;
+
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            int[][] latin = latinSquare(random);
+            boolean[][] black = shadingPattern(latin, random);
+
+            for (int fill = 0; fill < FILLS_PER_PATTERN; fill++) {
+                int[][] values = fillValues(latin, black, random);
+                SolveResult result = solver.solve(new Puzzle(values));
+
+                if (result.getStatus() != SolveResult.Status.UNIQUE)
+                    continue;
+
+                GeneratedPuzzle puzzle = minimize(index, values, black, result, random);
+
+                if (difficulty.distance(puzzle.getNodes()) == 0)
+                    return puzzle;
+
+                if (best == null || difficulty.distance(puzzle.getNodes()) < difficulty.distance(best.getNodes()))
+                    best = puzzle;
+                break;
+            }
+        }
+
+        if (best == null)
+            throw new IllegalStateException("No unique " + rows + "x" + columns + " puzzle found");
+
+        return best;
+    }
+
+    /**
+     * @return the first rows and columns of a latin square of values 1 to the longer side,
+     * with shuffled rows, columns and symbols
+     */
+    private int[][] latinSquare(Random random) {
+        int[] rowOrder = permutation(random);
+        int[] columnOrder = permutation(random);
+        int[] symbols = permutation(random);
+
+        int[][] latin = new int[rows][columns];
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                latin[i][j] = symbols[(rowOrder[i] + columnOrder[j]) % longest] + 1;
+
+        return latin;
+    }
+
+    private int[] permutation(Random random) {
+        int[] permutation = new int[longest];
+        for (int k = 0; k < longest; k++)
+            permutation[k] = k;
+
+        for (int k = longest - 1; k > 0; k--) {
+            int other = random.nextInt(k + 1);
+            int swap = permutation[k];
+            permutation[k] = permutation[other];
+            permutation[other] = swap;
+        }
+
+        return permutation;
+    }
+
+    /**
+     * Shades cells in random order, letting the puzzle's own checks reject any that would break
+     * constraint 2 or 3, until the density limit is reached
+     */
+    private boolean[][] shadingPattern(int[][] latin, Random random) {
+        Puzzle puzzle = new Puzzle(latin);
+        puzzle.setJournalLimit(0); //Moves are only probed, never undone
+        int[] order = new int[rows * columns];
+        for (int k = 0; k < order.length; k++)
+            order[k] = k;
+
+        for (int k = order.length - 1; k > 0; k--) {
+            int other = random.nextInt(k + 1);
+            int swap = order[k];
+            order[k] = order[other];
+            order[other] = swap;
+        }
+
+        int limit = (int) (rows * columns * MAX_DENSITY);
+        boolean[][] black = new boolean[rows][columns];
+        int shaded = 0;
+
+        for (int k = 0; k < order.length && shaded < limit; k++) {
+            int i = order[k] / columns;
+            int j = order[k] % columns;
+            if (puzzle.tryEliminate(i, j) == 0) {
+                black[i][j] = true;
+                shaded++;
+            }
+        }
+
+        return black;
+    }
+
+    /**
+     * @return the latin square with every shaded cell given the value of a random white cell of its row or column
+     */
+    private int[][] fillValues(int[][] latin, boolean[][] black, Random random) {
+        int[][] values = new int[rows][];
+        for (int i = 0; i < rows; i++)
+            values[i] = latin[i].clone();
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (black[i][j])
+                    values[i][j] = randomClash(latin, black, i, j, random);
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * @param latin grid whose white cells still hold their latin square values
+     * @return the value of a random white cell in the same row or column as (i, j)
+     */
+    private int randomClash(int[][] latin, boolean[][] black, int i, int j, Random random) {
+        while (true) {
+            int k = random.nextInt(longest);
+            if (random.nextBoolean()) {
+                if (k < columns && k != j && !black[i][k])
+                    return latin[i][k];
+            } else {
+                if (k < rows && k != i && !black[k][j])
+                    return latin[k][j];
+            }
+        }
+    }
+
+    /**
+     * @return how many white cells share a row or column and value with the shaded cell (i, j)
+     */
+    private int clashes(int[][] values, boolean[][] black, int i, int j) {
+        int count = 0;
+        for (int k = 0; k < longest; k++) {
+            if (k < columns && k != j && !black[i][k] && values[i][k] == values[i][j])
+                count++;
+            if (k < rows && k != i && !black[k][j] && values[k][j] == values[i][j])
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Tries a new value for every shaded cell in turn, keeping it when the puzzle stays unique,
+     * the cell clashes with fewer white cells and the difficulty gets no further from the target
+     */
+    private GeneratedPuzzle minimize(long index, int[][] values, boolean[][] black, SolveResult result, Random random) {
+        SolveResult current = result;
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                if (!black[i][j] || clashes(values, black, i, j) <= 1)
+                    continue;
+
+                int old = values[i][j];
+                int before = clashes(values, black, i, j);
+                values[i][j] = randomClash(values, black, i, j, random);
+
+                if (values[i][j] != old && clashes(values, black, i, j) < before) {
+                    SolveResult next = solver.solve(new Puzzle(values));
+                    if (next.getStatus() == SolveResult.Status.UNIQUE
+                            && difficulty.distance(next.getNodes()) <= difficulty.distance(current.getNodes())) {
+                        current = next;
+                        continue;
+                    }
+                }
+
+                values[i][j] = old;
+            }
+        }
+
+        return new GeneratedPuzzle(index, values, current.getSolution(), current.getNodes());
+    }
+
+    /**
+     * Generates puzzles 0 to count - 1 of the sequence on several threads
+     * @param size number of rows and columns
+     * @param difficulty difficulty to aim for
+     * @param seed start of the sequence of puzzles
+     * @param count number of puzzles
+     * @param threads number of worker threads, each with its own generator
+     * @param sink receives every puzzle as soon as it is made, called from one thread at a time
+     * @throws RuntimeException the first exception thrown by a worker or the sink, once every worker has stopped
+     */
+    public static void generateAll(int size, Difficulty difficulty, long seed, long count, int threads,
+                                   Consumer<GeneratedPuzzle> sink) throws InterruptedException {
+        generateAll(size, size, difficulty, seed, count, threads, sink);
+    }
+
+    /**
+     * Same as generateAll for square boards, for boards of any number of rows and columns
+     */
+    public static void generateAll(int rows, int columns, Difficulty difficulty, long seed, long count, int threads,
+                                   Consumer<GeneratedPuzzle> sink) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicLong next = new AtomicLong();
+        List<Future<?>> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                try {
+                    PuzzleGenerator generator = new PuzzleGenerator(rows, columns, difficulty, seed);
+                    for (long index = next.getAndIncrement(); index < count; index = next.getAndIncrement()) {
+                        GeneratedPuzzle puzzle = generator.generate(index);
+                        synchronized (sink) {
+                            sink.accept(puzzle);
+                        }
+                    }
+                } catch (RuntimeException | Error e) {
+                    next.set(count); //The other workers stop after the puzzle they are on
+                    throw e;
+                }
+            }));
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    //Usage: PuzzleGenerator [--size n] [--columns n] [--count n] [--seed n] [--difficulty easy|medium|hard]
+    //                       [--threads n] <output>
+    //The board has size rows and, unless --columns is given, as many columns.
+    //An output ending in .txt gets puzzles in the text format, anything else a binary corpus with solutions
+    public static void main(String[] args) throws Exception {
+        int size = 10;
+        int columns = -1;
+        long count = 1000;
+        long seed = 1;
+        Difficulty difficulty = Difficulty.MEDIUM;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path output = null;
+
+        for (int a = 0; a < args.length; a++) {
+            switch (args[a]) {
+                case "--size": size = Integer.parseInt(args[++a]); break;
+                case "--columns": columns = Integer.parseInt(args[++a]); break;
+                case "--count": count = Long.parseLong(args[++a]); break;
+                case "--seed": seed = Long.parseLong(args[++a]); break;
+                case "--difficulty": difficulty = Difficulty.valueOf(args[++a].toUpperCase()); break;
+                case "--threads": threads = Integer.parseInt(args[++a]); break;
+                default: output = Paths.get(args[a]);
+            }
+        }
+
+        if (output == null) {
+            System.err.println("Usage: PuzzleGenerator [--size n] [--columns n] [--count n] [--seed n] "
+                    + "[--difficulty easy|medium|hard] [--threads n] <output>");
+            System.exit(1);
+        }
+
+        int rows = size;
+        if (columns < 0)
+            columns = size;
+
+        long start = System.nanoTime();
+
+        //A write that fails ends the whole run, and its IOException is thrown once the workers have stopped
+        try {
+            if (output.toString().endsWith(".txt")) {
+                try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.US_ASCII)) {
+                    generateAll(rows, columns, difficulty, seed, count, threads, puzzle -> {
+                        try {
+                            PuzzleCorpusConverter.writeText(puzzle.getPuzzle(), writer);
+                            writer.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            } else {
+                try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(output)) {
+                    generateAll(rows, columns, difficulty, seed, count, threads, puzzle -> {
+                        try {
+                            writer.add(puzzle.getPuzzle(), puzzle.getSolution().toBitSet());
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.println(count + " puzzles in " + String.format("%.2f", seconds) + " s ("
+                + String.format("%.0f", count * 60 / seconds) + " per minute)");
+    }
+
+}
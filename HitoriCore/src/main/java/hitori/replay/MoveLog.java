@@ -0,0 +1,149 @@
+package hitori.replay;
+
+import hitori.PuzzleFormatException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//Sequential access to the games of a binary move log written by MoveLogWriter.
+//The file is memory mapped and games are named by the offset of their record, so any number of threads can
+//read different games at once. A single mapping is used, so a log file can be at most 2 GB.
+public class MoveLog implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int length;
+    private final int moveBytes;
+
+    /**
+     * Opens a log file for reading
+     * @param path
+     * @throws PuzzleFormatException if the file is not a move log of a version this reader knows
+     */
+    public MoveLog(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Move log larger than 2 GB");
+            if (size < MoveLogWriter.HEADER_BYTES)
+                throw new PuzzleFormatException("File too short to be a move log", 1, 1);
+
+            length = (int) size;
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (map.getInt(0) != MoveLogWriter.MAGIC)
+                throw new PuzzleFormatException("Not a move log", 1, 1);
+            if (map.getShort(4) != MoveLogWriter.VERSION)
+                throw new PuzzleFormatException("Unsupported move log version " + map.getShort(4), 1, 5);
+
+            moveBytes = map.getShort(6);
+            if (moveBytes != 2 && moveBytes != 4)
+                throw new PuzzleFormatException("Moves of " + moveBytes + " bytes", 1, 7);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a move covering the cell, cell being i * columns + j
+     */
+    public static int eliminate(int cell) {
+        return cell << 1;
+    }
+
+    /**
+     * @return a move uncovering the cell, cell being i * columns + j
+     */
+    public static int reactivate(int cell) {
+        return cell << 1 | 1;
+    }
+
+    public static boolean isReactivate(int move) {
+        return (move & 1) != 0;
+    }
+
+    /**
+     * @return the cell of a move, i * columns + j
+     */
+    public static int cell(int move) {
+        return move >>> 1;
+    }
+
+    /**
+     * @return 2 or 4
+     */
+    public int getMoveBytes() {
+        return moveBytes;
+    }
+
+    /**
+     * @return the offset of the first game, or -1 if the log holds none
+     */
+    public int first() throws PuzzleFormatException {
+        return check(MoveLogWriter.HEADER_BYTES);
+    }
+
+    /**
+     * @param game offset of a game
+     * @return the offset of the game after it, or -1 if it is the last
+     */
+    public int next(int game) throws PuzzleFormatException {
+        return check(game + MoveLogWriter.RECORD_BYTES + getMoveCount(game) * moveBytes);
+    }
+
+    /**
+     * @return the offset if a whole game starts there, -1 at the end of the log
+     * @throws PuzzleFormatException if the log ends part way through a game
+     */
+    private int check(int game) throws PuzzleFormatException {
+        if (game == length)
+            return -1;
+        if (length - game < MoveLogWriter.RECORD_BYTES)
+            throw new PuzzleFormatException("Log ends inside the game at byte " + game, 1, game + 1);
+
+        long end = game + MoveLogWriter.RECORD_BYTES + (long) getMoveCount(game) * moveBytes;
+        if (getMoveCount(game) < 0 || end > length)
+            throw new PuzzleFormatException("Log ends inside the game at byte " + game, 1, game + 1);
+        return game;
+    }
+
+    /**
+     * @param game offset of a game
+     * @return the index in the corpus of the puzzle it was played on
+     */
+    public int getPuzzle(int game) {
+        return map.getInt(game);
+    }
+
+    /**
+     * @param game offset of a game
+     */
+    public int getMoveCount(int game) {
+        return map.getInt(game + 4);
+    }
+
+    /**
+     * @param game offset of a game
+     * @param k number of the move in the game, from 0
+     * @return the move, read with isReactivate and cell
+     */
+    public int getMove(int game, int k) {
+        int position = game + MoveLogWriter.RECORD_BYTES + k * moveBytes;
+        return moveBytes == 2 ? map.getShort(position) & 0xffff : map.getInt(position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+}
@@ -0,0 +1,115 @@
+package hitori.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//Writes recorded games to a binary move log, read back with MoveLog.
+//
+//Layout (little endian):
+//  header  magic "HTMV" (int), format version (short), bytes per move (short, 2 or 4)
+//  records one per game:
+//          index of the puzzle in its corpus (int), number of moves (int),
+//          then every move in the order played: cell << 1, plus 1 for a reactivate (secondary click)
+//          rather than an eliminate (primary click), where cell is i * columns + j
+//Two byte moves hold boards of up to 32768 cells, enough for any puzzle played by hand.
+//There is no index: games are meant to be read in order, and a log can be appended to simply by writing more records.
+public class MoveLogWriter implements Closeable {
+
+    static final int MAGIC = 0x564D5448; //"HTMV" read as a little endian int
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_BYTES = 8;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+    private final int moveBytes;
+    private int count;
+
+    /**
+     * Creates (or replaces) a log with two byte moves
+     * @param path
+     * @throws IOException
+     */
+    public MoveLogWriter(Path path) throws IOException {
+        this(path, 2);
+    }
+
+    /**
+     * Creates (or replaces) a log
+     * @param path
+     * @param moveBytes 2, or 4 for boards of more than 32768 cells
+     * @throws IOException
+     */
+    public MoveLogWriter(Path path, int moveBytes) throws IOException {
+        if (moveBytes != 2 && moveBytes != 4)
+            throw new IllegalArgumentException("Moves take 2 or 4 bytes, not " + moveBytes);
+        this.moveBytes = moveBytes;
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) moveBytes);
+    }
+
+    /**
+     * Appends a game
+     * @param puzzle index of the puzzle in the corpus the log is replayed against
+     * @param moves moves made with MoveLog.eliminate and MoveLog.reactivate
+     * @param length number of moves to take from the array
+     * @throws IllegalArgumentException if a move does not fit in the bytes per move of this log
+     */
+    public void add(int puzzle, int[] moves, int length) throws IOException {
+        ensure(RECORD_BYTES);
+        buffer.putInt(puzzle).putInt(length);
+
+        for (int k = 0; k < length; k++) {
+            int move = moves[k];
+            if (moveBytes == 2) {
+                if (move >>> 16 != 0)
+                    throw new IllegalArgumentException("Move to cell " + MoveLog.cell(move) + " needs four byte moves");
+                ensure(2);
+                buffer.putShort((short) move);
+            } else {
+                if (move < 0)
+                    throw new IllegalArgumentException("Move to cell " + MoveLog.cell(move) + " out of range");
+                ensure(4);
+                buffer.putInt(move);
+            }
+        }
+
+        count++;
+    }
+
+    /**
+     * @return the number of games written so far
+     */
+    public int getCount() {
+        return count;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes)
+            flush();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,330 @@
+package hitori.replay;
+
+import hitori.Puzzle;
+import hitori.PuzzleCorpus;
+import hitori.PuzzleFormatException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+//Replays recorded games from move logs against the puzzles of a corpus, for analysing what players did.
+//A primary click is an eliminate and a secondary click a reactivate, as in the game. Every move goes through the
+//incremental checks Puzzle keeps up to date: constraint 2 looks at the four neighbours, constraint 3 is checked
+//locally around the new covered cell on a board known to be connected, and whether the game is over is one
+//comparison on the duplicate counters, so a move costs about the same on any board.
+//Games are handed to a fixed pool of workers in batches of about BATCH_MOVES moves. Each worker keeps the boards
+//it has played in a small pool of its own and resets them for the next game rather than decoding the puzzle again.
+//The outcome of every move comes back in log order, one byte each (the ordinal of Outcome).
+//Usage: MoveReplayer [--threads n] [--outcomes file] <corpus> <log>...
+public class MoveReplayer {
+
+    public enum Outcome {
+        ACCEPTED, //Applied, and the board is not solved
+        SOLVED, //Applied, and no value is left twice on the white cells of a row or column
+        ADJACENT, //Rejected: the cell is next to a covered cell (constraint 2)
+        SPLIT //Rejected: covering the cell would cut the white cells in two (constraint 3)
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final int BATCH_MOVES = 1 << 16;
+    private static final int POOL_BOARDS = 1024; //Boards kept by each worker, puzzle n in slot n % POOL_BOARDS
+
+    private final PuzzleCorpus corpus;
+    private final int threads;
+    private final ThreadLocal<BoardPool> boards = ThreadLocal.withInitial(BoardPool::new);
+
+    public MoveReplayer(PuzzleCorpus corpus) {
+        this(corpus, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param corpus the puzzles the games of the logs were played on
+     * @param threads number of batches replayed at the same time
+     */
+    public MoveReplayer(PuzzleCorpus corpus, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be at least 1");
+        this.corpus = corpus;
+        this.threads = threads;
+    }
+
+    //Totals over the games replayed
+    public static class Summary {
+
+        private long games;
+        private long moves;
+        private long solvedGames;
+        private final long[] counts = new long[OUTCOMES.length];
+        private long nanos;
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getMoves() {
+            return moves;
+        }
+
+        /**
+         * @return the number of moves with that outcome
+         */
+        public long getCount(Outcome outcome) {
+            return counts[outcome.ordinal()];
+        }
+
+        /**
+         * @return the number of games whose board was solved after their last move
+         */
+        public long getSolvedGames() {
+            return solvedGames;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        private void add(Summary other) {
+            games += other.games;
+            moves += other.moves;
+            solvedGames += other.solvedGames;
+            for (int k = 0; k < counts.length; k++)
+                counts[k] += other.counts[k];
+            nanos += other.nanos;
+        }
+
+        @Override
+        public String toString() {
+            Map<Outcome, Long> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : OUTCOMES)
+                byOutcome.put(outcome, counts[outcome.ordinal()]);
+
+            double seconds = nanos / 1e9;
+            return games + " games, " + moves + " moves in " + String.format("%.2f", seconds) + " s ("
+                    + String.format("%.0f", moves / seconds) + " moves per second): " + byOutcome + ", "
+                    + solvedGames + " games solved";
+        }
+    }
+
+    //Boards a worker has played lately, found by the index of their puzzle without boxing or hashing
+    private static final class BoardPool {
+
+        private final Puzzle[] puzzles = new Puzzle[POOL_BOARDS];
+        private final int[] indexes = new int[POOL_BOARDS];
+    }
+
+    //Outcomes of a run of consecutive games, filled in by one worker
+    private static final class Batch {
+
+        private final byte[] outcomes;
+        private final Summary summary = new Summary();
+
+        private Batch(int moves) {
+            outcomes = new byte[moves];
+        }
+    }
+
+    /**
+     * Replays every game of a log, blocking until all are done
+     * @param log
+     * @param outcomes receives one byte per move in log order, or null if only the totals are wanted
+     * @return the totals for the log
+     * @throws PuzzleFormatException if the log is cut short, names a puzzle the corpus does not hold,
+     * or has a move to a cell outside its puzzle
+     */
+    public Summary replay(MoveLog log, OutputStream outcomes) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Summary summary = new Summary();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<Batch>> pending = new ArrayDeque<>(); //Batches in log order, at most a few per worker
+
+        try {
+            for (int game = log.first(); game >= 0; ) {
+                int first = game;
+                int games = 0;
+                int moves = 0;
+                while (game >= 0 && moves < BATCH_MOVES) {
+                    moves += log.getMoveCount(game);
+                    games++;
+                    game = log.next(game);
+                }
+
+                if (pending.size() == threads * 4)
+                    finish(pending.poll(), summary, outcomes);
+
+                int count = games;
+                int total = moves;
+                pending.add(executor.submit(() -> play(log, first, count, total)));
+            }
+
+            while (!pending.isEmpty())
+                finish(pending.poll(), summary, outcomes);
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        summary.nanos = System.nanoTime() - start;
+        return summary;
+    }
+
+    /**
+     * Waits for a batch and hands on its outcomes
+     */
+    private static void finish(Future<Batch> future, Summary summary, OutputStream outcomes)
+            throws IOException, InterruptedException {
+        Batch batch;
+        try {
+            batch = future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+
+        summary.add(batch.summary);
+        if (outcomes != null)
+            outcomes.write(batch.outcomes);
+    }
+
+    /**
+     * Replays a run of consecutive games on the calling thread
+     * @param game offset of the first game
+     * @param games number of games
+     * @param moves number of moves in all of them
+     */
+    private Batch play(MoveLog log, int game, int games, int moves) throws PuzzleFormatException {
+        Batch batch = new Batch(moves);
+        int offset = 0;
+
+        for (int g = 0; g < games; g++, game = log.next(game)) {
+            Puzzle puzzle = board(log, game);
+            if (play(puzzle, log, game, batch.outcomes, offset))
+                batch.summary.solvedGames++;
+            offset += log.getMoveCount(game);
+        }
+
+        for (byte outcome : batch.outcomes)
+            batch.summary.counts[outcome]++;
+        batch.summary.games = games;
+        batch.summary.moves = moves;
+        return batch;
+    }
+
+    /**
+     * @return the puzzle of a game with every cell white, from the pool of this thread if it was played lately
+     */
+    private Puzzle board(MoveLog log, int game) throws PuzzleFormatException {
+        int index = log.getPuzzle(game);
+        if (index < 0 || index >= corpus.size())
+            throw new PuzzleFormatException("Game at byte " + game + " was played on puzzle " + index + " of "
+                    + corpus.size(), 1, game + 1);
+
+        BoardPool pool = boards.get();
+        int slot = index % POOL_BOARDS;
+        Puzzle puzzle = pool.puzzles[slot];
+        if (puzzle == null || pool.indexes[slot] != index) {
+            puzzle = pool.puzzles[slot] = corpus.get(index);
+            puzzle.setJournalLimit(0); //Games are only played forwards
+            pool.indexes[slot] = index;
+        } else {
+            puzzle.reset();
+        }
+        return puzzle;
+    }
+
+    /**
+     * Plays the moves of one game on a board
+     * @param puzzle board the game starts from
+     * @param game offset of the game in the log
+     * @param outcomes receives the ordinal of the outcome of each move
+     * @param offset position in outcomes of the first move
+     * @return true if the board is solved after the last move
+     * @throws PuzzleFormatException if a move is to a cell outside the board
+     */
+    static boolean play(Puzzle puzzle, MoveLog log, int game, byte[] outcomes, int offset)
+            throws PuzzleFormatException {
+        int columns = puzzle.getColumns();
+        int cells = puzzle.getRows() * columns;
+        int moves = log.getMoveCount(game);
+
+        for (int k = 0; k < moves; k++) {
+            int move = log.getMove(game, k);
+            int cell = MoveLog.cell(move);
+            if (cell >= cells)
+                throw new PuzzleFormatException("Move " + k + " of the game at byte " + game + " is to cell " + cell
+                        + " of a " + cells + " cell puzzle", 1, game + 1);
+
+            int i = cell / columns;
+            int j = cell - i * columns;
+            Outcome outcome;
+
+            if (MoveLog.isReactivate(move)) {
+                puzzle.reactivate(i, j);
+                outcome = puzzle.isGameOver() ? Outcome.SOLVED : Outcome.ACCEPTED;
+            } else {
+                int broken = puzzle.tryEliminate(i, j);
+                if (broken == 2)
+                    outcome = Outcome.ADJACENT;
+                else if (broken == 3)
+                    outcome = Outcome.SPLIT;
+                else
+                    outcome = puzzle.isGameOver() ? Outcome.SOLVED : Outcome.ACCEPTED;
+            }
+
+            outcomes[offset + k] = (byte) outcome.ordinal();
+        }
+
+        return puzzle.isGameOver();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path outcomesFile = null;
+        List<Path> files = new ArrayList<>();
+
+        for (int a = 0; a < args.length; a++) {
+            switch (args[a]) {
+                case "--threads": threads = Integer.parseInt(args[++a]); break;
+                case "--outcomes": outcomesFile = Paths.get(args[++a]); break;
+                default: files.add(Paths.get(args[a]));
+            }
+        }
+
+        if (files.size() < 2) {
+            System.err.println("Usage: MoveReplayer [--threads n] [--outcomes file] <corpus> <log>...");
+            System.exit(1);
+        }
+
+        Summary total = new Summary();
+        try (PuzzleCorpus corpus = new PuzzleCorpus(files.get(0));
+             OutputStream outcomes = outcomesFile == null ? null
+                     : new BufferedOutputStream(Files.newOutputStream(outcomesFile), 1 << 16)) {
+            MoveReplayer replayer = new MoveReplayer(corpus, threads);
+
+            for (Path file : files.subList(1, files.size())) {
+                try (MoveLog log = new MoveLog(file)) {
+                    Summary summary = replayer.replay(log, outcomes);
+                    System.out.println(file + "\t" + summary);
+                    total.add(summary);
+                }
+            }
+        }
+
+        System.err.println(total);
+    }
+
+}
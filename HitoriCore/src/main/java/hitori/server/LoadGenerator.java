@@ -0,0 +1,169 @@
+package hitori.server;
+
+import hitori.Puzzle;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//Drives a SessionManager the way many players would, to measure move latency under load.
+//Opens the given number of sessions on random boards, then runs closed loop clients: each one keeps a single move
+//in flight, on a random cell of a random session (two covers for every uncover), and sends the next as soon as
+//the last one is answered. Latency is measured from submitting a move to its result, after a warm up.
+//Usage: LoadGenerator [--sessions n] [--size n] [--clients n] [--threads n] [--seconds n] [--warmup n]
+//                     [--idle ms] [--seed n]
+public class LoadGenerator {
+
+    //One player: a single move in flight at a time, so its fields are only touched by one thread at a time
+    private static final class Client {
+
+        private final SessionManager manager;
+        private final long[] ids;
+        private final int size;
+        private final SplittableRandom random;
+        private final long measureFrom;
+        private final long end;
+        private final CountDownLatch done;
+        private final LongAdder failures;
+
+        private long[] latencies = new long[1024];
+        private int count;
+
+        private Client(SessionManager manager, long[] ids, int size, long seed, long measureFrom, long end,
+                       CountDownLatch done, LongAdder failures) {
+            this.manager = manager;
+            this.ids = ids;
+            this.size = size;
+            this.random = new SplittableRandom(seed);
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.done = done;
+            this.failures = failures;
+        }
+
+        private void next() {
+            long start = System.nanoTime();
+            if (start >= end) {
+                done.countDown();
+                return;
+            }
+
+            long id = ids[random.nextInt(ids.length)];
+            int i = random.nextInt(size);
+            int j = random.nextInt(size);
+            CompletableFuture<?> move = random.nextInt(3) == 0
+                    ? manager.reactivate(id, i, j)
+                    : manager.eliminate(id, i, j);
+
+            move.whenComplete((result, error) -> {
+                if (error != null)
+                    failures.increment();
+                else if (start >= measureFrom)
+                    record(System.nanoTime() - start);
+                next();
+            });
+        }
+
+        private void record(long nanos) {
+            if (count == latencies.length)
+                latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = nanos;
+        }
+    }
+
+    /**
+     * @return a board of random values between 1 and size
+     */
+    static int[][] randomValues(int size, Random random) {
+        int[][] values = new int[size][size];
+        for (int[] row : values)
+            for (int j = 0; j < size; j++)
+                row[j] = 1 + random.nextInt(size);
+        return values;
+    }
+
+    /**
+     * @param sorted latencies in ascending order
+     * @return the latency below which the given share of them fall, in milliseconds
+     */
+    private static double percentile(long[] sorted, double share) {
+        int index = (int) Math.ceil(share * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = 10000;
+        int size = 10;
+        int clients = 64;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int seconds = 10;
+        int warmup = 2;
+        long idle = 0;
+        long seed = 1;
+
+        for (int a = 0; a < args.length; a++) {
+            switch (args[a]) {
+                case "--sessions": sessions = Integer.parseInt(args[++a]); break;
+                case "--size": size = Integer.parseInt(args[++a]); break;
+                case "--clients": clients = Integer.parseInt(args[++a]); break;
+                case "--threads": threads = Integer.parseInt(args[++a]); break;
+                case "--seconds": seconds = Integer.parseInt(args[++a]); break;
+                case "--warmup": warmup = Integer.parseInt(args[++a]); break;
+                case "--idle": idle = Long.parseLong(args[++a]); break;
+                case "--seed": seed = Long.parseLong(args[++a]); break;
+                default:
+                    System.err.println("Usage: LoadGenerator [--sessions n] [--size n] [--clients n] [--threads n] "
+                            + "[--seconds n] [--warmup n] [--idle ms] [--seed n]");
+                    System.exit(1);
+            }
+        }
+
+        try (SessionManager manager = new SessionManager(threads, idle)) {
+            Random random = new Random(seed);
+            long[] ids = new long[sessions];
+            for (int k = 0; k < sessions; k++)
+                ids[k] = manager.open(new Puzzle(randomValues(size, random)));
+
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.SECONDS.toNanos(warmup);
+            long end = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+            CountDownLatch done = new CountDownLatch(clients);
+            LongAdder failures = new LongAdder();
+
+            Client[] running = new Client[clients];
+            for (int c = 0; c < clients; c++)
+                running[c] = new Client(manager, ids, size, random.nextLong(), measureFrom, end, done, failures);
+            for (Client client : running)
+                client.next();
+            done.await();
+
+            //The latch orders every client's last write before this read
+            int total = 0;
+            for (Client client : running)
+                total += client.count;
+            long[] sorted = new long[total];
+            int filled = 0;
+            for (Client client : running) {
+                System.arraycopy(client.latencies, 0, sorted, filled, client.count);
+                filled += client.count;
+            }
+            Arrays.sort(sorted);
+
+            System.err.println(total + " moves in " + seconds + " s (" + String.format("%.0f", total / (double) seconds)
+                    + " per second) on " + sessions + " sessions of " + size + "x" + size + ", " + clients
+                    + " clients, " + threads + " threads, " + failures.sum() + " failed");
+            if (total > 0) {
+                System.err.println(String.format("Latency p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms",
+                        percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99),
+                        sorted[sorted.length - 1] / 1e6));
+            }
+            System.err.println("Resident " + manager.getResidentCount() + ", evictions " + manager.getEvictionCount()
+                    + ", restores " + manager.getRestoreCount());
+        }
+    }
+
+}
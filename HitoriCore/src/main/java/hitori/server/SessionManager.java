@@ -0,0 +1,340 @@
+package hitori.server;
+
+import hitori.BoardState;
+import hitori.PackedBoard;
+import hitori.Puzzle;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+//Keeps many independent puzzle sessions, keyed by id, without any user interface, for serving many players.
+//Every session has its own queue of work: whoever submits to an idle session schedules it on the executor, and the
+//task that drains it runs the moves one after the other, so a session is only ever touched by one thread at a time
+//and sessions never wait for each other. There is no lock shared between sessions.
+//A session left alone for the idle time is evicted: its puzzle is replaced by a PackedBoard, the shared values and
+//one bit per covered cell, which drops the undo journal, the counters and the column bitsets, and is rebuilt on
+//the next move. A BoardState would not do here: its trie leaves are 32 words each, so an idle session would keep
+//more than its puzzle's bitsets. Sessions opened from a BoardState are packed the same way.
+//Once the executor refuses work, after close, whatever a session has queued is failed rather than left waiting.
+public final class SessionManager implements AutoCloseable {
+
+    //Tasks a session runs before giving its thread to the others
+    private static final int BATCH = 64;
+
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final Executor executor;
+    private final ExecutorService ownExecutor; //Shut down by close, null if the executor was handed in
+    private final ScheduledExecutorService sweeper;
+
+    private final AtomicInteger resident = new AtomicInteger();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder restores = new LongAdder();
+
+    /**
+     * Manager on a pool of one thread per processor, evicting sessions idle for a minute
+     */
+    public SessionManager() {
+        this(Runtime.getRuntime().availableProcessors(), TimeUnit.MINUTES.toMillis(1));
+    }
+
+    /**
+     * @param threads number of sessions worked on at the same time
+     * @param idleMillis time after its last move a session is evicted, 0 to only evict through evictIdle
+     */
+    public SessionManager(int threads, long idleMillis) {
+        this(newPool(threads), idleMillis, true);
+    }
+
+    /**
+     * Manager running sessions on an executor that stays the caller's, such as a virtual thread per task executor
+     * @param idleMillis time after its last move a session is evicted, 0 to only evict through evictIdle
+     */
+    public SessionManager(Executor executor, long idleMillis) {
+        this(executor, idleMillis, false);
+    }
+
+    private SessionManager(Executor executor, long idleMillis, boolean owned) {
+        if (idleMillis < 0)
+            throw new IllegalArgumentException("Idle time cannot be negative");
+
+        this.executor = executor;
+        this.ownExecutor = owned ? (ExecutorService) executor : null;
+
+        if (idleMillis > 0) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(SessionManager::daemon);
+            long period = Math.max(1, idleMillis / 2);
+            sweeper.scheduleWithFixedDelay(() -> evictIdle(idleMillis), period, period, TimeUnit.MILLISECONDS);
+        } else {
+            sweeper = null;
+        }
+    }
+
+    private static ExecutorService newPool(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be at least 1");
+        return Executors.newFixedThreadPool(threads, SessionManager::daemon);
+    }
+
+    private static Thread daemon(Runnable task) {
+        Thread thread = new Thread(task, "hitori-session");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    //Work queued on a session; fail is called instead of run when the executor will not take the session
+    private interface Task extends Runnable {
+
+        default void fail(RejectedExecutionException e) {
+        }
+    }
+
+    //One player's puzzle and the work waiting for it
+    private final class Session implements Runnable {
+
+        private final ConcurrentLinkedQueue<Task> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger(); //Tasks queued or running
+        private volatile long lastUsed = System.nanoTime();
+
+        //Only touched by the task draining the session; exactly one of the two is set
+        private Puzzle puzzle;
+        private PackedBoard evicted;
+
+        private void submit(Task task) {
+            tasks.add(task);
+            if (pending.getAndIncrement() == 0)
+                schedule();
+        }
+
+        /**
+         * Hands the session to the executor, or fails every task queued on it if the executor has been shut down
+         */
+        private void schedule() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                do {
+                    tasks.poll().fail(e);
+                } while (pending.decrementAndGet() != 0);
+            }
+        }
+
+        /**
+         * Runs the queued tasks in order, handing the thread back after a batch so busy sessions take turns
+         */
+        @Override
+        public void run() {
+            for (int done = 1; ; done++) {
+                tasks.poll().run();
+                if (pending.decrementAndGet() == 0)
+                    return;
+                if (done == BATCH) {
+                    schedule();
+                    return;
+                }
+            }
+        }
+
+        private Puzzle puzzle() {
+            if (puzzle == null) {
+                if (evicted == null)
+                    throw new IllegalStateException("Session closed");
+                puzzle = evicted.toPuzzle();
+                evicted = null;
+                resident.incrementAndGet();
+                restores.increment();
+            }
+            return puzzle;
+        }
+
+        private void evict(long idleNanos) {
+            if (puzzle == null || System.nanoTime() - lastUsed < idleNanos)
+                return;
+            evicted = puzzle.pack();
+            puzzle = null;
+            resident.decrementAndGet();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Opens a session that takes over a puzzle; the puzzle must not be used elsewhere afterwards
+     * @return id of the new session
+     */
+    public long open(Puzzle puzzle) {
+        Session session = new Session();
+        session.puzzle = puzzle;
+        resident.incrementAndGet();
+        return add(session);
+    }
+
+    /**
+     * Opens a session starting from a board state, only made into a puzzle on its first move
+     * @return id of the new session
+     */
+    public long open(BoardState state) {
+        Session session = new Session();
+        session.evicted = state.pack();
+        return add(session);
+    }
+
+    private long add(Session session) {
+        long id = nextId.incrementAndGet();
+        sessions.put(id, session);
+        return id;
+    }
+
+    /**
+     * Ends a session; moves already submitted still run
+     * @return false if there was no such session
+     */
+    public boolean close(long id) {
+        Session session = sessions.remove(id);
+        if (session == null)
+            return false;
+        session.submit(() -> {
+            if (session.puzzle != null)
+                resident.decrementAndGet();
+            session.puzzle = null;
+            session.evicted = null;
+        });
+        return true;
+    }
+
+    /**
+     * Runs an action on the puzzle of a session, after every action submitted to it before.
+     * The action runs on a worker thread and must not keep the puzzle.
+     * @throws IllegalArgumentException if there is no such session
+     * @return what the action returns, or the exception it throws
+     */
+    public <T> CompletableFuture<T> submit(long id, Function<Puzzle, T> action) {
+        Session session = session(id);
+        session.lastUsed = System.nanoTime();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        session.submit(task(result, () -> action.apply(session.puzzle())));
+        return result;
+    }
+
+    /**
+     * @return a task completing the future with what the body returns or throws, or failing it if never run
+     */
+    private static <T> Task task(CompletableFuture<T> result, Supplier<T> body) {
+        return new Task() {
+            @Override
+            public void run() {
+                try {
+                    result.complete(body.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void fail(RejectedExecutionException e) {
+                result.completeExceptionally(e);
+            }
+        };
+    }
+
+    /**
+     * Covers a cell of a session, as Puzzle.eliminate
+     * @return 0 if the cell was covered, otherwise the constraint (2 or 3) that would be violated
+     */
+    public CompletableFuture<Integer> eliminate(long id, int i, int j) {
+        return submit(id, puzzle -> puzzle.eliminate(i, j));
+    }
+
+    /**
+     * Uncovers a cell of a session, as Puzzle.reactivate
+     * @return whether the session is solved afterwards
+     */
+    public CompletableFuture<Boolean> reactivate(long id, int i, int j) {
+        return submit(id, puzzle -> {
+            puzzle.reactivate(i, j);
+            return puzzle.isGameOver();
+        });
+    }
+
+    /**
+     * @return the current state of a session, without bringing an evicted session back
+     */
+    public CompletableFuture<BoardState> snapshot(long id) {
+        Session session = session(id);
+        CompletableFuture<BoardState> result = new CompletableFuture<>();
+        session.submit(task(result, () -> session.puzzle != null ? session.puzzle.snapshot() : session.evicted.toBoardState()));
+        return result;
+    }
+
+    private Session session(long id) {
+        Session session = sessions.get(id);
+        if (session == null)
+            throw new IllegalArgumentException("No session " + id);
+        return session;
+    }
+
+    /**
+     * Evicts every session with no move for the given time, once the moves queued before have run
+     * @return number of sessions looked at
+     */
+    public int evictIdle(long idleMillis) {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        long now = System.nanoTime();
+        int count = 0;
+
+        for (Session session : sessions.values()) {
+            if (now - session.lastUsed >= idleNanos) {
+                session.submit(() -> session.evict(idleNanos));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return sessions held as a full puzzle rather than evicted
+     */
+    public int getResidentCount() {
+        return resident.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return evicted sessions made into a puzzle again, and sessions opened from a state that got a move
+     */
+    public long getRestoreCount() {
+        return restores.sum();
+    }
+
+    /**
+     * Stops evicting and shuts down the pool the manager made; work already submitted still runs,
+     * and work submitted afterwards fails with a RejectedExecutionException
+     */
+    @Override
+    public void close() {
+        if (sweeper != null)
+            sweeper.shutdownNow();
+        if (ownExecutor != null)
+            ownExecutor.shutdown();
+    }
+
+}
@@ -0,0 +1,430 @@
+package hitori.solver;
+
+import hitori.Puzzle;
+
+import java.util.Arrays;
+
+//Working copy of a puzzle for the solver, where every cell is either unknown, white or black.
+//Values and the list of clashing cells are shared between copies, only the cell states are per copy.
+final class Board {
+
+    static final byte UNKNOWN = 0;
+    static final byte WHITE = 1;
+    static final byte BLACK = 2;
+
+    //Neighbour offsets in clockwise order: up, right, down, left
+    private static final int[] di = {-1, 0, 1, 0};
+    private static final int[] dj = {0, 1, 0, -1};
+
+    final int rows;
+    final int columns;
+    final int[] values; //Value of cell (i, j) at i * columns + j
+    //For every cell, the other cells of its row and column holding the same value
+    final int[][] peers;
+
+    final byte[] state;
+    private int unknown;
+
+    //Cells assigned so far, in order, so a branch can be undone
+    private final int[] trail;
+    private int trailSize;
+
+    //Cells assigned but not yet propagated
+    private final int[] queue;
+    private int queueSize;
+
+    //Scratch for the articulation point search
+    private final int[] disc;
+    private final int[] low;
+    private final int[] parent;
+    private final byte[] dir;
+    private final int[] stack;
+
+    //Why each cell got its colour, only kept once trackReasons is called, and the deduction being applied
+    private Hint.Reason[] reasons;
+    private Hint.Reason cause = Hint.Reason.PLAYER;
+    //Cell whose assignment last failed since the last undo, or -1
+    private int conflict = -1;
+
+    /**
+     * Board with every cell unknown, built from the values of the puzzle
+     * @param puzzle
+     */
+    Board(Puzzle puzzle) {
+        this(puzzle.getRows(), puzzle.getColumns(), readValues(puzzle));
+    }
+
+    Board(int rows, int columns, int[] values) {
+        this(rows, columns, values, findPeers(rows, columns, values));
+    }
+
+    private Board(int rows, int columns, int[] values, int[][] peers) {
+        this.rows = rows;
+        this.columns = columns;
+        this.values = values;
+        this.peers = peers;
+
+        int cells = rows * columns;
+        state = new byte[cells];
+        unknown = cells;
+        trail = new int[cells];
+        queue = new int[cells];
+        disc = new int[cells];
+        low = new int[cells];
+        parent = new int[cells];
+        dir = new byte[cells];
+        stack = new int[cells];
+    }
+
+    /**
+     * @return a copy with the same cell states, sharing the values and peers
+     */
+    Board copy() {
+        Board copy = new Board(rows, columns, values, peers);
+        System.arraycopy(state, 0, copy.state, 0, state.length);
+        copy.unknown = unknown;
+        return copy;
+    }
+
+    private static int[] readValues(Puzzle puzzle) {
+        int rows = puzzle.getRows();
+        int columns = puzzle.getColumns();
+        int[] values = new int[rows * columns];
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                values[i * columns + j] = puzzle.getValue(i, j);
+        return values;
+    }
+
+    private static int[][] findPeers(int rows, int columns, int[] values) {
+        int[][] peers = new int[rows * columns][];
+        int[] buffer = new int[rows + columns];
+        int longest = Math.max(rows, columns);
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                int value = values[i * columns + j];
+                int count = 0;
+
+                //Row and column peers are interleaved, as far as the longer of the two lines goes
+                for (int k = 0; k < longest; k++) {
+                    if (k < columns && k != j && values[i * columns + k] == value)
+                        buffer[count++] = i * columns + k;
+                    if (k < rows && k != i && values[k * columns + j] == value)
+                        buffer[count++] = k * columns + j;
+                }
+
+                peers[i * columns + j] = Arrays.copyOf(buffer, count);
+            }
+        }
+
+        return peers;
+    }
+
+    /**
+     * Starts keeping the reason for every assignment from now on, for hints
+     */
+    void trackReasons() {
+        if (reasons == null)
+            reasons = new Hint.Reason[state.length];
+    }
+
+    /**
+     * @return the deduction that gave the cell its colour, or null if reasons were not tracked then
+     */
+    Hint.Reason getReason(int cell) {
+        return reasons == null ? null : reasons[cell];
+    }
+
+    /**
+     * @param cause reason recorded for the assignments that follow
+     */
+    void setCause(Hint.Reason cause) {
+        this.cause = cause;
+    }
+
+    int getConflict() {
+        return conflict;
+    }
+
+    /**
+     * @param k position in the order of assignment, below mark()
+     * @return the cell assigned at that position
+     */
+    int getTrailCell(int k) {
+        return trail[k];
+    }
+
+    int getUnknownCount() {
+        return unknown;
+    }
+
+    int mark() {
+        return trailSize;
+    }
+
+    /**
+     * Puts every cell assigned since the mark back to unknown
+     * @param mark value returned by mark()
+     */
+    void undo(int mark) {
+        while (trailSize > mark) {
+            state[trail[--trailSize]] = UNKNOWN;
+            unknown++;
+        }
+        queueSize = 0;
+        conflict = -1;
+    }
+
+    /**
+     * Assigns a cell and queues it for propagation
+     * @return false if the cell already holds the opposite colour
+     */
+    boolean assign(int cell, byte colour) {
+        if (state[cell] != UNKNOWN) {
+            if (state[cell] == colour)
+                return true;
+            conflict = cell;
+            return false;
+        }
+
+        state[cell] = colour;
+        unknown--;
+        if (reasons != null)
+            reasons[cell] = cause;
+        trail[trailSize++] = cell;
+        queue[queueSize++] = cell;
+        return true;
+    }
+
+    /**
+     * Deductions that only depend on the values, applied once to a fresh board:
+     * cells with no clash are white, the middle of a sandwich (a b a) is white,
+     * a pair of equal neighbours (a a) makes every other a in that line black,
+     * and a corner equal to both of its neighbours is black
+     * @return false if the deductions contradict each other
+     */
+    boolean applyPatterns() {
+        cause = Hint.Reason.UNIQUE;
+        for (int cell = 0; cell < rows * columns; cell++) {
+            if (peers[cell].length == 0 && !assign(cell, WHITE))
+                return false;
+        }
+
+        //Row line and column line are taken in turn, as on a square board, as far as the longer side goes
+        int longest = Math.max(rows, columns);
+        for (int line = 0; line < longest; line++) {
+            for (int k = 0; k + 1 < longest; k++) {
+                if (line < rows && k + 1 < columns && !linePattern(line * columns + k, 1, line * columns, columns))
+                    return false;
+                if (line < columns && k + 1 < rows && !linePattern(k * columns + line, columns, line, rows))
+                    return false;
+            }
+        }
+
+        cause = Hint.Reason.CORNER;
+        int lastRow = rows - 1;
+        int lastColumn = columns - 1;
+        int[][] corners = {{0, 0, 1, 1}, {0, lastColumn, 1, -1}, {lastRow, 0, -1, 1}, {lastRow, lastColumn, -1, -1}};
+        for (int[] corner : corners) {
+            if (rows < 2 || columns < 2)
+                break;
+            int cell = corner[0] * columns + corner[1];
+            int across = corner[0] * columns + corner[1] + corner[3];
+            int down = (corner[0] + corner[2]) * columns + corner[1];
+            //If the corner stayed white both neighbours would be black and the corner cut off
+            if (values[cell] == values[across] && values[cell] == values[down] && !assign(cell, BLACK))
+                return false;
+        }
+
+        return propagate();
+    }
+
+    /**
+     * Sandwich and pair deductions for the cell at a given position of a line
+     * @param cell flat index of the cell
+     * @param step distance to the next cell of the line (1 along a row, columns down a column)
+     * @param first flat index of the first cell of the line
+     * @param length number of cells of the line
+     */
+    private boolean linePattern(int cell, int step, int first, int length) {
+        int next = cell + step;
+
+        if (values[cell] == values[next]) {
+            cause = Hint.Reason.PAIR;
+            //One of the pair is white, so no other cell of the line can keep that value
+            for (int k = 0; k < length; k++) {
+                int other = first + k * step;
+                if (other != cell && other != next && values[other] == values[cell] && !assign(other, BLACK))
+                    return false;
+            }
+        }
+
+        int after = next + step;
+        cause = Hint.Reason.SANDWICH;
+        if ((after - first) / step < length && values[cell] == values[after] && !assign(next, WHITE))
+            return false;
+
+        return true;
+    }
+
+    /**
+     * Applies the consequences of every queued assignment until nothing more follows:
+     * neighbours of a black cell are white, clashing cells of a white cell are black,
+     * a cell with nothing left to clash with is white and a cell whose shading would split
+     * the white area is white
+     * @return false if the board has no solution from here
+     */
+    boolean propagate() {
+        do {
+            while (queueSize > 0) {
+                int cell = queue[--queueSize];
+                int i = cell / columns;
+                int j = cell % columns;
+
+                if (state[cell] == BLACK) {
+                    cause = Hint.Reason.NEXT_TO_COVERED;
+                    for (int d = 0; d < 4; d++) {
+                        int ni = i + di[d];
+                        int nj = j + dj[d];
+                        if (ni >= 0 && ni < rows && nj >= 0 && nj < columns && !assign(ni * columns + nj, WHITE))
+                            return false;
+                    }
+
+                    cause = Hint.Reason.LAST_OF_VALUE;
+                    for (int peer : peers[cell]) {
+                        if (state[peer] == UNKNOWN && !hasOpenPeer(peer) && !assign(peer, WHITE))
+                            return false;
+                    }
+                } else {
+                    cause = Hint.Reason.CLASHES_WITH_WHITE;
+                    for (int peer : peers[cell]) {
+                        if (!assign(peer, BLACK))
+                            return false;
+                    }
+                }
+            }
+
+            if (!checkConnectivity())
+                return false;
+        } while (queueSize > 0);
+
+        return true;
+    }
+
+    /**
+     * @return true if some other cell with the same value in the row or column is not black
+     */
+    private boolean hasOpenPeer(int cell) {
+        for (int peer : peers[cell]) {
+            if (state[peer] != BLACK)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the articulation points of the cells that are not black, iteratively (Tarjan).
+     * Unknown articulation points are assigned white, since shading one would split the white area.
+     * @return false if the cells that are not black are already split
+     */
+    private boolean checkConnectivity() {
+        int cells = rows * columns;
+        int root = -1;
+        int open = 0;
+
+        for (int cell = 0; cell < cells; cell++) {
+            disc[cell] = 0;
+            if (state[cell] != BLACK) {
+                open++;
+                if (root < 0)
+                    root = cell;
+            }
+        }
+
+        if (root < 0)
+            return true;
+
+        cause = Hint.Reason.KEEPS_CONNECTED;
+        int timer = 0;
+        int rootChildren = 0;
+        int sp = 0;
+
+        disc[root] = low[root] = ++timer;
+        parent[root] = -1;
+        dir[root] = 0;
+        stack[sp++] = root;
+
+        while (sp > 0) {
+            int v = stack[sp - 1];
+
+            if (dir[v] < 4) {
+                int d = dir[v]++;
+                int ni = v / columns + di[d];
+                int nj = v % columns + dj[d];
+
+                if (ni < 0 || ni >= rows || nj < 0 || nj >= columns)
+                    continue;
+
+                int w = ni * columns + nj;
+                if (state[w] == BLACK)
+                    continue;
+
+                if (disc[w] == 0) {
+                    disc[w] = low[w] = ++timer;
+                    parent[w] = v;
+                    dir[w] = 0;
+                    stack[sp++] = w;
+                    if (v == root)
+                        rootChildren++;
+                } else if (w != parent[v]) {
+                    low[v] = Math.min(low[v], disc[w]);
+                }
+            } else {
+                sp--;
+                int p = parent[v];
+                if (p >= 0) {
+                    low[p] = Math.min(low[p], low[v]);
+                    if (p != root && low[v] >= disc[p] && state[p] == UNKNOWN)
+                        assign(p, WHITE);
+                }
+            }
+        }
+
+        if (timer != open)
+            return false;
+
+        if (rootChildren > 1 && state[root] == UNKNOWN)
+            assign(root, WHITE);
+
+        return true;
+    }
+
+    /**
+     * Branching heuristic: the unknown cell with the most cells it still clashes with
+     * @return flat index of the cell, or -1 if every cell is decided
+     */
+    int pickBranchCell() {
+        int best = -1;
+        int bestScore = -1;
+
+        for (int cell = 0; cell < state.length; cell++) {
+            if (state[cell] != UNKNOWN)
+                continue;
+
+            int score = 0;
+            for (int peer : peers[cell]) {
+                if (state[peer] != BLACK)
+                    score++;
+            }
+
+            if (score > bestScore) {
+                best = cell;
+                bestScore = score;
+            }
+        }
+
+        return best;
+    }
+
+}
@@ -0,0 +1,244 @@
+package hitori.solver;
+
+import hitori.Puzzle;
+import hitori.PuzzleCorpus;
+import hitori.PuzzleParser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+//Rates how hard puzzles are by solving them the way a person would.
+//The Board deductions are applied with their reasons recorded: the patterns on the values first, then the
+//local rules until nothing more follows, and only then the connectivity check, so cheap techniques always get
+//the first go. Whatever is left undecided goes to the solver, whose search nodes measure the guessing needed.
+//The score weighs every deduced cell by the technique that decided it, scaled to the size of the board,
+//and adds a fixed amount for every doubling of the search:
+//  score = 100 * sum(weight(technique) * cells decided by it) / cells + 25 * log2(nodes)
+//Usage: DifficultyRater [--threads n] <corpus or text file>...
+public class DifficultyRater {
+
+    //Weight per decided cell, indexed by Hint.Reason ordinal; reasons that are not techniques weigh nothing
+    private static final double[] WEIGHTS = new double[Hint.Reason.values().length];
+
+    static {
+        WEIGHTS[Hint.Reason.NEXT_TO_COVERED.ordinal()] = 0.25;
+        WEIGHTS[Hint.Reason.CLASHES_WITH_WHITE.ordinal()] = 0.5;
+        WEIGHTS[Hint.Reason.SANDWICH.ordinal()] = 1;
+        WEIGHTS[Hint.Reason.PAIR.ordinal()] = 1;
+        WEIGHTS[Hint.Reason.CORNER.ordinal()] = 1.5;
+        WEIGHTS[Hint.Reason.LAST_OF_VALUE.ordinal()] = 2;
+        WEIGHTS[Hint.Reason.KEEPS_CONNECTED.ordinal()] = 4;
+    }
+
+    private static final double NODE_WEIGHT = 25;
+
+    private final int threads;
+    private final ThreadLocal<Solver> solvers = ThreadLocal.withInitial(Solver::new);
+
+    public DifficultyRater() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads number of puzzles rated at the same time by rateAll
+     */
+    public DifficultyRater(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be at least 1");
+        this.threads = threads;
+    }
+
+    /**
+     * Rates one puzzle on the calling thread, ignoring its covered cells
+     */
+    public Rating rate(Puzzle puzzle) {
+        return rate(0, puzzle);
+    }
+
+    private Rating rate(long index, Puzzle puzzle) {
+        long start = System.nanoTime();
+        Board board = new Board(puzzle);
+        board.trackReasons();
+
+        int[] counts = new int[Hint.Reason.values().length];
+        if (!board.applyPatterns())
+            return new Rating(index, SolveResult.Status.UNSOLVABLE, counts, board.getUnknownCount(), 1,
+                    System.nanoTime() - start, 0);
+
+        for (int k = 0; k < board.mark(); k++)
+            counts[board.getReason(board.getTrailCell(k)).ordinal()]++;
+
+        int undecided = board.getUnknownCount();
+        SolveResult.Status status = SolveResult.Status.UNIQUE; //Sound deductions alone leave one way to finish
+        long nodes = 1;
+
+        if (undecided > 0) {
+            Solver solver = solvers.get();
+            solver.setSolutionLimit(2);
+            SolveResult result = solver.solve(board);
+            status = result.getStatus();
+            nodes = Math.max(1, result.getNodes());
+        }
+
+        double weighted = 0;
+        for (int t = 0; t < counts.length; t++)
+            weighted += WEIGHTS[t] * counts[t];
+
+        int cells = puzzle.getRows() * puzzle.getColumns();
+        double score = 100 * weighted / cells + NODE_WEIGHT * Math.log(nodes) / Math.log(2);
+
+        return new Rating(index, status, counts, undecided, nodes, System.nanoTime() - start, score);
+    }
+
+    /**
+     * Rates every puzzle on the worker threads, blocking until all are done.
+     * Puzzles are pulled from the iterator on the calling thread only a few per worker ahead of the ratings,
+     * so memory stays bounded however many there are.
+     * @param puzzles puzzles to rate, numbered from 0 in the order given
+     * @param sink receives each rating as soon as it is ready, called from one thread at a time
+     * @throws RuntimeException the first exception thrown while rating or by the sink; no more puzzles are
+     * started after it, and it is thrown once the ratings already started are done
+     */
+    public void rateAll(Iterator<Puzzle> puzzles, Consumer<Rating> sink) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 4);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try {
+            for (long index = 0; failure.get() == null && puzzles.hasNext(); index++) {
+                Puzzle puzzle = puzzles.next();
+                long number = index;
+                inFlight.acquire();
+
+                executor.execute(() -> {
+                    try {
+                        Rating rating = rate(number, puzzle);
+                        synchronized (sink) {
+                            sink.accept(rating);
+                        }
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof Error)
+            throw (Error) cause;
+        if (cause != null)
+            throw (RuntimeException) cause;
+    }
+
+    /**
+     * @return the puzzles of a corpus, each read only when asked for
+     */
+    public static Iterator<Puzzle> puzzles(PuzzleCorpus corpus) {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < corpus.size();
+            }
+
+            @Override
+            public Puzzle next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                return corpus.get(next++);
+            }
+        };
+    }
+
+    /**
+     * @return the puzzles of a text file, each parsed only when asked for
+     * @throws UncheckedIOException from next() if the file turns out to be malformed
+     */
+    public static Iterator<Puzzle> puzzles(PuzzleParser parser) {
+        return new Iterator<>() {
+            private Puzzle next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = parser.next();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Puzzle next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                Puzzle puzzle = next;
+                next = null;
+                return puzzle;
+            }
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int first = 0;
+
+        if (args.length >= 2 && args[0].equals("--threads")) {
+            threads = Integer.parseInt(args[1]);
+            first = 2;
+        }
+
+        if (first >= args.length) {
+            System.err.println("Usage: DifficultyRater [--threads n] <corpus or text file>...");
+            System.exit(1);
+        }
+
+        DifficultyRater rater = new DifficultyRater(threads);
+        long[] count = new long[1];
+        double[] total = new double[1];
+        long start = System.nanoTime();
+
+        Consumer<Rating> sink = rating -> {
+            System.out.println(rating);
+            count[0]++;
+            total[0] += rating.getScore();
+        };
+
+        for (int a = first; a < args.length; a++) {
+            Path path = Paths.get(args[a]);
+            if (PuzzleCorpus.isCorpus(path)) {
+                try (PuzzleCorpus corpus = new PuzzleCorpus(path)) {
+                    rater.rateAll(puzzles(corpus), sink);
+                }
+            } else {
+                try (PuzzleParser parser = new PuzzleParser(path)) {
+                    rater.rateAll(puzzles(parser), sink);
+                }
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.println(count[0] + " puzzles in " + String.format("%.2f", seconds) + " s ("
+                + String.format("%.0f", count[0] / seconds) + " per second), mean score "
+                + String.format("%.2f", count[0] == 0 ? 0 : total[0] / count[0]));
+    }
+
+}
@@ -0,0 +1,71 @@
+package hitori.solver;
+
+//A move forced by the values and the cells covered so far: which cell, whether to cover it or keep it white,
+//and the rule or pattern that forces it
+public final class Hint {
+
+    //Deductions from the cheapest to spot to the most involved, the order in which hints of the same kind
+    //(cover or keep white) are preferred
+    public enum Reason {
+        NEXT_TO_COVERED("a covered cell is next to it"),
+        SANDWICH("it sits between two equal values"),
+        PAIR("two neighbours of its row or column share its value, and one of them stays white"),
+        CORNER("it is a corner equal to both of its neighbours"),
+        CLASHES_WITH_WHITE("a cell that must stay white has the same value in its row or column"),
+        LAST_OF_VALUE("every other cell of its row and column with that value is covered"),
+        KEEPS_CONNECTED("covering it would cut the white cells in two"),
+        CONTRADICTION("the cells covered so far cannot all be right"),
+        UNIQUE("its value appears nowhere else in its row or column"),
+        PLAYER("the player covered it");
+
+        private final String description;
+
+        Reason(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final int row;
+    private final int column;
+    private final boolean cover;
+    private final Reason reason;
+
+    Hint(int row, int column, boolean cover, Reason reason) {
+        this.row = row;
+        this.column = column;
+        this.cover = cover;
+        this.reason = reason;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return true if the cell should be covered, false if it must stay white
+     * (for a CONTRADICTION, the covered cell where the clash showed up)
+     */
+    public boolean isCover() {
+        return cover;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        if (reason == Reason.CONTRADICTION)
+            return "Check (" + row + ", " + column + "): " + reason.getDescription();
+        return (cover ? "Cover" : "Keep white") + " (" + row + ", " + column + "): " + reason.getDescription();
+    }
+
+}
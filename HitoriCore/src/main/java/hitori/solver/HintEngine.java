@@ -0,0 +1,139 @@
+package hitori.solver;
+
+import hitori.Puzzle;
+
+//Finds the cheapest move forced by the values of a puzzle and the cells covered so far, without searching.
+//Deductions come in two layers kept on one Board:
+//  1. the patterns that only depend on the values (see Board.applyPatterns), worked out once per puzzle,
+//  2. the consequences of the covered cells, propagated on top of the first layer.
+//The second layer is kept between calls. When the only changes since the last call are cells covered that it
+//had already deduced to be black (typically the player following a hint), it still holds and is reused as it is;
+//any other change takes it back to the first layer and propagates the covered cells again.
+//An engine belongs to one puzzle and is not thread safe.
+public class HintEngine {
+
+    private final Puzzle puzzle;
+    private final int columns;
+    private final Board board;
+    private final boolean patternsHold;
+    private final int patternMark;
+
+    //Covered cells and puzzle version the second layer was built for, and the hint found then
+    private final boolean[] covered;
+    private int version = -1;
+    private boolean consistent;
+    private Hint hint;
+
+    /**
+     * @param puzzle puzzle to give hints for; its values are read once, its covered cells on every call
+     */
+    public HintEngine(Puzzle puzzle) {
+        this.puzzle = puzzle;
+        columns = puzzle.getColumns();
+        board = new Board(puzzle);
+        board.trackReasons();
+        patternsHold = board.applyPatterns();
+        patternMark = board.mark();
+        covered = new boolean[puzzle.getRows() * columns];
+    }
+
+    /**
+     * @return the cheapest forced move for the puzzle as it is now, a CONTRADICTION hint on a covered cell
+     * if the covered cells clash with the deductions, or null if nothing is forced (or the puzzle has no solution)
+     */
+    public Hint next() {
+        if (!patternsHold)
+            return null;
+
+        if (puzzle.getVersion() != version) {
+            if (!canReuse())
+                rebuild();
+            else
+                hint = pick();
+            version = puzzle.getVersion();
+        }
+
+        return hint;
+    }
+
+    /**
+     * @return true if every cell covered since the last call was already deduced black, and none was uncovered
+     */
+    private boolean canReuse() {
+        if (version < 0 || !consistent)
+            return false;
+
+        for (int cell = 0; cell < covered.length; cell++) {
+            boolean now = puzzle.isCovered(cell / columns, cell % columns);
+            if (now == covered[cell])
+                continue;
+            if (!now || board.state[cell] != Board.BLACK)
+                return false;
+            covered[cell] = true;
+        }
+        return true;
+    }
+
+    /**
+     * Takes the board back to the value patterns and propagates the covered cells again
+     */
+    private void rebuild() {
+        board.undo(patternMark);
+        board.setCause(Hint.Reason.PLAYER);
+        consistent = true;
+
+        for (int cell = 0; cell < covered.length; cell++) {
+            covered[cell] = puzzle.isCovered(cell / columns, cell % columns);
+            if (covered[cell] && consistent && !board.assign(cell, Board.BLACK))
+                consistent = false;
+        }
+
+        if (consistent && !board.propagate())
+            consistent = false;
+
+        if (!consistent) {
+            //A split white area fails without any one cell to blame
+            int cell = board.getConflict();
+            hint = cell < 0 ? null : new Hint(cell / columns, cell % columns, covered[cell], Hint.Reason.CONTRADICTION);
+            return;
+        }
+
+        hint = pick();
+    }
+
+    /**
+     * @return among the deductions the player has not acted on yet, a cell to cover before a cell to keep white,
+     * then the one with the cheapest reason, the earliest deduced on a tie
+     */
+    private Hint pick() {
+        int best = -1;
+        Hint.Reason bestReason = null;
+        boolean bestCover = false;
+
+        for (int k = 0; k < board.mark(); k++) {
+            int cell = board.getTrailCell(k);
+            Hint.Reason reason = board.getReason(cell);
+            boolean cover = board.state[cell] == Board.BLACK;
+
+            if (reason == Hint.Reason.UNIQUE || reason == Hint.Reason.PLAYER || covered[cell])
+                continue;
+            //Puzzle.eliminate already refuses to cover a neighbour of a covered cell, and keeping a cell white
+            //only tells the player something if it has a value to clash with
+            if (!cover && (reason == Hint.Reason.NEXT_TO_COVERED || board.peers[cell].length == 0))
+                continue;
+
+            if (bestReason == null || (cover && !bestCover)
+                    || (cover == bestCover && reason.ordinal() < bestReason.ordinal())) {
+                best = cell;
+                bestReason = reason;
+                bestCover = cover;
+            }
+        }
+
+        if (best < 0)
+            return null;
+
+        return new Hint(best / columns, best % columns, bestCover, bestReason);
+    }
+
+}
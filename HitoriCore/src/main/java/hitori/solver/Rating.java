@@ -0,0 +1,101 @@
+package hitori.solver;
+
+//How hard a puzzle is to solve by hand: the deductions it took, how much guessing was left after them,
+//the time spent and a score combining the first two. The score does not depend on the time, so the same
+//puzzle always gets the same score.
+public class Rating {
+
+    private final long index;
+    private final SolveResult.Status status;
+    private final int[] counts; //Cells decided by each technique, indexed by Hint.Reason ordinal
+    private final int undecided;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final double score;
+
+    Rating(long index, SolveResult.Status status, int[] counts, int undecided, long nodes, long elapsedNanos,
+           double score) {
+        this.index = index;
+        this.status = status;
+        this.counts = counts;
+        this.undecided = undecided;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.score = score;
+    }
+
+    /**
+     * @return position of the puzzle in the batch it was rated in, 0 when rated on its own
+     */
+    public long getIndex() {
+        return index;
+    }
+
+    /**
+     * @return UNIQUE, MULTIPLE or UNSOLVABLE
+     */
+    public SolveResult.Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the number of cells decided by that technique before any guessing
+     */
+    public int getCount(Hint.Reason technique) {
+        return counts[technique.ordinal()];
+    }
+
+    /**
+     * @return the most costly technique needed, or null if no cell could be deduced
+     */
+    public Hint.Reason getHardestTechnique() {
+        //Reasons after KEEPS_CONNECTED are not deductions, apart from spotting unique values, the easiest of all
+        for (int t = Hint.Reason.KEEPS_CONNECTED.ordinal(); t >= 0; t--) {
+            if (counts[t] > 0)
+                return Hint.Reason.values()[t];
+        }
+        return counts[Hint.Reason.UNIQUE.ordinal()] > 0 ? Hint.Reason.UNIQUE : null;
+    }
+
+    /**
+     * @return the number of cells still undecided once every technique had been applied
+     */
+    public int getUndecided() {
+        return undecided;
+    }
+
+    /**
+     * @return search nodes needed to finish the puzzle and prove it unique, 1 if deduction alone solved it
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return 0 for a puzzle solved by spotting unique values alone, higher for harder techniques used more
+     * often and for every doubling of the search
+     */
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder techniques = new StringBuilder();
+        for (Hint.Reason technique : Hint.Reason.values()) {
+            if (counts[technique.ordinal()] > 0) {
+                if (techniques.length() > 0)
+                    techniques.append(',');
+                techniques.append(technique).append('=').append(counts[technique.ordinal()]);
+            }
+        }
+
+        return index + "\t" + status + "\t" + String.format("%.2f", score) + "\t" + nodes + " nodes\t"
+                + techniques + "\t" + String.format("%.3f", elapsedNanos / 1e6) + " ms";
+    }
+
+}
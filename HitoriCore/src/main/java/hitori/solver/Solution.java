@@ -0,0 +1,102 @@
+package hitori.solver;
+
+import hitori.Puzzle;
+
+import java.util.BitSet;
+
+//A complete shading of a puzzle: which cells are covered (black) in the solution
+public class Solution {
+
+    private final int rows;
+    private final int columns;
+    private final BitSet covered;
+
+    Solution(Board board) {
+        rows = board.rows;
+        columns = board.columns;
+        covered = new BitSet(rows * columns);
+        for (int cell = 0; cell < rows * columns; cell++) {
+            if (board.state[cell] == Board.BLACK)
+                covered.set(cell);
+        }
+    }
+
+    /**
+     * @param covered bit i * columns + j set for every covered cell (i, j); taken over, not copied
+     */
+    Solution(int rows, int columns, BitSet covered) {
+        this.rows = rows;
+        this.columns = columns;
+        this.covered = covered;
+    }
+
+    /**
+     * @return the number of rows and columns of a square puzzle
+     * @throws IllegalStateException if the puzzle is not square; use getRows and getColumns instead
+     */
+    public int getSize() {
+        if (rows != columns)
+            throw new IllegalStateException("A " + rows + "x" + columns + " solution is not square");
+        return rows;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @param i index row
+     * @param j index column
+     * @return true if that cell is covered in the solution
+     */
+    public boolean isCovered(int i, int j) {
+        return covered.get(i * columns + j);
+    }
+
+    /**
+     * @return the number of covered cells
+     */
+    public int getCoveredCount() {
+        return covered.cardinality();
+    }
+
+    /**
+     * @return the covered cells as a bitset, bit i * columns + j for cell (i, j)
+     */
+    public BitSet toBitSet() {
+        return (BitSet) covered.clone();
+    }
+
+    /**
+     * Resets the puzzle and covers the cells of this solution through Puzzle.tryEliminate,
+     * so the shading goes through the same constraint checks as a player's moves
+     * @param puzzle puzzle with the same values this solution was found for
+     * @return true if every cell was accepted and the game is over
+     */
+    public boolean applyTo(Puzzle puzzle) {
+        puzzle.reset();
+
+        for (int cell = covered.nextSetBit(0); cell >= 0; cell = covered.nextSetBit(cell + 1)) {
+            if (puzzle.tryEliminate(cell / columns, cell % columns) != 0)
+                return false;
+        }
+
+        return puzzle.isGameOver();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++)
+                builder.append(isCovered(i, j) ? '#' : '.');
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+}
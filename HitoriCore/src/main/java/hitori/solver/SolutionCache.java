@@ -0,0 +1,368 @@
+package hitori.solver;
+
+import hitori.CanonicalForm;
+import hitori.Puzzle;
+import hitori.Symmetry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+//Remembers the solution, uniqueness verdict and difficulty rating of boards already seen, keyed by their values.
+//A board is looked up under the 64 bit hash of its CanonicalForm, so a rotated or mirrored copy of a board, or one
+//with its values renamed, finds the same entry, and the solution is turned back to the orientation asked about.
+//The canonical labels are kept with the entry and compared on every hit, so two boards that happen to share a hash
+//never get each other's answers. Covered cells play no part: the answers only depend on the values.
+//Entries are spread over up to 16 segments by hash, each one least recently used first out and locked on its own,
+//so threads only wait for each other when they touch the same segment, and never while a board is solved.
+//Two threads missing the same board at once both solve it; the answers are the same, so either may stay.
+//
+//File layout written by save and read by load (big endian):
+//  header  magic "HTSC" (int), format version (short), number of entries (int)
+//  entries hash (long), rows (short), columns (short), canonical labels (short each, row order), status (byte),
+//          rating: number of techniques (byte), cells per technique (int each), undecided (int), nodes (long),
+//          elapsed nanos (long), score (double), then 1 (byte) and the solution words (long each) or 0 (byte)
+public class SolutionCache {
+
+    static final int MAGIC = 0x48545343; //"HTSC"
+    static final short VERSION = 2;
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final DifficultyRater rater = new DifficultyRater(1);
+    private final ThreadLocal<Solver> solvers = ThreadLocal.withInitial(Solver::new);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity number of boards kept; the least recently used go first
+     */
+    public SolutionCache(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least 1");
+
+        int count = Integer.highestOneBit(Math.min(MAX_SEGMENTS, capacity));
+        segments = new Segment[count];
+        for (int s = 0; s < count; s++)
+            segments[s] = new Segment(capacity / count + (s < capacity % count ? 1 : 0));
+    }
+
+    //Entries of one share of the hashes, in order of use
+    private static final class Segment extends LinkedHashMap<Long, Entry> {
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    //What is known about a board in canonical form
+    private static final class Entry {
+
+        private final long hash;
+        private final int rows;
+        private final int columns;
+        private final short[] labels;
+        private final Rating rating;
+        private final long[] solution; //Covered cells of the canonical grid, null if there is no solution
+
+        private Entry(long hash, int rows, int columns, short[] labels, Rating rating, long[] solution) {
+            this.hash = hash;
+            this.rows = rows;
+            this.columns = columns;
+            this.labels = labels;
+            this.rating = rating;
+            this.solution = solution;
+        }
+
+        private boolean matches(CanonicalForm form) {
+            if (form.getRows() != rows || form.getColumns() != columns)
+                return false;
+
+            for (int i = 0; i < rows; i++)
+                for (int j = 0; j < columns; j++)
+                    if ((labels[i * columns + j] & 0xffff) != form.getLabel(i, j))
+                        return false;
+            return true;
+        }
+    }
+
+    //The answers for one board, in the orientation it was asked about
+    public static final class Verdict {
+
+        private final Rating rating;
+        private final Solution solution;
+        private final boolean cached;
+
+        private Verdict(Rating rating, Solution solution, boolean cached) {
+            this.rating = rating;
+            this.solution = solution;
+            this.cached = cached;
+        }
+
+        /**
+         * @return UNIQUE, MULTIPLE or UNSOLVABLE
+         */
+        public SolveResult.Status getStatus() {
+            return rating.getStatus();
+        }
+
+        /**
+         * @return the rating of the canonical board, which every copy of it shares
+         */
+        public Rating getRating() {
+            return rating;
+        }
+
+        /**
+         * @return a solution, or null if the board has none
+         */
+        public Solution getSolution() {
+            return solution;
+        }
+
+        /**
+         * @return true if the answers came from the cache rather than being worked out for this call
+         */
+        public boolean wasCached() {
+            return cached;
+        }
+    }
+
+    /**
+     * Looks a board up, solving and rating it first if it is not known yet, on the calling thread
+     */
+    public Verdict get(Puzzle puzzle) {
+        return find(puzzle, true);
+    }
+
+    /**
+     * @return what is known about the board, or null if it is not in the cache
+     */
+    public Verdict lookup(Puzzle puzzle) {
+        return find(puzzle, false);
+    }
+
+    private Verdict find(Puzzle puzzle, boolean compute) {
+        CanonicalForm form = CanonicalForm.of(puzzle);
+        long hash = form.hash64();
+
+        Segment segment = segment(hash);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(hash);
+        }
+
+        if (entry != null && entry.matches(form)) {
+            hits.increment();
+            return verdict(entry, form.getSymmetry(), puzzle.getRows(), puzzle.getColumns(), true);
+        }
+
+        misses.increment();
+        if (!compute)
+            return null;
+
+        entry = solve(hash, form);
+        synchronized (segment) {
+            segment.put(hash, entry);
+        }
+        return verdict(entry, form.getSymmetry(), puzzle.getRows(), puzzle.getColumns(), false);
+    }
+
+    private Segment segment(long hash) {
+        return segments[(int) (hash >>> 32) & (segments.length - 1)];
+    }
+
+    /**
+     * Rates the canonical board and finds a solution of it
+     */
+    private Entry solve(long hash, CanonicalForm form) {
+        int rows = form.getRows();
+        int columns = form.getColumns();
+        short[] labels = new short[rows * columns];
+        for (int cell = 0; cell < labels.length; cell++)
+            labels[cell] = (short) form.getLabel(cell / columns, cell % columns);
+
+        Puzzle canonical = form.toPuzzle();
+        Rating rating = rater.rate(canonical);
+        long[] solution = null;
+
+        if (rating.getStatus() != SolveResult.Status.UNSOLVABLE) {
+            Solver solver = solvers.get();
+            solver.setSolutionLimit(1);
+            solution = solver.solve(canonical).getSolution().toBitSet().toLongArray();
+        }
+
+        return new Entry(hash, rows, columns, labels, rating, solution);
+    }
+
+    private static Verdict verdict(Entry entry, Symmetry symmetry, int rows, int columns, boolean cached) {
+        Solution solution = null;
+
+        if (entry.solution != null) {
+            BitSet canonical = BitSet.valueOf(entry.solution);
+            BitSet covered = new BitSet(rows * columns);
+            for (int cell = canonical.nextSetBit(0); cell >= 0; cell = canonical.nextSetBit(cell + 1))
+                covered.set(symmetry.source(cell / entry.columns, cell % entry.columns, rows, columns));
+            solution = new Solution(rows, columns, covered);
+        }
+
+        return new Verdict(entry.rating, solution, cached);
+    }
+
+    /**
+     * @return number of boards held
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes every entry to a file, through a temporary file in the same directory so a crash mid-write
+     * leaves the previous file whole
+     */
+    public void save(Path path) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entries.addAll(segment.values());
+            }
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(entries.size());
+
+            for (Entry entry : entries) {
+                out.writeLong(entry.hash);
+                out.writeShort(entry.rows);
+                out.writeShort(entry.columns);
+                for (short label : entry.labels)
+                    out.writeShort(label);
+
+                Rating rating = entry.rating;
+                out.writeByte(rating.getStatus().ordinal());
+                out.writeByte(Hint.Reason.values().length);
+                for (Hint.Reason technique : Hint.Reason.values())
+                    out.writeInt(rating.getCount(technique));
+                out.writeInt(rating.getUndecided());
+                out.writeLong(rating.getNodes());
+                out.writeLong(rating.getElapsedNanos());
+                out.writeDouble(rating.getScore());
+
+                out.writeByte(entry.solution == null ? 0 : 1);
+                if (entry.solution != null) {
+                    long[] words = new long[(entry.labels.length + 63) >>> 6];
+                    System.arraycopy(entry.solution, 0, words, 0, entry.solution.length);
+                    for (long word : words)
+                        out.writeLong(word);
+                }
+            }
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds the entries of a file written by save, as if each had just been used, in the order they were written
+     * @return number of entries read
+     * @throws IOException if the file cannot be read, is not a cache file of this version or is corrupt
+     */
+    public int load(Path path) throws IOException {
+        long size = Files.size(path);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a solution cache file: " + path);
+            if (in.readShort() != VERSION)
+                throw new IOException("Unsupported solution cache version: " + path);
+
+            int count = in.readInt();
+            if (count < 0)
+                throw new IOException("Corrupt solution cache, " + count + " entries: " + path);
+
+            for (int k = 0; k < count; k++) {
+                long hash = in.readLong();
+                int rows = in.readUnsignedShort();
+                int columns = in.readUnsignedShort();
+                //The labels alone take two bytes a cell, so a board larger than that cannot be in the file
+                if (rows < 1 || columns < 1 || 2L * rows * columns > size)
+                    throw new IOException("Corrupt solution cache, " + rows + "x" + columns + " board: " + path);
+                short[] labels = new short[rows * columns];
+                for (int cell = 0; cell < labels.length; cell++)
+                    labels[cell] = in.readShort();
+
+                int ordinal = in.readUnsignedByte();
+                if (ordinal >= SolveResult.Status.values().length)
+                    throw new IOException("Corrupt solution cache, status " + ordinal + ": " + path);
+                SolveResult.Status status = SolveResult.Status.values()[ordinal];
+                int[] counts = new int[Hint.Reason.values().length];
+                int techniques = in.readByte();
+                if (techniques != counts.length)
+                    throw new IOException("Solution cache written with other techniques: " + path);
+                for (int t = 0; t < techniques; t++)
+                    counts[t] = in.readInt();
+                int undecided = in.readInt();
+                long nodes = in.readLong();
+                long elapsed = in.readLong();
+                double score = in.readDouble();
+
+                long[] solution = null;
+                if (in.readByte() != 0) {
+                    solution = new long[(labels.length + 63) >>> 6];
+                    for (int w = 0; w < solution.length; w++)
+                        solution[w] = in.readLong();
+                }
+
+                Rating rating = new Rating(0, status, counts, undecided, nodes, elapsed, score);
+                Segment segment = segment(hash);
+                synchronized (segment) {
+                    segment.put(hash, new Entry(hash, rows, columns, labels, rating, solution));
+                }
+            }
+            return count;
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package hitori.solver;
+
+//What the solver found for one puzzle: how many solutions (up to the limit asked for), the first one,
+//and how much work it took
+public class SolveResult {
+
+    public enum Status {
+        //No shading satisfies every constraint
+        UNSOLVABLE,
+        //A solution was found, uniqueness was not checked
+        SOLVED,
+        //Exactly one solution
+        UNIQUE,
+        //More than one solution
+        MULTIPLE
+    }
+
+    private final Status status;
+    private final Solution solution;
+    private final int solutionCount;
+    private final long nodes;
+    private final long elapsedNanos;
+
+    SolveResult(Solution solution, int solutionCount, int limit, long nodes, long elapsedNanos) {
+        this.solution = solution;
+        this.solutionCount = solutionCount;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+
+        if (solutionCount == 0)
+            status = Status.UNSOLVABLE;
+        else if (solutionCount > 1)
+            status = Status.MULTIPLE;
+        else
+            status = limit > 1 ? Status.UNIQUE : Status.SOLVED;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the first solution found, or null if the puzzle is unsolvable
+     */
+    public Solution getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return the number of solutions found, never more than the solver's limit
+     */
+    public int getSolutionCount() {
+        return solutionCount;
+    }
+
+    /**
+     * @return the number of search nodes (branches tried) it took
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return status + " (" + solutionCount + " found, " + nodes + " nodes, "
+                + String.format("%.3f", elapsedNanos / 1e6) + " ms)";
+    }
+
+}
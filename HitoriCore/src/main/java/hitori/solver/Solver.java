@@ -0,0 +1,201 @@
+package hitori.solver;
+
+import hitori.Puzzle;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+//Solves a puzzle from its values alone, ignoring which cells are currently covered.
+//Logical deductions are applied first (see Board.applyPatterns and Board.propagate),
+//then the solver branches on the most constrained unknown cell, black before white.
+//Following the usual Hitori convention, a cell is only shaded to get rid of a duplicate:
+//a cell whose value appears on no other white cell of its row and column is always white.
+//With a parallelism above 1 the top of the search tree is split into fork/join tasks, each working on
+//its own copy of the board, and every task stops as soon as enough solutions have been found.
+//The worker threads are started by the first parallel solve and kept for the next ones until close() is called.
+public class Solver implements AutoCloseable {
+
+    //Branches below this depth are always searched sequentially by the task that reached them
+    private static final int MAX_SPLIT_DEPTH = 12;
+
+    private int solutionLimit = 2;
+    private int parallelism = 1;
+    private ForkJoinPool pool;
+
+    /**
+     * @param solutionLimit how many solutions to look for before stopping (1 to find any, 2 to check uniqueness)
+     */
+    public void setSolutionLimit(int solutionLimit) {
+        if (solutionLimit < 1)
+            throw new IllegalArgumentException("Solution limit must be at least 1");
+        this.solutionLimit = solutionLimit;
+    }
+
+    public int getSolutionLimit() {
+        return solutionLimit;
+    }
+
+    /**
+     * @param parallelism number of worker threads to search with, 1 to search on the calling thread
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+
+        if (parallelism != this.parallelism)
+            close();
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Stops the worker threads, if any were started; a later parallel solve starts new ones
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Solves the puzzle without changing it
+     * @param puzzle
+     * @return the outcome, with the first solution found if there is one
+     */
+    public SolveResult solve(Puzzle puzzle) {
+        return solve(new Board(puzzle));
+    }
+
+    SolveResult solve(Board board) {
+        long start = System.nanoTime();
+        Search search = new Search(solutionLimit);
+
+        if (board.applyPatterns()) {
+            if (parallelism > 1) {
+                if (pool == null)
+                    pool = new ForkJoinPool(parallelism);
+                pool.invoke(new SearchTask(search, board, 0));
+            } else {
+                search.run(board);
+            }
+        }
+
+        int solutions = Math.min(search.solutions.get(), solutionLimit);
+        return new SolveResult(search.first.get(), solutions, solutionLimit, search.nodes.sum(),
+                System.nanoTime() - start);
+    }
+
+    //State shared by every task of one solve: the solutions found so far and the work done
+    private static final class Search {
+
+        private final int limit;
+        private final AtomicInteger solutions = new AtomicInteger();
+        private final AtomicReference<Solution> first = new AtomicReference<>();
+        private final LongAdder nodes = new LongAdder();
+
+        private Search(int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * @return true once enough solutions have been found, so every task can give up
+         */
+        private boolean done() {
+            return solutions.get() >= limit;
+        }
+
+        private void found(Board board) {
+            if (solutions.incrementAndGet() == 1)
+                first.set(new Solution(board));
+        }
+
+        /**
+         * Depth first search over a propagated board, on the calling thread
+         */
+        private void run(Board board) {
+            if (done())
+                return;
+
+            nodes.increment();
+
+            int cell = board.pickBranchCell();
+            if (cell < 0) {
+                found(board);
+                return;
+            }
+
+            int mark = board.mark();
+
+            if (board.assign(cell, Board.BLACK) && board.propagate())
+                run(board);
+            board.undo(mark);
+
+            if (done())
+                return;
+
+            if (board.assign(cell, Board.WHITE) && board.propagate())
+                run(board);
+            board.undo(mark);
+        }
+    }
+
+    //One subtree of the search; near the root both branches become tasks of their own
+    private static final class SearchTask extends RecursiveAction {
+
+        private final Search search;
+        private final Board board;
+        private final int depth;
+
+        private SearchTask(Search search, Board board, int depth) {
+            this.search = search;
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            //Deep in the tree, or when the pool already has plenty of queued work, splitting only adds overhead
+            if (depth >= MAX_SPLIT_DEPTH || getSurplusQueuedTaskCount() > 2) {
+                search.run(board);
+                return;
+            }
+
+            if (search.done())
+                return;
+
+            search.nodes.increment();
+
+            int cell = board.pickBranchCell();
+            if (cell < 0) {
+                search.found(board);
+                return;
+            }
+
+            Board white = board.copy();
+            SearchTask black = null;
+            SearchTask other = null;
+
+            if (board.assign(cell, Board.BLACK) && board.propagate())
+                black = new SearchTask(search, board, depth + 1);
+
+            if (white.assign(cell, Board.WHITE) && white.propagate())
+                other = new SearchTask(search, white, depth + 1);
+
+            if (black != null && other != null)
+                invokeAll(black, other);
+            else if (black != null)
+                black.compute();
+            else if (other != null)
+                other.compute();
+        }
+    }
+
+}
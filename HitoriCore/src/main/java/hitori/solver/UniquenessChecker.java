@@ -0,0 +1,235 @@
+package hitori.solver;
+
+import hitori.Puzzle;
+import hitori.PuzzleParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+//Checks how many solutions puzzle files have, counting up to two so it can stop as soon as a second one turns up.
+//Every puzzle of a file is checked and gets its own verdict, numbered from 1 in the order of the file.
+//Files are streamed to a fixed pool of workers (one file per worker at a time, each with its own Solver)
+//and every verdict is handed on as soon as it is ready.
+//Usage: UniquenessChecker [--threads n] <file or directory>...
+public class UniquenessChecker {
+
+    private final int threads;
+    private final ThreadLocal<Solver> solvers = ThreadLocal.withInitial(Solver::new);
+
+    public UniquenessChecker() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads number of puzzles checked at the same time
+     */
+    public UniquenessChecker(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Threads must be at least 1");
+        this.threads = threads;
+    }
+
+    //Verdict for one puzzle of a file: the solve result, or the error that stopped it from loading
+    public static class Report {
+
+        private final Path path;
+        private final int number;
+        private final SolveResult result;
+        private final String error;
+        private final long loadNanos;
+
+        private Report(Path path, int number, SolveResult result, String error, long loadNanos) {
+            this.path = path;
+            this.number = number;
+            this.result = result;
+            this.error = error;
+            this.loadNanos = loadNanos;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        /**
+         * @return position of the puzzle in its file, from 1; for an error, the puzzle that could not be read
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * @return the solve result, or null if the file could not be loaded
+         */
+        public SolveResult getResult() {
+            return result;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getLoadNanos() {
+            return loadNanos;
+        }
+
+        public boolean isUnique() {
+            return result != null && result.getStatus() == SolveResult.Status.UNIQUE;
+        }
+
+        @Override
+        public String toString() {
+            if (result == null)
+                return path + "\t" + number + "\tERROR\t" + error;
+
+            return path + "\t" + number + "\t" + result.getStatus() + "\t" + String.format("%.3f", loadNanos / 1e6) + " ms load\t"
+                    + String.format("%.3f", result.getElapsedNanos() / 1e6) + " ms solve\t" + result.getNodes() + " nodes";
+        }
+    }
+
+    /**
+     * Loads and checks every puzzle of a single file on the calling thread
+     * @param path puzzle file in the format read by PuzzleParser
+     * @return one verdict per puzzle, in the order of the file
+     */
+    public List<Report> check(Path path) {
+        List<Report> reports = new ArrayList<>();
+        check(path, reports::add);
+        return reports;
+    }
+
+    /**
+     * Loads and checks every puzzle of a single file on the calling thread, one puzzle in memory at a time.
+     * Reading stops at the first puzzle that cannot be read, which gets an error report; a file without any
+     * puzzle gets one error report too.
+     * @param sink receives the verdict of each puzzle as soon as it is ready
+     */
+    public void check(Path path, Consumer<Report> sink) {
+        Solver solver = solvers.get();
+        solver.setSolutionLimit(2);
+        int number = 0; //Puzzle being read
+        long start = System.nanoTime();
+
+        try (PuzzleParser parser = new PuzzleParser(path)) {
+            while (true) {
+                number++;
+                Puzzle puzzle = parser.next();
+                if (puzzle == null)
+                    break;
+
+                long loaded = System.nanoTime();
+                Report report;
+                try {
+                    report = new Report(path, number, solver.solve(puzzle), null, loaded - start);
+                } catch (RuntimeException e) {
+                    report = new Report(path, number, null, e.toString(), loaded - start);
+                }
+                sink.accept(report);
+                start = System.nanoTime();
+            }
+
+            if (number == 1)
+                sink.accept(new Report(path, number, null, "No puzzle in file", System.nanoTime() - start));
+        } catch (IOException e) {
+            //Includes PuzzleFormatException, whose message says where the text went wrong
+            sink.accept(new Report(path, number, null, String.valueOf(e.getMessage()), System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Checks every puzzle of every file of the stream on the worker threads, blocking until all are done.
+     * At most a few files per worker are read ahead, so the stream can be as long as needed.
+     * @param files puzzle files to check
+     * @param sink receives the report of each puzzle as soon as it is ready, called from one thread at a time
+     */
+    public void checkAll(Stream<Path> files, Consumer<Report> sink) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Semaphore inFlight = new Semaphore(threads * 4);
+
+        try {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                inFlight.acquire();
+
+                executor.execute(() -> {
+                    try {
+                        check(path, report -> {
+                            synchronized (sink) {
+                                sink.accept(report);
+                            }
+                        });
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @param path a puzzle file, or a directory whose regular files (at any depth) are all puzzles
+     * @return the files to check, in a lazily walked stream
+     */
+    public static Stream<Path> puzzleFiles(Path path) throws IOException {
+        if (Files.isDirectory(path))
+            return Files.walk(path).filter(Files::isRegularFile);
+        return Stream.of(path);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        int first = 0;
+
+        if (args.length >= 2 && args[0].equals("--threads")) {
+            threads = Integer.parseInt(args[1]);
+            first = 2;
+        }
+
+        if (first >= args.length) {
+            System.err.println("Usage: UniquenessChecker [--threads n] <file or directory>...");
+            System.exit(1);
+        }
+
+        UniquenessChecker checker = new UniquenessChecker(threads);
+        Map<SolveResult.Status, Integer> counts = new EnumMap<>(SolveResult.Status.class);
+        int[] errors = new int[1];
+        long start = System.nanoTime();
+
+        for (int a = first; a < args.length; a++) {
+            try (Stream<Path> files = puzzleFiles(Paths.get(args[a]))) {
+                checker.checkAll(files, report -> {
+                    System.out.println(report);
+                    if (report.getResult() == null)
+                        errors[0]++;
+                    else
+                        counts.merge(report.getResult().getStatus(), 1, Integer::sum);
+                });
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int total = errors[0];
+        for (int count : counts.values())
+            total += count;
+
+        System.err.println(total + " puzzles in " + String.format("%.2f", seconds) + " s: " + counts + ", " + errors[0]
+                + " errors");
+    }
+
+}
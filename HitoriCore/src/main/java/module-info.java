@@ -0,0 +1,10 @@
+//Puzzle logic, file formats, solver, generator, session manager and move replay, with no dependency on JavaFX
+module hitori.core {
+    requires java.management;
+
+    exports hitori;
+    exports hitori.solver;
+    exports hitori.generator;
+    exports hitori.server;
+    exports hitori.replay;
+}
@@ -0,0 +1,131 @@
+package hitori;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardStateTest {
+
+    private static int[][] randomValues(int size, Random random) {
+        int[][] values = new int[size][size];
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                values[i][j] = random.nextInt(size) + 1;
+        return values;
+    }
+
+    private static void assertSameBoard(Puzzle puzzle, BoardState state) {
+        int size = puzzle.getSize();
+        assertEquals(size, state.getSize());
+        assertEquals(puzzle.getCoveredCount(), state.getCoveredCount());
+        assertEquals(puzzle.getDuplicateCount(), state.getDuplicateCount());
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                assertEquals(puzzle.getValue(i, j), state.getValue(i, j));
+                assertEquals(puzzle.isCovered(i, j), state.isCovered(i, j));
+            }
+        }
+    }
+
+    /**
+     * Rule checks on a state agree with the mutable puzzle after every move, and earlier states never change
+     */
+    @Test
+    void testMatchesPuzzle() {
+        Random random = new Random(13);
+        int size = 70; //More than 64 words, so the trie has an inner level
+        Puzzle puzzle = new Puzzle(randomValues(size, random));
+        BoardState state = puzzle.snapshot();
+        List<BoardState> history = new ArrayList<>();
+        List<BoardState> expected = new ArrayList<>();
+
+        for (int move = 0; move < 3000; move++) {
+            int i = random.nextInt(size);
+            int j = random.nextInt(size);
+
+            if (puzzle.isCovered(i, j)) {
+                puzzle.reactivate(i, j);
+                state = state.withUncovered(i, j);
+            } else {
+                boolean allowed = state.canCover(i, j);
+                assertEquals(puzzle.tryEliminate(i, j) == 0, allowed);
+                if (allowed)
+                    state = state.withCovered(i, j);
+            }
+
+            assertTrue(state.hasNoAdjacentCovered());
+            assertTrue(state.isConnected());
+
+            if (move % 300 == 0) {
+                assertSameBoard(puzzle, state);
+                history.add(state);
+                expected.add(puzzle.snapshot());
+            }
+        }
+
+        for (int k = 0; k < history.size(); k++)
+            assertSameBoard(expected.get(k).toPuzzle(), history.get(k));
+
+        //Packed boards, from a puzzle or a state, come back as the same board and keep playing the same way
+        assertSameBoard(puzzle, puzzle.pack().toBoardState());
+        assertSameBoard(puzzle, state.pack().toBoardState());
+        Puzzle unpacked = puzzle.pack().toPuzzle();
+        assertSameBoard(unpacked, state);
+        for (int i = 0; i < size; i++)
+            for (int j = 0; j < size; j++)
+                if (!unpacked.isCovered(i, j))
+                    assertEquals(puzzle.tryEliminate(i, j), unpacked.tryEliminate(i, j));
+        assertSameBoard(unpacked, puzzle.snapshot());
+
+        //Unchecked moves may break the rules, which the state then reports
+        BoardState free = BoardState.of(new int[][]{{1, 1, 2}, {2, 3, 1}, {3, 2, 1}});
+        BoardState broken = free.withCovered(0, 0).withCovered(0, 1);
+        assertFalse(broken.hasNoAdjacentCovered());
+        assertTrue(broken.withUncovered(0, 1).hasNoAdjacentCovered());
+        assertFalse(free.withCovered(0, 1).withCovered(1, 0).isConnected());
+        assertTrue(free.withCovered(0, 1).withCovered(2, 2).isSolved());
+        assertFalse(free.isSolved());
+    }
+
+    /**
+     * Threads exploring variations of one shared state each see only their own changes
+     */
+    @Test
+    void testSharedAcrossThreads() throws Exception {
+        Random random = new Random(7);
+        int size = 40;
+        BoardState start = BoardState.of(randomValues(size, random));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<BoardState>> results = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            int row = t * 4;
+            results.add(executor.submit(() -> {
+                BoardState state = start;
+                for (int j = 0; j < size; j += 2) {
+                    if (state.canCover(row, j))
+                        state = state.withCovered(row, j);
+                }
+                return state;
+            }));
+        }
+
+        for (int t = 0; t < 8; t++) {
+            BoardState state = results.get(t).get();
+            for (int i = 0; i < size; i++)
+                for (int j = 0; j < size; j++)
+                    assertEquals(i == t * 4 && j % 2 == 0, state.isCovered(i, j));
+        }
+        executor.shutdown();
+
+        assertEquals(0, start.getCoveredCount());
+    }
+
+}
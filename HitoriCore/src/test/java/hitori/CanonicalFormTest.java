@@ -0,0 +1,119 @@
+package hitori;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanonicalFormTest {
+
+    private static int[] randomValues(Random random, int cells, int range) {
+        int[] values = new int[cells];
+        for (int cell = 0; cell < cells; cell++)
+            values[cell] = 1 + random.nextInt(range);
+        return values;
+    }
+
+    private static Puzzle puzzle(int[] values, int rows, int columns) {
+        int[][] grid = new int[rows][columns];
+        for (int cell = 0; cell < values.length; cell++)
+            grid[cell / columns][cell % columns] = values[cell];
+        return new Puzzle(grid);
+    }
+
+    /**
+     * Renames the values 1..range by a random permutation
+     */
+    private static int[] relabel(Random random, int[] values, int range) {
+        int[] names = new int[range + 1];
+        for (int v = 1; v <= range; v++)
+            names[v] = v;
+        for (int v = range; v > 1; v--) {
+            int w = 1 + random.nextInt(v);
+            int swap = names[v];
+            names[v] = names[w];
+            names[w] = swap;
+        }
+
+        int[] renamed = new int[values.length];
+        for (int cell = 0; cell < values.length; cell++)
+            renamed[cell] = names[values[cell]] + 100;
+        return renamed;
+    }
+
+    /**
+     * Every rotation and reflection of a board, with its values renamed, has the same canonical form,
+     * and the symmetry it reports turns the original into it
+     */
+    @Test
+    void testInvariant() {
+        Random random = new Random(11);
+
+        for (int[] shape : new int[][]{{6, 6}, {1, 1}, {4, 7}, {9, 9}}) {
+            int rows = shape[0];
+            int columns = shape[1];
+            for (int k = 0; k < 20; k++) {
+                int range = 1 + random.nextInt(rows + 1);
+                int[] values = randomValues(random, rows * columns, range);
+                CanonicalForm form = CanonicalForm.of(puzzle(values, rows, columns));
+
+                for (Symmetry symmetry : Symmetry.of(rows, columns)) {
+                    int[] turned = relabel(random, symmetry.apply(values, rows, columns), range);
+                    int newRows = symmetry.swapsSides() ? columns : rows;
+                    int newColumns = symmetry.swapsSides() ? rows : columns;
+                    Puzzle copy = puzzle(turned, newRows, newColumns);
+                    CanonicalForm other = CanonicalForm.of(copy);
+
+                    assertEquals(form, other);
+                    assertEquals(form.hash64(), other.hash64());
+
+                    //Cells with equal labels hold equal values of the copy, and the other way round
+                    Symmetry back = other.getSymmetry();
+                    for (int a = 0; a < turned.length; a++) {
+                        for (int b = a + 1; b < turned.length; b += 7) {
+                            int sa = back.source(a / other.getColumns(), a % other.getColumns(), newRows, newColumns);
+                            int sb = back.source(b / other.getColumns(), b % other.getColumns(), newRows, newColumns);
+                            assertEquals(turned[sa] == turned[sb], other.getLabel(a / other.getColumns(),
+                                    a % other.getColumns()) == other.getLabel(b / other.getColumns(),
+                                    b % other.getColumns()));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testLabels() {
+        //Readings that meet both 7s second and third give 1 2 2 3, smaller than the 1 2 3 1 of the others
+        CanonicalForm form = CanonicalForm.of(new Puzzle(new int[][]{{5, 7}, {7, 9}}));
+        assertEquals(3, form.getValueCount());
+        assertEquals(1, form.getLabel(0, 0));
+        assertEquals(2, form.getLabel(0, 1));
+        assertEquals(2, form.getLabel(1, 0));
+        assertEquals(3, form.getLabel(1, 1));
+
+        Puzzle puzzle = form.toPuzzle();
+        assertEquals(3, puzzle.getValue(1, 1));
+        assertEquals(form, CanonicalForm.of(puzzle));
+    }
+
+    /**
+     * Boards that are not the same puzzle keep different forms
+     */
+    @Test
+    void testDistinct() {
+        CanonicalForm a = CanonicalForm.of(new Puzzle(new int[][]{{1, 1, 2}, {2, 3, 1}, {3, 2, 1}}));
+        CanonicalForm b = CanonicalForm.of(new Puzzle(new int[][]{{1, 1, 2}, {2, 3, 1}, {3, 2, 2}}));
+        CanonicalForm c = CanonicalForm.of(new Puzzle(new int[][]{{1, 2, 3}}));
+        CanonicalForm d = CanonicalForm.of(new Puzzle(new int[][]{{1}, {2}, {3}}));
+
+        assertNotEquals(a, b);
+        assertNotEquals(a.hash64(), b.hash64());
+        assertNotEquals(c, d); //A row and a column only match on square boards
+        assertEquals(1, c.getRows());
+        assertEquals(3, d.getRows());
+    }
+
+}
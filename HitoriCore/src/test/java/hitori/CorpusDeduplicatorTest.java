@@ -0,0 +1,101 @@
+package hitori;
+
+import hitori.solver.Solution;
+import hitori.solver.Solver;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorpusDeduplicatorTest {
+
+    /**
+     * The default puzzle turned by a symmetry, with every value moved up by the offset
+     */
+    private static Puzzle turned(Symmetry symmetry, int offset) {
+        Puzzle puzzle = new Puzzle();
+        int[] flat = new int[64];
+        for (int cell = 0; cell < 64; cell++)
+            flat[cell] = puzzle.getValue(cell / 8, cell % 8);
+        flat = symmetry.apply(flat, 8, 8);
+
+        int[][] grid = new int[8][8];
+        for (int cell = 0; cell < 64; cell++)
+            grid[cell / 8][cell % 8] = flat[cell] + offset;
+        return new Puzzle(grid);
+    }
+
+    @Test
+    void testAdd() {
+        CorpusDeduplicator deduplicator = new CorpusDeduplicator();
+        assertTrue(deduplicator.add(new Puzzle()));
+        for (Symmetry symmetry : Symmetry.values())
+            assertFalse(deduplicator.add(turned(symmetry, 10)), symmetry.toString());
+        assertTrue(deduplicator.add(new Puzzle(new int[][]{{1, 2}, {2, 1}})));
+        assertFalse(deduplicator.add(new Puzzle(new int[][]{{2, 1}, {1, 2}})));
+
+        assertEquals(11, deduplicator.getRead());
+        assertEquals(2, deduplicator.getUnique());
+    }
+
+    /**
+     * Duplicates are dropped from a corpus, the first of each kind is kept with its solution,
+     * and in canonical form the solution is turned with the board
+     */
+    @Test
+    void testCorpus() throws Exception {
+        Path input = Files.createTempFile("hitori", ".htrc");
+        Path output = Files.createTempFile("hitori", ".htrc");
+        Path text = Files.createTempFile("hitori", ".txt");
+
+        Solution solution = new Solver().solve(new Puzzle()).getSolution();
+        Puzzle other = new Puzzle(new int[][]{{1, 1, 2}, {2, 3, 1}, {3, 2, 1}});
+
+        try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(input)) {
+            writer.add(new Puzzle(), solution.toBitSet());
+            writer.add(other);
+            for (Symmetry symmetry : Symmetry.values())
+                writer.add(turned(symmetry, symmetry.ordinal()));
+            writer.add(new Puzzle(new int[][]{{7, 7, 2}, {2, 3, 7}, {3, 2, 7}}));
+        }
+
+        CorpusDeduplicator deduplicator = new CorpusDeduplicator();
+        deduplicator.deduplicate(input, output, true);
+        assertEquals(11, deduplicator.getRead());
+        assertEquals(2, deduplicator.getUnique());
+
+        try (PuzzleCorpus corpus = new PuzzleCorpus(output)) {
+            assertEquals(2, corpus.size());
+            Puzzle canonical = corpus.get(0);
+            assertEquals(CanonicalForm.of(new Puzzle()), CanonicalForm.of(canonical));
+
+            BitSet shading = corpus.getSolution(0);
+            for (int cell = shading.nextSetBit(0); cell >= 0; cell = shading.nextSetBit(cell + 1))
+                assertEquals(0, canonical.tryEliminate(cell / 8, cell % 8));
+            assertTrue(canonical.isGameOver());
+            assertFalse(corpus.hasSolution(1));
+        }
+
+        CorpusDeduplicator again = new CorpusDeduplicator();
+        again.deduplicate(input, text, false);
+        try (PuzzleParser parser = new PuzzleParser(text)) {
+            Puzzle first = parser.next();
+            assertEquals(4, first.getValue(0, 0));
+            assertEquals(1, parser.next().getValue(0, 0));
+            assertNull(parser.next());
+        }
+
+        //A text corpus in, the same puzzles out
+        CorpusDeduplicator fromText = new CorpusDeduplicator();
+        fromText.deduplicate(text, output, false);
+        assertEquals(2, fromText.getUnique());
+
+        Files.delete(input);
+        Files.delete(output);
+        Files.delete(text);
+    }
+
+}
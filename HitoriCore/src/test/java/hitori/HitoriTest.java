@@ -0,0 +1,534 @@
+package hitori;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Random;
+
+class HitoriTest {
+
+
+    /**
+     * Junit test for constraint two, eliminating cells next to chosen cell to make sure it doesn't work, returns false
+     * If the actual result of the code returns true then test fails
+     */
+    @Test
+    void testConstraint2() {
+        Puzzle puzzle = new Puzzle();
+
+        //Random number is chosen to choose the location of the cell chosen
+        Random random = new Random();
+        int i = random.nextInt(puzzle.getSize() - 1);
+        int j = random.nextInt(puzzle.getSize() - 1);
+
+        //Making sure position is valid and then eliminating (covering)
+        if (puzzle.isValidPosition(i, j))
+            puzzle.eliminate(i, j);
+
+        Cell cell = puzzle.getCells(i, j);
+
+        //Testing cells next to chosen cell to check whether they can be covered
+        if (cell.isCovered()) { //First test for Constraint 2
+            //Black out cells next to each other on that row
+            if (puzzle.isValidPosition(i - 1, j)) {
+                puzzle.eliminate(i - 1, j);
+                Cell cellL = puzzle.getCells(i - 1, j);
+                if (cellL.isCovered())
+                    Assertions.assertFalse(false,
+                            "Two covered cells cannot be next to each other in a row...");
+            } else {
+                puzzle.eliminate(i + 1, j);
+                Cell cellR = puzzle.getCells(i + 1, j);
+                if (cellR.isCovered())
+                    Assertions.assertFalse(false,
+                            "Two covered cells cannot be next to each other in a row...");
+            }
+
+            if (puzzle.isValidPosition(i, j - 1)) {//Second test for Constraint 2
+                //Black out cells next to each out on that column
+                puzzle.eliminate(i, j - 1);
+                Cell cellUp = puzzle.getCells(i, j - 1);
+                if (cellUp.isCovered())
+                    Assertions.assertFalse(false,
+                            "Two covered cells cannot be next to each other in a column...");
+            } else {
+                puzzle.eliminate(i, j + 1);
+                Cell cellDown = puzzle.getCells(i, j + 1);
+                if (cellDown.isCovered())
+                    Assertions.assertFalse(false,
+                            "Two covered cells cannot be next to each other in a column...");
+            }
+
+        }
+    }
+
+
+    /**
+     * First test for Constraint 3, blacks out cells diagonally across the puzzle (0,0 to 7,7)
+     *
+     * @param puzzle
+     */
+    public void testCells1(Puzzle puzzle) {
+        for (int i = 0; i < puzzle.getSize(); i++) {
+            puzzle.eliminate(i, i);
+        }
+    }
+
+    /**
+     * Second test for Constraint 3, black out cells around chosen cell (excluding)
+     * This should separate chosen cell from rest of cells on puzzle
+     *
+     * @param puzzle
+     * @param i      index row
+     * @param j      index column
+     */
+    public void testCells2(Puzzle puzzle, int i, int j) {
+        if (!puzzle.getCells(i, j).isCovered())
+            if (puzzle.isValidPosition(i - 1, j) && puzzle.isValidPosition(i + 1, j) && puzzle.isValidPosition(i, j - 1)
+                    && puzzle.isValidPosition(i, j + 1)) {
+                puzzle.eliminate(i - 1, j);
+                puzzle.eliminate(i + 1, j);
+                puzzle.eliminate(i, j - 1);
+                puzzle.eliminate(i, j + 1);
+            } else
+                System.out.println("Error: Not an appropriate position to initiate test 2 for Constraint 3");
+
+    }
+
+    /**
+     * Junit Test for Constraint 3. Random integers generated to form index. First test conducted (diagonal)
+     * then the index received by random used for second test
+     * Both tests should fail (return false)
+     */
+    @Test
+    void testConstraint3() {
+        Puzzle puzzle = new Puzzle();
+
+        Random random = new Random();
+        int i = random.nextInt(((puzzle.getSize() - 1) - 1) + 1) + 1;
+        int j = random.nextInt(((puzzle.getSize() - 1) - 1) + 1) + 1;
+
+        testCells1(puzzle);
+        if (puzzle.getCells(7, 7).isCovered())
+            Assertions.assertFalse(false,
+                    "All white cells must be linked and cannot be closed off from each other...");
+        if (puzzle.getCells(i, j).isCovered())
+            puzzle.getCells(i, j).uncover();
+        testCells2(puzzle, i, j);
+        if ((puzzle.getCells(i - 1, j).isCovered() && puzzle.getCells(i + 1, j).isCovered() &&
+                puzzle.getCells(i, j - 1).isCovered() && puzzle.getCells(i, j + 1).isCovered())) {
+            Assertions.assertFalse(false, "No white cell can be separated from others...");
+        }
+
+    }
+
+    /**
+     * Testing win detection
+     */
+    @Test
+    void testWin() {
+        Puzzle puzzle = new Puzzle();
+        HashSet<Integer> set = new HashSet<>();
+
+        for (int i=0;i< puzzle.getSize();i++) {
+            set.clear();
+            for (int j = 0; j < puzzle.getSize(); j++) {
+                if (set.contains(puzzle.getCells(i,j).getValue()))
+                    puzzle.getCells(i, j).cover();
+                else
+                    set.add(puzzle.getCells(i,j).getValue());
+            }
+
+        }
+
+        for (int j=0;j< puzzle.getSize();j++) {
+            set.clear();
+            for (int i = 0; i < puzzle.getSize(); i++) {
+                if (set.contains(puzzle.getCells(i,j).getValue()))
+                    puzzle.getCells(i, j).cover();
+                else
+                    set.add(puzzle.getCells(i,j).getValue());
+            }
+        }
+
+        if(puzzle.isGameOver())
+            assertTrue(true, "Recognition that game is finished");
+    }
+
+
+    /**
+     * Counts the white cells reachable from the first white cell, used as a reference for constraint 3
+     * @param puzzle
+     * @return true if every white cell is linked to the others
+     */
+    private boolean whiteCellsConnected(Puzzle puzzle) {
+        int rows = puzzle.getRows();
+        int columns = puzzle.getColumns();
+        boolean[][] seen = new boolean[rows][columns];
+        java.util.ArrayDeque<int[]> stack = new java.util.ArrayDeque<>();
+        int white = 0;
+
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                if (!puzzle.getCells(i, j).isCovered()) {
+                    white++;
+                    if (stack.isEmpty() && !seen[i][j]) {
+                        seen[i][j] = true;
+                        stack.push(new int[]{i, j});
+                    }
+                }
+
+        int reached = 0;
+        while (!stack.isEmpty()) {
+            int[] p = stack.pop();
+            reached++;
+            int[][] next = {{p[0] - 1, p[1]}, {p[0] + 1, p[1]}, {p[0], p[1] - 1}, {p[0], p[1] + 1}};
+            for (int[] n : next) {
+                if (puzzle.isValidPosition(n[0], n[1]) && !seen[n[0]][n[1]] && !puzzle.getCells(n[0], n[1]).isCovered()) {
+                    seen[n[0]][n[1]] = true;
+                    stack.push(n);
+                }
+            }
+        }
+
+        return reached == white;
+    }
+
+    /**
+     * Random sequences of moves, checking that every accepted elimination leaves the white cells linked
+     * and every rejection for constraint 3 would really have cut some of them off
+     */
+    @Test
+    void testIncrementalConstraint3() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+            Puzzle puzzle = new Puzzle();
+
+            for (int move = 0; move < 60; move++) {
+                int i = random.nextInt(puzzle.getSize());
+                int j = random.nextInt(puzzle.getSize());
+
+                if (random.nextInt(4) == 0) {
+                    puzzle.reactivate(i, j);
+                    continue;
+                }
+
+                boolean wasCovered = puzzle.getCells(i, j).isCovered();
+                int result = puzzle.eliminate(i, j);
+
+                if (result == 0) {
+                    assertTrue(whiteCellsConnected(puzzle), "Accepted move must keep white cells linked");
+                    assertTrue(puzzle.isConnected());
+                } else if (result == 3 && !wasCovered) {
+                    puzzle.getCells(i, j).cover();
+                    assertFalse(whiteCellsConnected(puzzle), "Rejected move must cut white cells off");
+                    assertFalse(puzzle.isConnected());
+                    puzzle.getCells(i, j).uncover();
+                }
+            }
+        }
+    }
+
+    /**
+     * The same on boards narrower and wider than one 64 bit word, with cells also covered directly now and then
+     * so that some moves have to check the whole board
+     */
+    @Test
+    void testConstraint3Shapes() {
+        Random random = new Random(8);
+
+        for (int[] shape : new int[][]{{1, 20}, {20, 1}, {3, 70}, {70, 3}, {12, 64}, {9, 65}, {30, 30}}) {
+            int rows = shape[0];
+            int columns = shape[1];
+
+            for (int round = 0; round < 20; round++) {
+                int[][] values = new int[rows][columns];
+                for (int[] row : values)
+                    for (int j = 0; j < columns; j++)
+                        row[j] = 1 + random.nextInt(Math.max(rows, columns));
+                Puzzle puzzle = new Puzzle(values);
+
+                for (int move = 0; move < rows * columns / 2; move++) {
+                    int i = random.nextInt(rows);
+                    int j = random.nextInt(columns);
+                    int kind = random.nextInt(20);
+
+                    if (kind < 4) {
+                        puzzle.reactivate(i, j);
+                    } else if (kind == 4) {
+                        puzzle.getCells(i, j).cover();
+                    } else {
+                        boolean wasCovered = puzzle.isCovered(i, j);
+                        int result = puzzle.tryEliminate(i, j);
+
+                        if (result == 0) {
+                            assertTrue(whiteCellsConnected(puzzle), rows + "x" + columns);
+                        } else if (result == 3 && !wasCovered) {
+                            puzzle.getCells(i, j).cover();
+                            assertFalse(whiteCellsConnected(puzzle), rows + "x" + columns);
+                            puzzle.getCells(i, j).uncover();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Constraint 3 on a 1000x1000 board has to work on a thread with a 512 KB stack
+     */
+    @Test
+    void testConstraint3LargeBoard() throws Exception {
+        int size = 1000;
+        java.io.File file = java.io.File.createTempFile("hitori", ".txt");
+        file.deleteOnExit();
+
+        try (java.io.PrintWriter writer = new java.io.PrintWriter(file)) {
+            for (int i = 0; i < size; i++) {
+                StringBuilder line = new StringBuilder();
+                for (int j = 0; j < size; j++) {
+                    if (j > 0)
+                        line.append(' ');
+                    line.append((i + j) % size + 1);
+                }
+                writer.println(line);
+            }
+        }
+
+        Puzzle puzzle = new Puzzle(file);
+        int[] results = new int[2];
+
+        Thread thread = new Thread(null, () -> {
+            //Covering a cell directly means the next move has to check the whole board
+            puzzle.getCells(0, 0).cover();
+            results[0] = puzzle.eliminate(size / 2, size / 2);
+            //Sealing off the corner cell (0, 1) is illegal
+            puzzle.getCells(0, 2).cover();
+            results[1] = puzzle.eliminate(1, 1);
+        }, "small-stack", 512 * 1024);
+        thread.start();
+        thread.join();
+
+        assertEquals(0, results[0]);
+        assertEquals(3, results[1]);
+    }
+
+    /**
+     * Win detection has to agree with a full scan of every row and column after any sequence of changes
+     */
+    @Test
+    void testWinAfterRandomChanges() {
+        Random random = new Random(7);
+        Puzzle puzzle = new Puzzle();
+        HashSet<Integer> set = new HashSet<>();
+
+        for (int move = 0; move < 5000; move++) {
+            int i = random.nextInt(puzzle.getSize());
+            int j = random.nextInt(puzzle.getSize());
+
+            if (random.nextBoolean())
+                puzzle.getCells(i, j).cover();
+            else
+                puzzle.getCells(i, j).uncover();
+
+            if (move % 500 == 0)
+                puzzle.reset();
+
+            boolean expected = true;
+            for (int a = 0; a < puzzle.getSize(); a++) {
+                set.clear();
+                for (int b = 0; b < puzzle.getSize(); b++)
+                    if (!puzzle.getCells(a, b).isCovered() && !set.add(puzzle.getCells(a, b).getValue()))
+                        expected = false;
+                set.clear();
+                for (int b = 0; b < puzzle.getSize(); b++)
+                    if (!puzzle.getCells(b, a).isCovered() && !set.add(puzzle.getCells(b, a).getValue()))
+                        expected = false;
+            }
+
+            assertEquals(expected, puzzle.isGameOver());
+        }
+    }
+
+    /**
+     * Jumping around the move journal gives back exactly the board seen at that move,
+     * and the checks still agree with a board that got there directly
+     */
+    @Test
+    void testUndoRedo() {
+        Random random = new Random(3);
+        Puzzle puzzle = new Puzzle();
+        int size = puzzle.getSize();
+        java.util.List<boolean[]> states = new java.util.ArrayList<>();
+        states.add(new boolean[size * size]);
+
+        for (int move = 0; move < 200; move++) {
+            int i = random.nextInt(size);
+            int j = random.nextInt(size);
+            int before = puzzle.getMoveCount();
+
+            if (random.nextInt(3) == 0)
+                puzzle.reactivate(i, j);
+            else
+                puzzle.tryEliminate(i, j);
+
+            if (puzzle.getMoveCount() > before) {
+                boolean[] state = new boolean[size * size];
+                for (int cell = 0; cell < state.length; cell++)
+                    state[cell] = puzzle.isCovered(cell / size, cell % size);
+                states.add(state);
+            }
+        }
+
+        assertEquals(states.size() - 1, puzzle.getJournalSize());
+
+        for (int jump = 0; jump < 100; jump++) {
+            int target = random.nextInt(states.size());
+            puzzle.jumpTo(target);
+
+            Puzzle direct = new Puzzle();
+            for (int cell = 0; cell < size * size; cell++) {
+                assertEquals(states.get(target)[cell], puzzle.isCovered(cell / size, cell % size));
+                if (states.get(target)[cell])
+                    direct.getCells(cell / size, cell % size).cover();
+            }
+            assertEquals(direct.isGameOver(), puzzle.isGameOver());
+
+            //A new move drops the moves that had been undone
+            int i = random.nextInt(size);
+            int j = random.nextInt(size);
+            assertEquals(direct.tryEliminate(i, j), puzzle.tryEliminate(i, j));
+            if (puzzle.getMoveCount() > target) {
+                boolean[] state = new boolean[size * size];
+                for (int cell = 0; cell < state.length; cell++)
+                    state[cell] = puzzle.isCovered(cell / size, cell % size);
+
+                puzzle.undo();
+                assertEquals(target + 1, puzzle.getJournalSize());
+                states = new java.util.ArrayList<>(states.subList(0, target + 1));
+                states.add(state);
+            }
+        }
+    }
+
+    /**
+     * A bounded journal forgets the oldest moves but undoes the ones it kept exactly, and a limit of 0 records nothing
+     */
+    @Test
+    void testJournalLimit() {
+        Puzzle puzzle = new Puzzle();
+        int size = puzzle.getSize();
+        puzzle.setJournalLimit(8);
+
+        //Cover and uncover the first cell over and over, then cover a second one
+        for (int k = 0; k < 1000; k++) {
+            assertEquals(0, puzzle.tryEliminate(0, 0));
+            puzzle.reactivate(0, 0);
+            assertTrue(puzzle.getJournalSize() <= 8);
+        }
+        assertEquals(0, puzzle.tryEliminate(2, 2));
+
+        int kept = puzzle.getMoveCount();
+        for (int k = 0; k < kept; k++)
+            assertTrue(puzzle.undo());
+        assertFalse(puzzle.undo());
+        assertEquals(0, puzzle.getCoveredCount());
+        puzzle.jumpTo(kept);
+        assertTrue(puzzle.isCovered(2, 2));
+
+        puzzle.setJournalLimit(2);
+        assertEquals(2, puzzle.getJournalSize());
+        puzzle.clearJournal();
+        assertFalse(puzzle.undo());
+        assertTrue(puzzle.isCovered(2, 2));
+
+        puzzle.setJournalLimit(0);
+        for (int cell = 0; cell < size * size; cell++)
+            puzzle.tryEliminate(cell / size, cell % size);
+        assertEquals(0, puzzle.getJournalSize());
+        assertFalse(puzzle.undo());
+        assertThrows(IllegalArgumentException.class, () -> puzzle.setJournalLimit(-1));
+    }
+
+    /**
+     * The rules hold on a grid with more columns than rows: a wall of black cells down the middle splits it,
+     * and cells take a byte each unless the board has more than 256 different values
+     */
+    @Test
+    void testRectangular() {
+        Puzzle puzzle = new Puzzle(new int[][]{{1, 2, 1, 3, 4, 5, 6},
+                                               {2, 1, 3, 4, 5, 6, 7},
+                                               {3, 4, 5, 1, 6, 7, 8}});
+        assertEquals(3, puzzle.getRows());
+        assertEquals(7, puzzle.getColumns());
+        assertEquals(1, puzzle.values().width());
+        assertFalse(puzzle.isGameOver());
+
+        assertEquals(0, puzzle.tryEliminate(0, 3));
+        assertEquals(2, puzzle.tryEliminate(0, 4));
+        assertEquals(0, puzzle.tryEliminate(2, 3));
+        assertEquals(3, puzzle.tryEliminate(1, 2));
+        assertEquals(2, puzzle.tryEliminate(1, 3));
+        assertEquals(0, puzzle.tryEliminate(0, 0));
+        assertTrue(puzzle.isGameOver());
+        assertTrue(puzzle.snapshot().isSolved());
+
+        BoardState state = puzzle.snapshot();
+        assertEquals(7, state.getColumns());
+        assertTrue(state.isCovered(2, 3));
+        assertFalse(state.canCover(1, 4));
+        assertTrue(state.canCover(1, 6));
+
+        puzzle.undo();
+        assertFalse(puzzle.isGameOver());
+        assertEquals(2, puzzle.snapshot().getCoveredCount());
+
+        Puzzle large = new Puzzle(new int[][]{{1, 30000}, {2, 1}, {1, 2}});
+        assertEquals(1, large.values().width());
+        assertEquals(3, large.values().distinct());
+        assertEquals(30000, large.getValue(0, 1));
+        assertEquals(1, large.getValue(1, 1));
+
+        int[][] many = new int[1][300];
+        for (int j = 0; j < 300; j++)
+            many[0][j] = 1000 + 7 * j;
+        Puzzle wide = new Puzzle(many);
+        assertEquals(2, wide.values().width());
+        assertEquals(300, wide.values().distinct());
+        assertEquals(1000 + 7 * 299, wide.getValue(0, 299));
+        assertTrue(wide.snapshot().isSolved());
+
+        int[][] huge = new int[2][40000];
+        for (int j = 0; j < 40000; j++) {
+            huge[0][j] = -j;
+            huge[1][j] = 1 << 20 | j;
+        }
+        Puzzle distinct = new Puzzle(huge);
+        assertEquals(4, distinct.values().width());
+        assertEquals(80000, distinct.values().distinct());
+        assertEquals(-39999, distinct.getValue(0, 39999));
+        assertEquals(1 << 20 | 39999, distinct.getValue(1, 39999));
+        assertTrue(distinct.isGameOver());
+        assertEquals(0, distinct.tryEliminate(0, 0));
+        assertEquals(2, distinct.tryEliminate(1, 0));
+        distinct.reset();
+        assertTrue(distinct.isGameOver());
+
+        //Counters found through slots still see a value repeated in a line
+        int[][] repeated = new int[2][200];
+        for (int j = 0; j < 200; j++) {
+            repeated[0][j] = j;
+            repeated[1][j] = 1000 + j;
+        }
+        repeated[1][5] = 1007;
+        Puzzle slotted = new Puzzle(repeated);
+        assertFalse(slotted.isGameOver());
+        assertEquals(1, slotted.getDuplicateCount());
+        assertEquals(0, slotted.tryEliminate(1, 5));
+        assertTrue(slotted.isGameOver());
+    }
+
+}
@@ -0,0 +1,110 @@
+package hitori;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleCorpusTest {
+
+    private static void assertSameValues(Puzzle expected, Puzzle actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getColumns(), actual.getColumns());
+        for (int i = 0; i < expected.getRows(); i++)
+            for (int j = 0; j < expected.getColumns(); j++)
+                assertEquals(expected.getValue(i, j), actual.getValue(i, j));
+    }
+
+    /**
+     * Puzzles of different sizes and value widths come back as written, in any order
+     */
+    @Test
+    void testRoundTrip() throws Exception {
+        Path file = Files.createTempFile("hitori", ".htrc");
+        Puzzle small = new Puzzle(new int[][]{{1, 1}, {2, 3}});
+        Puzzle wide = new Puzzle(new int[][]{{300, 1, 2}, {2, 300, 1}, {1, 2, 3000}});
+        Puzzle rectangle = new Puzzle(new int[][]{{1, 2, 1, 4, 5}, {2, 3, 4, 5, 1}});
+        Puzzle large = new Puzzle(new int[][]{{100000, -5}, {Integer.MIN_VALUE, Integer.MAX_VALUE}});
+        BitSet solution = new BitSet();
+        solution.set(1);
+        BitSet rectangleSolution = new BitSet();
+        rectangleSolution.set(2);
+
+        try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(file)) {
+            for (int k = 0; k < 1000; k++)
+                writer.add(new Puzzle());
+            writer.add(small, solution);
+            writer.add(wide);
+            writer.add(rectangle, rectangleSolution);
+            writer.add(large);
+        }
+
+        try (PuzzleCorpus corpus = new PuzzleCorpus(file)) {
+            assertEquals(1004, corpus.size());
+            assertSameValues(large, corpus.get(1003));
+            assertSameValues(rectangle, corpus.get(1002));
+            assertEquals(rectangleSolution, corpus.getSolution(1002));
+            assertEquals(2, corpus.getRows(1002));
+            assertEquals(5, corpus.getColumns(1002));
+            assertThrows(IllegalStateException.class, () -> corpus.getSize(1002));
+            assertSameValues(wide, corpus.get(1001));
+            assertSameValues(small, corpus.get(1000));
+            assertSameValues(new Puzzle(), corpus.get(500));
+            assertEquals(solution, corpus.getSolution(1000));
+            assertNull(corpus.getSolution(1001));
+            assertEquals(3, corpus.getSize(1001));
+        }
+
+        Files.delete(file);
+    }
+
+    /**
+     * A corpus written before rectangular grids, with version 1 in its header, still reads
+     */
+    @Test
+    void testVersion1() throws Exception {
+        Path file = Files.createTempFile("hitori", ".htrc");
+        try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(file)) {
+            writer.add(new Puzzle());
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals(PuzzleCorpusWriter.VERSION, bytes[4]);
+        bytes[4] = 1;
+        Files.write(file, bytes);
+        try (PuzzleCorpus corpus = new PuzzleCorpus(file)) {
+            assertSameValues(new Puzzle(), corpus.get(0));
+        }
+
+        bytes[4] = (byte) (PuzzleCorpusWriter.VERSION + 1);
+        Files.write(file, bytes);
+        assertThrows(PuzzleFormatException.class, () -> new PuzzleCorpus(file));
+
+        Files.delete(file);
+    }
+
+    /**
+     * Text to binary and back again gives the same text
+     */
+    @Test
+    void testConverter() throws Exception {
+        Path text = Files.createTempFile("hitori", ".txt");
+        Path corpus = Files.createTempFile("hitori", ".htrc");
+        Path back = Files.createTempFile("hitori", ".txt");
+        String puzzles = "1 2\n2 1\n\n3 1 2\n1 2 3\n2 3 1\n";
+        Files.writeString(text, puzzles);
+
+        assertEquals(2, PuzzleCorpusConverter.toBinary(corpus, List.of(text)));
+        assertEquals(2, PuzzleCorpusConverter.toText(corpus, back));
+        assertEquals(puzzles, Files.readString(back));
+
+        Files.delete(text);
+        Files.delete(corpus);
+        Files.delete(back);
+    }
+
+}
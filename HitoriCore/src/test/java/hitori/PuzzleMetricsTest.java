@@ -0,0 +1,161 @@
+package hitori;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleMetricsTest {
+
+    @BeforeEach
+    void setUp() {
+        PuzzleMetrics.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        PuzzleMetrics.setEnabled(false);
+        PuzzleMetrics.setEventSink(null);
+        PuzzleMetrics.reset();
+    }
+
+    /**
+     * One accepted move, then one rejected by each constraint, on a 3x3 board
+     */
+    private static Puzzle playMoves() {
+        Puzzle puzzle = new Puzzle(new int[][]{{1, 1, 2}, {2, 3, 1}, {3, 2, 1}});
+        assertEquals(0, puzzle.eliminate(0, 1));
+        assertEquals(3, puzzle.eliminate(1, 0)); //Would cut off the top left corner
+        assertEquals(2, puzzle.eliminate(1, 1)); //Next to the covered cell
+        puzzle.isGameOver();
+        puzzle.isGameOver();
+        return puzzle;
+    }
+
+    @Test
+    void testCounters() {
+        PuzzleMetrics.setEnabled(true);
+        playMoves();
+
+        PuzzleMetrics.Snapshot snapshot = PuzzleMetrics.snapshot();
+        assertEquals(1, snapshot.getEliminateAccepted());
+        assertEquals(1, snapshot.getEliminateRejected(2));
+        assertEquals(1, snapshot.getEliminateRejected(3));
+        assertEquals(3, snapshot.getEliminateLatency().getCount());
+        assertTrue(snapshot.getEliminateLatency().getMax() > 0);
+
+        //A move rejected by constraint 2 never reaches the constraint 3 check
+        assertEquals(2, snapshot.getRule3Checks());
+        assertEquals(2, snapshot.getRule3IncrementalChecks());
+        assertTrue(snapshot.getRule3CellsVisited() > 0);
+        assertEquals(2, snapshot.getGameOverChecks());
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getEliminateRejected(1));
+
+        PuzzleMetrics.reset();
+        assertEquals(0, PuzzleMetrics.snapshot().getEliminateLatency().getCount());
+    }
+
+    @Test
+    void testDisabled() {
+        playMoves();
+
+        PuzzleMetrics.Snapshot snapshot = PuzzleMetrics.snapshot();
+        assertEquals(0, snapshot.getEliminateAccepted());
+        assertEquals(0, snapshot.getEliminateLatency().getCount());
+        assertEquals(0, snapshot.getRule3Checks());
+        assertEquals(0, snapshot.getGameOverChecks());
+    }
+
+    /**
+     * eliminate reports rejected moves to the sink, tryEliminate does not, and loads are reported with their file
+     */
+    @Test
+    void testEvents() throws Exception {
+        List<PuzzleEvent> events = new ArrayList<>();
+        PuzzleMetrics.setEventSink(events::add);
+
+        playMoves();
+        assertEquals(2, events.size());
+        assertEquals(PuzzleEvent.Type.MOVE_REJECTED, events.get(0).getType());
+        assertEquals(1, events.get(0).getRow());
+        assertEquals(0, events.get(0).getColumn());
+        assertEquals(3, events.get(0).getRule());
+        assertEquals("MOVE_REJECTED row=1 column=1 rule=2", events.get(1).toString());
+
+        events.clear();
+        Puzzle puzzle = new Puzzle(new int[][]{{1, 1}, {2, 1}});
+        puzzle.tryEliminate(0, 0);
+        assertEquals(2, puzzle.tryEliminate(0, 1));
+        assertTrue(events.isEmpty());
+
+        Path file = Files.createTempFile("hitori", ".txt");
+        Files.writeString(file, "1 2\n2 1\n");
+        PuzzleMetrics.setEnabled(true);
+        new Puzzle(file.toFile());
+        Files.delete(file);
+
+        assertEquals(1, events.size());
+        assertEquals(PuzzleEvent.Type.PUZZLE_LOADED, events.get(0).getType());
+        assertEquals(file.toString(), events.get(0).getSource());
+        assertEquals(1, PuzzleMetrics.snapshot().getLoadLatency().getCount());
+    }
+
+    /**
+     * Every bucket holds the values it claims to, no more than 1/16 apart
+     */
+    @Test
+    void testBuckets() {
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.index(value);
+            long highest = LatencyHistogram.highestInBucket(index);
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / 16, "value " + value);
+            assertEquals(index, LatencyHistogram.index(highest));
+            assertEquals(index + 1, LatencyHistogram.index(highest + 1));
+        }
+
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestInBucket(LatencyHistogram.index(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++)
+            histogram.record(value);
+
+        PuzzleMetrics.Latency latency = histogram.snapshot();
+        assertEquals(1000, latency.getCount());
+        assertEquals(500.5, latency.getMean(), 1e-9);
+        assertEquals(500, latency.getP50(), 500 / 16.0);
+        assertEquals(900, latency.getP90(), 900 / 16.0);
+        assertEquals(990, latency.getP99(), 990 / 16.0);
+        assertEquals(1000, latency.getMax());
+        assertTrue(latency.getP99() <= latency.getMax());
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getP50());
+    }
+
+    @Test
+    void testMBean() throws Exception {
+        ObjectName name = PuzzleMetrics.registerMBean();
+        assertEquals(name, PuzzleMetrics.registerMBean());
+
+        PuzzleMetrics.setEnabled(true);
+        playMoves();
+
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "EliminateAccepted"));
+        assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "EliminateRejectedRule3"));
+        assertEquals(true, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Enabled"));
+    }
+
+}
@@ -0,0 +1,108 @@
+package hitori;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleParserTest {
+
+    private PuzzleParser parser(String text) {
+        return new PuzzleParser(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    /**
+     * Several puzzles in one file, with comments, tabs, repeated spaces and Windows line endings
+     */
+    @Test
+    void testMultiplePuzzles() throws Exception {
+        PuzzleParser parser = parser("# first\n1 2\n2  1\n\n\n#second\r\n3\t1 2\r\n1 2 3\r\n2 3 1");
+
+        Puzzle first = parser.next();
+        assertEquals(2, first.getSize());
+        assertEquals(2, first.getValue(1, 0));
+
+        Puzzle second = parser.next();
+        assertEquals(3, second.getSize());
+        assertEquals(3, second.getValue(0, 0));
+        assertEquals(1, second.getValue(2, 2));
+        assertTrue(second.isGameOver());
+
+        assertNull(parser.next());
+    }
+
+    /**
+     * Errors point at the line and column of the problem
+     */
+    @Test
+    void testMalformed() throws Exception {
+        PuzzleFormatException e = assertThrows(PuzzleFormatException.class, () -> parser("1 2\n3 x\n").next());
+        assertEquals(2, e.getLine());
+        assertEquals(3, e.getColumn());
+
+        e = assertThrows(PuzzleFormatException.class, () -> parser("1 2\n3 4 5\n").next());
+        assertEquals(2, e.getLine());
+
+        e = assertThrows(PuzzleFormatException.class, () -> parser("1 2\n3 2147483648\n").next());
+        assertEquals(3, e.getColumn());
+        e = assertThrows(PuzzleFormatException.class, () -> parser("1 - 2\n").next());
+        assertEquals(3, e.getColumn());
+
+        PuzzleParser second = parser("1 2 3\n3 4 5\n\n6 7\n8 9 10\n");
+        second.next();
+        e = assertThrows(PuzzleFormatException.class, second::next);
+        assertEquals(5, e.getLine());
+    }
+
+    /**
+     * Values take the whole int range, as they did when boards were read with Integer.parseInt
+     */
+    @Test
+    void testLargeValues() throws Exception {
+        Puzzle puzzle = parser("100000 -7\n+3 -2147483648\n\n2147483647 1\n1 2").next();
+        assertEquals(100000, puzzle.getValue(0, 0));
+        assertEquals(-7, puzzle.getValue(0, 1));
+        assertEquals(3, puzzle.getValue(1, 0));
+        assertEquals(Integer.MIN_VALUE, puzzle.getValue(1, 1));
+        assertEquals(1, puzzle.values().width());
+        assertTrue(puzzle.isGameOver());
+
+        assertEquals(0, puzzle.tryEliminate(0, 0));
+        assertEquals(2, puzzle.tryEliminate(0, 1));
+    }
+
+    /**
+     * A grid takes as many rows as come before the blank line, whatever the width of its rows
+     */
+    @Test
+    void testRectangular() throws Exception {
+        PuzzleParser parser = parser("1 2 3\n3 4 5\n\n1\n2\n3\n1\n");
+
+        Puzzle wide = parser.next();
+        assertEquals(2, wide.getRows());
+        assertEquals(3, wide.getColumns());
+        assertEquals(5, wide.getValue(1, 2));
+        assertThrows(IllegalStateException.class, wide::getSize);
+
+        Puzzle tall = parser.next();
+        assertEquals(4, tall.getRows());
+        assertEquals(1, tall.getColumns());
+        assertEquals(1, tall.getValue(3, 0));
+        assertFalse(tall.isGameOver());
+
+        assertNull(parser.next());
+
+        //Far more rows than columns, so the value array has to grow several times
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+            text.append(i).append(' ').append(i + 1).append('\n');
+        Puzzle narrow = parser(text.toString()).next();
+        assertEquals(1000, narrow.getRows());
+        assertEquals(999, narrow.getValue(999, 0));
+        assertEquals(1000, narrow.getValue(999, 1));
+    }
+
+}
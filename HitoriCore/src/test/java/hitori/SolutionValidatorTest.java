@@ -0,0 +1,78 @@
+package hitori;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionValidatorTest {
+
+    private static Path write(Path dir, String name, String text) throws Exception {
+        return Files.writeString(dir.resolve(name), text);
+    }
+
+    /**
+     * Each kind of broken shading gets its own verdict, and a malformed file is an error rather than a failure
+     */
+    @Test
+    void testVerdicts() throws Exception {
+        Path dir = Files.createTempDirectory("hitori");
+        Path puzzle = write(dir, "puzzle.txt", "1 1 2\n2 3 1\n3 2 1\n");
+        SolutionValidator validator = new SolutionValidator(2);
+
+        List<Path[]> pairs = new ArrayList<>();
+        String[][] shadings = {
+                {"valid", ".#.\n...\n..#\n"},
+                {"adjacent", "##.\n...\n..#\n"},
+                {"split", ".#.\n#..\n..#\n"},
+                {"duplicates", "...\n...\n..#\n"},
+                {"short", ".#.\n...\n"},
+                {"bad", ".#.\n.x.\n..#\n"}
+        };
+        for (String[] shading : shadings)
+            pairs.add(new Path[]{puzzle, write(dir, shading[0] + ".txt", shading[1])});
+
+        List<SolutionValidator.Report> reports = new ArrayList<>();
+        validator.checkAll(pairs.stream(), reports::add);
+        assertEquals(shadings.length, reports.size());
+
+        for (SolutionValidator.Report report : reports) {
+            String name = report.getShading().getFileName().toString();
+            SolutionValidator.Status expected;
+            switch (name) {
+                case "valid.txt": expected = SolutionValidator.Status.VALID; break;
+                case "adjacent.txt": expected = SolutionValidator.Status.ADJACENT; break;
+                case "split.txt": expected = SolutionValidator.Status.SPLIT; break;
+                case "duplicates.txt": expected = SolutionValidator.Status.DUPLICATES; break;
+                default: expected = SolutionValidator.Status.ERROR;
+            }
+            assertEquals(expected, report.getStatus(), name);
+        }
+
+        SolutionValidator.Report bad = validator.check(puzzle, dir.resolve("bad.txt"));
+        assertTrue(bad.getError().contains("line 2, column 2"), bad.getError());
+    }
+
+    /**
+     * A list file names one pair per line, blank lines skipped
+     */
+    @Test
+    void testReadList() throws Exception {
+        Path dir = Files.createTempDirectory("hitori");
+        Path list = write(dir, "list.txt", "a.txt b.txt\n\n  c.txt\td.txt\n");
+
+        try (Stream<Path[]> pairs = SolutionValidator.readList(Files.newBufferedReader(list))) {
+            List<Path[]> all = new ArrayList<>();
+            pairs.forEach(all::add);
+            assertEquals(2, all.size());
+            assertEquals(Path.of("c.txt"), all.get(1)[0]);
+            assertEquals(Path.of("d.txt"), all.get(1)[1]);
+        }
+    }
+
+}
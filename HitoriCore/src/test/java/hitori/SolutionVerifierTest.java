@@ -0,0 +1,112 @@
+package hitori;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionVerifierTest {
+
+    /**
+     * Each broken constraint is reported at the cell where it shows
+     */
+    @Test
+    void testLocations() {
+        Puzzle puzzle = new Puzzle(new int[][]{{1, 1, 2}, {2, 3, 1}, {3, 2, 1}});
+        SolutionVerifier verifier = new SolutionVerifier(puzzle);
+
+        BitSet valid = new BitSet();
+        valid.set(1);
+        valid.set(8);
+        assertTrue(verifier.verify(valid).isValid());
+
+        BitSet adjacent = (BitSet) valid.clone();
+        adjacent.set(4);
+        SolutionVerifier.Verification result = verifier.verify(adjacent);
+        assertEquals(SolutionValidator.Status.ADJACENT, result.getStatus());
+        assertEquals(0, result.getRow());
+        assertEquals(1, result.getColumn());
+
+        BitSet split = (BitSet) valid.clone();
+        split.set(3);
+        result = verifier.verify(split);
+        assertEquals(SolutionValidator.Status.SPLIT, result.getStatus());
+        assertEquals(0, result.getRow());
+        assertEquals(2, result.getColumn());
+
+        BitSet duplicates = new BitSet();
+        duplicates.set(8);
+        result = SolutionVerifier.verify(puzzle, duplicates);
+        assertEquals(SolutionValidator.Status.DUPLICATES, result.getStatus());
+        assertEquals(0, result.getRow());
+        assertEquals(1, result.getColumn());
+    }
+
+    /**
+     * On boards wider than a 64 bit word, the verifier agrees with the checks of BoardState
+     */
+    @Test
+    void testMatchesBoardState() {
+        checkAgainstBoardState(70, 70, 200, 15);
+    }
+
+    /**
+     * Rectangular boards, both ways round, with values too large for a byte
+     */
+    @Test
+    void testRectangularMatchesBoardState() {
+        checkAgainstBoardState(30, 130, 400, 16);
+        checkAgainstBoardState(130, 30, 400, 17);
+    }
+
+    private void checkAgainstBoardState(int rows, int columns, int range, long seed) {
+        Random random = new Random(seed);
+        int[][] values = new int[rows][columns];
+        for (int i = 0; i < rows; i++)
+            for (int j = 0; j < columns; j++)
+                values[i][j] = random.nextInt(range) + 1;
+        Puzzle puzzle = new Puzzle(values);
+
+        List<BitSet> shadings = new ArrayList<>();
+        for (int n = 0; n < 40; n++) {
+            puzzle.reset();
+            for (int move = 0; move < rows * columns / 3; move++)
+                puzzle.tryEliminate(random.nextInt(rows), random.nextInt(columns));
+
+            BitSet shading = new BitSet();
+            for (int i = 0; i < rows; i++)
+                for (int j = 0; j < columns; j++)
+                    if (puzzle.isCovered(i, j))
+                        shading.set(i * columns + j);
+
+            //Some shadings get a few cells flipped, which may break any of the constraints
+            for (int flip = 0; flip < n % 4; flip++)
+                shading.flip(random.nextInt(rows * columns));
+            shadings.add(shading);
+        }
+
+        SolutionVerifier verifier = new SolutionVerifier(puzzle);
+        List<SolutionVerifier.Verification> results = verifier.verifyAll(shadings);
+        BoardState empty = BoardState.of(values);
+
+        for (int n = 0; n < shadings.size(); n++) {
+            BoardState state = empty;
+            BitSet shading = shadings.get(n);
+            for (int cell = shading.nextSetBit(0); cell >= 0; cell = shading.nextSetBit(cell + 1))
+                state = state.withCovered(cell / columns, cell % columns);
+
+            assertEquals(SolutionValidator.check(state), results.get(n).getStatus(), "shading " + n);
+
+            //Flat words give the same verdict, and bits past the grid are ignored either way
+            assertEquals(results.get(n).toString(), verifier.verify(shading.toLongArray()).toString());
+            BitSet past = (BitSet) shading.clone();
+            past.set(rows * columns + 5);
+            assertEquals(results.get(n).toString(), verifier.verify(past).toString());
+        }
+    }
+
+}
@@ -0,0 +1,51 @@
+package hitori;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymmetryTest {
+
+    @Test
+    void testSquare() {
+        int[] grid = {1, 2, 3, 4}; //1 2 / 3 4
+
+        assertArrayEquals(new int[]{1, 2, 3, 4}, Symmetry.IDENTITY.apply(grid, 2, 2));
+        assertArrayEquals(new int[]{3, 1, 4, 2}, Symmetry.ROTATE_90.apply(grid, 2, 2));
+        assertArrayEquals(new int[]{4, 3, 2, 1}, Symmetry.ROTATE_180.apply(grid, 2, 2));
+        assertArrayEquals(new int[]{2, 4, 1, 3}, Symmetry.ROTATE_270.apply(grid, 2, 2));
+        assertArrayEquals(new int[]{2, 1, 4, 3}, Symmetry.FLIP_HORIZONTAL.apply(grid, 2, 2));
+        assertArrayEquals(new int[]{3, 4, 1, 2}, Symmetry.FLIP_VERTICAL.apply(grid, 2, 2));
+        assertArrayEquals(new int[]{1, 3, 2, 4}, Symmetry.TRANSPOSE.apply(grid, 2, 2));
+        assertArrayEquals(new int[]{4, 2, 3, 1}, Symmetry.ANTI_TRANSPOSE.apply(grid, 2, 2));
+        assertEquals(8, Symmetry.of(3, 3).length);
+    }
+
+    /**
+     * Each symmetry moves every cell somewhere different, and a 2x3 grid gets the four that keep its shape
+     */
+    @Test
+    void testRectangle() {
+        int[] grid = {1, 2, 3, 4, 5, 6};
+        Set<List<Integer>> seen = new HashSet<>();
+
+        for (Symmetry symmetry : Symmetry.values()) {
+            int[] turned = symmetry.apply(grid, 2, 3);
+            Set<Integer> cells = new HashSet<>();
+            for (int value : turned)
+                cells.add(value);
+            assertEquals(6, cells.size(), symmetry.toString());
+            seen.add(List.of(turned[0], turned[1], turned[2], turned[3], turned[4], turned[5]));
+        }
+        assertEquals(8, seen.size());
+
+        assertArrayEquals(new int[]{4, 1, 5, 2, 6, 3}, Symmetry.ROTATE_90.apply(grid, 2, 3));
+        assertEquals(List.of(Symmetry.IDENTITY, Symmetry.ROTATE_180, Symmetry.FLIP_HORIZONTAL,
+                Symmetry.FLIP_VERTICAL), List.of(Symmetry.of(2, 3)));
+    }
+
+}
@@ -0,0 +1,77 @@
+package hitori.generator;
+
+import hitori.Puzzle;
+import hitori.solver.SolveResult;
+import hitori.solver.Solver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleGeneratorTest {
+
+    /**
+     * Every generated puzzle has exactly one solution, and its solution wins the game
+     */
+    @Test
+    void testGeneratedPuzzlesAreUnique() throws Exception {
+        List<GeneratedPuzzle> puzzles = new ArrayList<>();
+        PuzzleGenerator.generateAll(8, Difficulty.MEDIUM, 11, 20, 2, puzzles::add);
+
+        assertEquals(20, puzzles.size());
+        for (GeneratedPuzzle generated : puzzles) {
+            Puzzle puzzle = generated.getPuzzle();
+            assertEquals(SolveResult.Status.UNIQUE, new Solver().solve(puzzle).getStatus());
+            assertTrue(generated.getSolution().applyTo(puzzle));
+        }
+    }
+
+    /**
+     * An exception in the sink ends the run and comes out of generateAll instead of being lost with its thread
+     */
+    @Test
+    void testFailureStopsRun() {
+        AtomicInteger accepted = new AtomicInteger();
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                PuzzleGenerator.generateAll(5, Difficulty.EASY, 3, 1000, 2, puzzle -> {
+                    if (accepted.incrementAndGet() == 3)
+                        throw new IllegalStateException("Sink full");
+                }));
+
+        assertEquals("Sink full", e.getMessage());
+        assertTrue(accepted.get() < 10);
+    }
+
+    /**
+     * The same seed and index give the same puzzle
+     */
+    @Test
+    void testDeterministic() {
+        GeneratedPuzzle first = new PuzzleGenerator(10, Difficulty.EASY, 5).generate(3);
+        GeneratedPuzzle second = new PuzzleGenerator(10, Difficulty.EASY, 5).generate(3);
+
+        assertEquals(first.getSolution().toString(), second.getSolution().toString());
+        for (int i = 0; i < 10; i++)
+            for (int j = 0; j < 10; j++)
+                assertEquals(first.getPuzzle().getValue(i, j), second.getPuzzle().getValue(i, j));
+    }
+
+    /**
+     * Rectangular boards come out unique too, with the solver and the puzzle checks agreeing on them
+     */
+    @Test
+    void testRectangular() {
+        GeneratedPuzzle generated = new PuzzleGenerator(6, 11, Difficulty.EASY, 2).generate(0);
+        Puzzle puzzle = generated.getPuzzle();
+
+        assertEquals(6, puzzle.getRows());
+        assertEquals(11, puzzle.getColumns());
+        assertEquals(SolveResult.Status.UNIQUE, new Solver().solve(puzzle).getStatus());
+        assertEquals(11, generated.getSolution().getColumns());
+        assertTrue(generated.getSolution().applyTo(puzzle));
+    }
+
+}
@@ -0,0 +1,185 @@
+package hitori.replay;
+
+import hitori.Puzzle;
+import hitori.PuzzleCorpus;
+import hitori.PuzzleCorpusWriter;
+import hitori.PuzzleFormatException;
+import hitori.solver.Solver;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveReplayerTest {
+
+    private static final int[][] SMALL = {{1, 1, 2}, {2, 3, 1}, {3, 2, 1}};
+
+    private static Path corpus() throws Exception {
+        Path path = Files.createTempFile("hitori", ".htrc");
+        try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(path)) {
+            writer.add(new Puzzle(SMALL));
+            writer.add(new Puzzle());
+        }
+        return path;
+    }
+
+    /**
+     * Each kind of move gets its own outcome, and a game is solved once its last move leaves no duplicates
+     */
+    @Test
+    void testOutcomes() throws Exception {
+        Path corpusFile = corpus();
+        Path logFile = Files.createTempFile("hitori", ".htmv");
+
+        BitSet solution = new Solver().solve(new Puzzle()).getSolution().toBitSet();
+        int[] solve = solution.stream().map(MoveLog::eliminate).toArray();
+
+        try (MoveLogWriter writer = new MoveLogWriter(logFile)) {
+            writer.add(0, new int[]{MoveLog.eliminate(0), MoveLog.eliminate(1), MoveLog.reactivate(0),
+                    MoveLog.eliminate(1), MoveLog.eliminate(3), MoveLog.eliminate(8)}, 6);
+            writer.add(1, solve, solve.length);
+            writer.add(0, new int[0], 0);
+            assertEquals(3, writer.getCount());
+        }
+
+        try (PuzzleCorpus corpus = new PuzzleCorpus(corpusFile); MoveLog log = new MoveLog(logFile)) {
+            ByteArrayOutputStream outcomes = new ByteArrayOutputStream();
+            MoveReplayer.Summary summary = new MoveReplayer(corpus, 2).replay(log, outcomes);
+
+            byte[] bytes = outcomes.toByteArray();
+            assertEquals(6 + solve.length, bytes.length);
+            MoveReplayer.Outcome[] first = new MoveReplayer.Outcome[6];
+            for (int k = 0; k < 6; k++)
+                first[k] = MoveReplayer.Outcome.values()[bytes[k]];
+            assertArrayEquals(new MoveReplayer.Outcome[]{MoveReplayer.Outcome.ACCEPTED,
+                    MoveReplayer.Outcome.ADJACENT, MoveReplayer.Outcome.ACCEPTED, MoveReplayer.Outcome.ACCEPTED,
+                    MoveReplayer.Outcome.SPLIT, MoveReplayer.Outcome.SOLVED}, first);
+            assertEquals(MoveReplayer.Outcome.SOLVED.ordinal(), bytes[bytes.length - 1]);
+
+            assertEquals(3, summary.getGames());
+            assertEquals(6 + solve.length, summary.getMoves());
+            assertEquals(2, summary.getSolvedGames());
+            assertEquals(1, summary.getCount(MoveReplayer.Outcome.ADJACENT));
+            assertEquals(1, summary.getCount(MoveReplayer.Outcome.SPLIT));
+            assertEquals(2, summary.getCount(MoveReplayer.Outcome.SOLVED));
+        }
+
+        Files.delete(corpusFile);
+        Files.delete(logFile);
+    }
+
+    /**
+     * Many games split over several workers give the same outcomes, in the same order, as playing them one by one,
+     * whether moves take two bytes or four
+     */
+    @Test
+    void testParallel() throws Exception {
+        Path corpusFile = corpus();
+        Random random = new Random(6);
+        int[][] games = new int[3000][];
+        int[] puzzles = new int[games.length];
+
+        for (int g = 0; g < games.length; g++) {
+            puzzles[g] = random.nextInt(2);
+            int cells = puzzles[g] == 0 ? 9 : 64;
+            games[g] = new int[random.nextInt(80)];
+            for (int k = 0; k < games[g].length; k++) {
+                int cell = random.nextInt(cells);
+                games[g][k] = random.nextInt(4) == 0 ? MoveLog.reactivate(cell) : MoveLog.eliminate(cell);
+            }
+        }
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int g = 0; g < games.length; g++) {
+            Puzzle puzzle = puzzles[g] == 0 ? new Puzzle(SMALL) : new Puzzle();
+            for (int move : games[g]) {
+                int i = MoveLog.cell(move) / puzzle.getColumns();
+                int j = MoveLog.cell(move) % puzzle.getColumns();
+                int broken = 0;
+                if (MoveLog.isReactivate(move))
+                    puzzle.reactivate(i, j);
+                else
+                    broken = puzzle.tryEliminate(i, j);
+
+                MoveReplayer.Outcome outcome = broken == 2 ? MoveReplayer.Outcome.ADJACENT
+                        : broken == 3 ? MoveReplayer.Outcome.SPLIT
+                        : puzzle.isGameOver() ? MoveReplayer.Outcome.SOLVED : MoveReplayer.Outcome.ACCEPTED;
+                expected.write(outcome.ordinal());
+            }
+        }
+
+        for (int moveBytes : new int[]{2, 4}) {
+            Path logFile = Files.createTempFile("hitori", ".htmv");
+            try (MoveLogWriter writer = new MoveLogWriter(logFile, moveBytes)) {
+                for (int g = 0; g < games.length; g++)
+                    writer.add(puzzles[g], games[g], games[g].length);
+            }
+
+            try (PuzzleCorpus corpus = new PuzzleCorpus(corpusFile); MoveLog log = new MoveLog(logFile)) {
+                assertEquals(moveBytes, log.getMoveBytes());
+                ByteArrayOutputStream outcomes = new ByteArrayOutputStream();
+                MoveReplayer.Summary summary = new MoveReplayer(corpus, 3).replay(log, outcomes);
+
+                assertEquals(games.length, summary.getGames());
+                assertTrue(Arrays.equals(expected.toByteArray(), outcomes.toByteArray()));
+            }
+            Files.delete(logFile);
+        }
+
+        Files.delete(corpusFile);
+    }
+
+    /**
+     * A log cut short, a puzzle the corpus does not hold or a move off the board is reported, not replayed
+     */
+    @Test
+    void testMalformed() throws Exception {
+        Path corpusFile = corpus();
+        Path logFile = Files.createTempFile("hitori", ".htmv");
+
+        try (PuzzleCorpus corpus = new PuzzleCorpus(corpusFile)) {
+            MoveReplayer replayer = new MoveReplayer(corpus, 2);
+
+            try (MoveLogWriter writer = new MoveLogWriter(logFile)) {
+                writer.add(0, new int[]{MoveLog.eliminate(9)}, 1);
+            }
+            try (MoveLog log = new MoveLog(logFile)) {
+                assertThrows(PuzzleFormatException.class, () -> replayer.replay(log, null));
+            }
+
+            try (MoveLogWriter writer = new MoveLogWriter(logFile)) {
+                writer.add(5, new int[]{MoveLog.eliminate(0)}, 1);
+            }
+            try (MoveLog log = new MoveLog(logFile)) {
+                assertThrows(PuzzleFormatException.class, () -> replayer.replay(log, null));
+            }
+
+            try (MoveLogWriter writer = new MoveLogWriter(logFile)) {
+                writer.add(1, new int[]{MoveLog.eliminate(0), MoveLog.eliminate(2)}, 2);
+            }
+            byte[] bytes = Files.readAllBytes(logFile);
+            Files.write(logFile, Arrays.copyOf(bytes, bytes.length - 1));
+            try (MoveLog log = new MoveLog(logFile)) {
+                assertThrows(PuzzleFormatException.class, () -> replayer.replay(log, null));
+            }
+        }
+
+        Files.write(logFile, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(PuzzleFormatException.class, () -> new MoveLog(logFile));
+        assertThrows(IllegalArgumentException.class, () -> {
+            try (MoveLogWriter writer = new MoveLogWriter(logFile)) {
+                writer.add(0, new int[]{MoveLog.eliminate(40000)}, 1);
+            }
+        });
+
+        Files.delete(corpusFile);
+        Files.delete(logFile);
+    }
+
+}
@@ -0,0 +1,180 @@
+package hitori.server;
+
+import hitori.BoardState;
+import hitori.Puzzle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionManagerTest {
+
+    private static void assertSameCovered(Puzzle expected, BoardState actual) {
+        for (int i = 0; i < expected.getRows(); i++)
+            for (int j = 0; j < expected.getColumns(); j++)
+                assertEquals(expected.isCovered(i, j), actual.isCovered(i, j), "cell " + i + ", " + j);
+    }
+
+    /**
+     * Actions on one session, submitted from several threads, never overlap and none is lost
+     */
+    @Test
+    void testOneSessionAtATime() throws Exception {
+        try (SessionManager manager = new SessionManager(4, 0)) {
+            long id = manager.open(new Puzzle());
+            AtomicInteger inside = new AtomicInteger();
+            AtomicBoolean overlap = new AtomicBoolean();
+            int[] count = new int[1];
+            List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                threads.add(new Thread(() -> {
+                    List<CompletableFuture<Integer>> mine = new ArrayList<>();
+                    for (int k = 0; k < 2000; k++) {
+                        mine.add(manager.submit(id, puzzle -> {
+                            if (inside.getAndIncrement() != 0)
+                                overlap.set(true);
+                            int seen = ++count[0];
+                            inside.decrementAndGet();
+                            return seen;
+                        }));
+                    }
+                    synchronized (results) {
+                        results.addAll(mine);
+                    }
+                }));
+            }
+            for (Thread thread : threads)
+                thread.start();
+            for (Thread thread : threads)
+                thread.join();
+
+            CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get();
+            assertFalse(overlap.get());
+            assertEquals(8000, manager.submit(id, puzzle -> count[0]).get());
+        }
+    }
+
+    /**
+     * Random moves on many sessions, with sessions evicted all the time, end as the same moves made directly
+     */
+    @Test
+    void testManySessions() throws Exception {
+        try (SessionManager manager = new SessionManager(3, 1)) {
+            Random random = new Random(5);
+            int sessions = 300;
+            int size = 7;
+            long[] ids = new long[sessions];
+            Puzzle[] expected = new Puzzle[sessions];
+            List<CompletableFuture<?>> moves = new ArrayList<>();
+
+            for (int s = 0; s < sessions; s++) {
+                int[][] values = LoadGenerator.randomValues(size, random);
+                ids[s] = s % 2 == 0 ? manager.open(new Puzzle(values)) : manager.open(BoardState.of(values));
+                expected[s] = new Puzzle(values);
+            }
+
+            for (int k = 0; k < 30000; k++) {
+                int s = random.nextInt(sessions);
+                int i = random.nextInt(size);
+                int j = random.nextInt(size);
+
+                if (random.nextInt(3) == 0) {
+                    expected[s].reactivate(i, j);
+                    moves.add(manager.reactivate(ids[s], i, j));
+                } else {
+                    int result = expected[s].eliminate(i, j);
+                    moves.add(manager.eliminate(ids[s], i, j).thenAccept(r -> assertEquals(result, r)));
+                }
+            }
+
+            CompletableFuture.allOf(moves.toArray(new CompletableFuture[0])).get();
+            for (int s = 0; s < sessions; s++)
+                assertSameCovered(expected[s], manager.snapshot(ids[s]).get());
+            assertEquals(sessions, manager.getSessionCount());
+        }
+    }
+
+    @Test
+    void testEviction() throws Exception {
+        try (SessionManager manager = new SessionManager(1, 0)) {
+            long id = manager.open(new Puzzle());
+            assertEquals(0, manager.eliminate(id, 0, 1).get());
+            assertEquals(1, manager.getResidentCount());
+
+            assertEquals(1, manager.evictIdle(0));
+            BoardState state = manager.snapshot(id).get();
+            assertTrue(state.isCovered(0, 1));
+            assertEquals(0, manager.getResidentCount());
+            assertEquals(1, manager.getEvictionCount());
+
+            //Taking a snapshot does not bring the session back, a move does
+            assertEquals(2, manager.eliminate(id, 0, 2).get());
+            assertEquals(1, manager.getResidentCount());
+            assertEquals(1, manager.getRestoreCount());
+            assertTrue(manager.snapshot(id).get().isCovered(0, 1));
+
+            assertEquals(0, manager.evictIdle(60000));
+        }
+    }
+
+    @Test
+    void testClose() throws Exception {
+        try (SessionManager manager = new SessionManager(1, 0)) {
+            long id = manager.open(new Puzzle());
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> manager.eliminate(id, 8, 8).get());
+            assertInstanceOf(IndexOutOfBoundsException.class, e.getCause());
+
+            assertTrue(manager.close(id));
+            assertFalse(manager.close(id));
+            assertThrows(IllegalArgumentException.class, () -> manager.eliminate(id, 0, 0));
+            assertEquals(0, manager.getSessionCount());
+            assertEquals(0, manager.submit(manager.open(new Puzzle()), Puzzle::getCoveredCount).get());
+        }
+    }
+
+    /**
+     * Once the manager is closed, or its executor shut down, moves fail instead of waiting forever,
+     * and the session does not get stuck
+     */
+    @Test
+    void testSubmitAfterClose() throws Exception {
+        SessionManager closed = new SessionManager(1, 0);
+        long first = closed.open(new Puzzle());
+        closed.close();
+        for (int k = 0; k < 2; k++) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> closed.eliminate(first, 0, 0).get());
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        }
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        SessionManager manager = new SessionManager(pool, 0);
+        long id = manager.open(new Puzzle());
+        assertEquals(0, manager.eliminate(id, 0, 0).get());
+
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int k = 0; k < 2; k++) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> manager.eliminate(id, 0, 1).get());
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        }
+        ExecutionException e = assertThrows(ExecutionException.class, () -> manager.snapshot(id).get());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        manager.close();
+    }
+
+}
@@ -0,0 +1,81 @@
+package hitori.solver;
+
+import hitori.Puzzle;
+import hitori.generator.Difficulty;
+import hitori.generator.PuzzleGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DifficultyRaterTest {
+
+    /**
+     * A puzzle solved by deduction alone needs no search and scores below one that needs guessing,
+     * and rating the same puzzle twice gives the same score
+     */
+    @Test
+    void testEasyBelowHard() {
+        DifficultyRater rater = new DifficultyRater(1);
+        Puzzle easy = new PuzzleGenerator(10, Difficulty.EASY, 2).generate(0).getPuzzle();
+        Puzzle hard = new PuzzleGenerator(10, Difficulty.HARD, 2).generate(0).getPuzzle();
+
+        Rating easyRating = rater.rate(easy);
+        assertEquals(SolveResult.Status.UNIQUE, easyRating.getStatus());
+        assertEquals(0, easyRating.getUndecided());
+        assertEquals(1, easyRating.getNodes());
+        assertNotNull(easyRating.getHardestTechnique());
+
+        Rating hardRating = rater.rate(hard);
+        assertEquals(SolveResult.Status.UNIQUE, hardRating.getStatus());
+        assertTrue(hardRating.getUndecided() > 0);
+        assertTrue(hardRating.getNodes() > 1);
+        assertTrue(hardRating.getScore() > easyRating.getScore());
+
+        assertEquals(easyRating.getScore(), rater.rate(easy).getScore());
+    }
+
+    /**
+     * A batch rated on several threads gives every puzzle the same score as rating it alone
+     */
+    @Test
+    void testRateAll() throws Exception {
+        List<Puzzle> puzzles = new ArrayList<>();
+        PuzzleGenerator generator = new PuzzleGenerator(8, Difficulty.MEDIUM, 9);
+        for (int n = 0; n < 30; n++)
+            puzzles.add(generator.generate(n).getPuzzle());
+
+        DifficultyRater rater = new DifficultyRater(3);
+        Rating[] ratings = new Rating[puzzles.size()];
+        rater.rateAll(puzzles.iterator(), rating -> {
+            assertNull(ratings[(int) rating.getIndex()]);
+            ratings[(int) rating.getIndex()] = rating;
+        });
+
+        for (int n = 0; n < puzzles.size(); n++)
+            assertEquals(rater.rate(puzzles.get(n)).getScore(), ratings[n].getScore());
+    }
+
+    /**
+     * An exception in the sink stops the batch and comes out of rateAll
+     */
+    @Test
+    void testRateAllFailure() {
+        List<Puzzle> puzzles = new ArrayList<>();
+        for (int n = 0; n < 1000; n++)
+            puzzles.add(new Puzzle());
+
+        int[] accepted = new int[1];
+        IllegalStateException e = assertThrows(IllegalStateException.class, () ->
+                new DifficultyRater(2).rateAll(puzzles.iterator(), rating -> {
+                    if (++accepted[0] == 5)
+                        throw new IllegalStateException("Sink full");
+                }));
+
+        assertEquals("Sink full", e.getMessage());
+        assertTrue(accepted[0] < 1000);
+    }
+
+}
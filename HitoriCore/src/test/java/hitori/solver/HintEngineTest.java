@@ -0,0 +1,72 @@
+package hitori.solver;
+
+import hitori.Puzzle;
+import hitori.generator.Difficulty;
+import hitori.generator.GeneratedPuzzle;
+import hitori.generator.PuzzleGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HintEngineTest {
+
+    /**
+     * On a puzzle that needs no guessing, following the cover hints one by one solves it,
+     * and every hint agrees with the unique solution
+     */
+    @Test
+    void testFollowHintsToSolution() {
+        GeneratedPuzzle generated = new PuzzleGenerator(15, Difficulty.EASY, 3).generate(0);
+        Puzzle puzzle = generated.getPuzzle();
+        Solution solution = generated.getSolution();
+        HintEngine hints = new HintEngine(puzzle);
+
+        int moves = 0;
+        for (Hint hint = hints.next(); hint != null && hint.isCover(); hint = hints.next()) {
+            assertNotEquals(Hint.Reason.CONTRADICTION, hint.getReason());
+            assertTrue(solution.isCovered(hint.getRow(), hint.getColumn()), hint.toString());
+            assertEquals(0, puzzle.tryEliminate(hint.getRow(), hint.getColumn()));
+            moves++;
+        }
+
+        assertEquals(solution.getCoveredCount(), moves);
+        assertTrue(puzzle.isGameOver());
+    }
+
+    /**
+     * A covered cell that the deductions say must be white is pointed out, and the hint is recomputed once it is
+     * uncovered again
+     */
+    @Test
+    void testContradiction() {
+        GeneratedPuzzle generated = new PuzzleGenerator(10, Difficulty.EASY, 8).generate(0);
+        Puzzle puzzle = generated.getPuzzle();
+        Solution solution = generated.getSolution();
+        HintEngine hints = new HintEngine(puzzle);
+        Hint first = hints.next();
+        assertNotNull(first);
+
+        //A white cell of the solution next to a black one is white by constraint 2 whatever else is covered
+        int row = -1;
+        int col = -1;
+        for (int i = 0; i < 10 && row < 0; i++) {
+            for (int j = 0; j + 1 < 10; j++) {
+                if (!solution.isCovered(i, j) && solution.isCovered(i, j + 1)) {
+                    row = i;
+                    col = j;
+                    break;
+                }
+            }
+        }
+
+        puzzle.get(row, col).cover();
+        puzzle.get(row, col + 1).cover();
+        Hint hint = hints.next();
+        assertEquals(Hint.Reason.CONTRADICTION, hint.getReason());
+
+        puzzle.undo();
+        puzzle.undo();
+        assertEquals(first.toString(), hints.next().toString());
+    }
+
+}
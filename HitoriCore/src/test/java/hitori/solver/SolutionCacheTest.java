@@ -0,0 +1,223 @@
+package hitori.solver;
+
+import hitori.Puzzle;
+import hitori.Symmetry;
+import hitori.generator.Difficulty;
+import hitori.generator.PuzzleGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionCacheTest {
+
+    private static int[] values(Puzzle puzzle) {
+        int[] values = new int[puzzle.getRows() * puzzle.getColumns()];
+        for (int cell = 0; cell < values.length; cell++)
+            values[cell] = puzzle.getValue(cell / puzzle.getColumns(), cell % puzzle.getColumns());
+        return values;
+    }
+
+    private static Puzzle transform(Puzzle puzzle, Symmetry symmetry) {
+        int rows = puzzle.getRows();
+        int columns = puzzle.getColumns();
+        int[] flat = symmetry.apply(values(puzzle), rows, columns);
+        int newRows = symmetry.swapsSides() ? columns : rows;
+        int newColumns = symmetry.swapsSides() ? rows : columns;
+
+        int[][] grid = new int[newRows][newColumns];
+        for (int cell = 0; cell < flat.length; cell++)
+            grid[cell / newColumns][cell % newColumns] = flat[cell];
+        return new Puzzle(grid);
+    }
+
+    private static Puzzle randomPuzzle(Random random, int size) {
+        int[][] grid = new int[size][size];
+        for (int[] row : grid)
+            for (int j = 0; j < size; j++)
+                row[j] = 1 + random.nextInt(size);
+        return new Puzzle(grid);
+    }
+
+    /**
+     * Every rotation and reflection of a board finds its entry, with the solution turned to fit it
+     */
+    @Test
+    void testSymmetries() {
+        SolutionCache cache = new SolutionCache(100);
+        Puzzle puzzle = new Puzzle();
+
+        SolutionCache.Verdict first = cache.get(puzzle);
+        assertFalse(first.wasCached());
+        assertEquals(SolveResult.Status.UNIQUE, first.getStatus());
+        assertTrue(first.getSolution().applyTo(puzzle));
+
+        for (Symmetry symmetry : Symmetry.values()) {
+            Puzzle turned = transform(new Puzzle(), symmetry);
+            SolutionCache.Verdict verdict = cache.get(turned);
+            assertTrue(verdict.wasCached(), symmetry.toString());
+            assertSame(first.getRating(), verdict.getRating());
+            assertTrue(verdict.getSolution().applyTo(turned), symmetry.toString());
+        }
+
+        assertEquals(1, cache.size());
+        assertEquals(8, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * Renaming the values of a board does not change its answers, so it finds the same entry
+     */
+    @Test
+    void testRelabelled() {
+        SolutionCache cache = new SolutionCache(100);
+        cache.get(new Puzzle());
+
+        Puzzle turned = transform(new Puzzle(), Symmetry.ROTATE_270);
+        int[][] renamed = new int[8][8];
+        for (int i = 0; i < 8; i++)
+            for (int j = 0; j < 8; j++)
+                renamed[i][j] = 20 - turned.getValue(i, j);
+        Puzzle puzzle = new Puzzle(renamed);
+
+        SolutionCache.Verdict verdict = cache.get(puzzle);
+        assertTrue(verdict.wasCached());
+        assertEquals(SolveResult.Status.UNIQUE, verdict.getStatus());
+        assertTrue(verdict.getSolution().applyTo(puzzle));
+    }
+
+    /**
+     * A board that is not square only shares its entry with the four symmetries that keep its shape
+     */
+    @Test
+    void testRectangular() {
+        SolutionCache cache = new SolutionCache(100);
+        Puzzle puzzle = new PuzzleGenerator(5, 8, Difficulty.EASY, 3).generate(0).getPuzzle();
+        cache.get(puzzle);
+
+        for (Symmetry symmetry : Symmetry.of(5, 8)) {
+            Puzzle turned = transform(puzzle, symmetry);
+            SolutionCache.Verdict verdict = cache.get(turned);
+            assertTrue(verdict.wasCached());
+            assertTrue(verdict.getSolution().applyTo(turned));
+        }
+
+        assertFalse(cache.get(transform(puzzle, Symmetry.ROTATE_90)).wasCached());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testUnsolvable() {
+        SolutionCache cache = new SolutionCache(10);
+        SolutionCache.Verdict verdict = cache.get(new Puzzle(new int[][]{{1, 1}, {1, 1}}));
+        assertEquals(SolveResult.Status.UNSOLVABLE, verdict.getStatus());
+        assertNull(verdict.getSolution());
+
+        assertNull(cache.lookup(new Puzzle(new int[][]{{1, 1}, {2, 3}})));
+        assertEquals(SolveResult.Status.MULTIPLE, cache.get(new Puzzle(new int[][]{{1, 1}, {2, 3}})).getStatus());
+    }
+
+    /**
+     * The cache never holds more boards than its capacity, and the least recently used go first
+     */
+    @Test
+    void testEviction() {
+        Random random = new Random(4);
+        SolutionCache cache = new SolutionCache(8);
+        Puzzle last = null;
+
+        for (int k = 0; k < 50; k++) {
+            last = randomPuzzle(random, 5);
+            cache.get(last);
+            assertTrue(cache.size() <= 8);
+        }
+        assertNotNull(cache.lookup(last));
+
+        SolutionCache single = new SolutionCache(1);
+        Puzzle a = randomPuzzle(random, 4);
+        Puzzle b = randomPuzzle(random, 4);
+        single.get(a);
+        single.get(b);
+        assertNull(single.lookup(a));
+        assertNotNull(single.lookup(b));
+
+        single.clear();
+        assertEquals(0, single.size());
+    }
+
+    /**
+     * Saved entries come back in a new cache with the same answers
+     */
+    @Test
+    void testPersistence() throws Exception {
+        Path file = Files.createTempFile("hitori", ".cache");
+        SolutionCache cache = new SolutionCache(100);
+        Random random = new Random(9);
+        Puzzle[] puzzles = new Puzzle[20];
+        for (int k = 0; k < puzzles.length; k++)
+            puzzles[k] = randomPuzzle(random, 6);
+        for (Puzzle puzzle : puzzles)
+            cache.get(puzzle);
+        cache.get(new Puzzle());
+        cache.save(file);
+
+        SolutionCache warm = new SolutionCache(100);
+        assertEquals(21, warm.load(file));
+        for (Puzzle puzzle : puzzles) {
+            SolutionCache.Verdict expected = cache.lookup(puzzle);
+            SolutionCache.Verdict verdict = warm.lookup(puzzle);
+            assertNotNull(verdict);
+            assertEquals(expected.getStatus(), verdict.getStatus());
+            assertEquals(expected.getRating().getScore(), verdict.getRating().getScore());
+            assertEquals(expected.getRating().getNodes(), verdict.getRating().getNodes());
+            if (expected.getSolution() != null)
+                assertEquals(expected.getSolution().toBitSet(), verdict.getSolution().toBitSet());
+        }
+
+        Puzzle turned = transform(new Puzzle(), Symmetry.ANTI_TRANSPOSE);
+        assertTrue(warm.lookup(turned).getSolution().applyTo(turned));
+
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6});
+        assertThrows(IOException.class, () -> warm.load(file));
+        Files.delete(file);
+    }
+
+    /**
+     * A damaged file gives an IOException, not an exception or an allocation sized by the damage
+     */
+    @Test
+    void testCorruptFile() throws Exception {
+        Path file = Files.createTempFile("hitori", ".cache");
+        SolutionCache cache = new SolutionCache(10);
+        Puzzle puzzle = new Puzzle();
+        cache.get(puzzle);
+        cache.save(file);
+        byte[] saved = Files.readAllBytes(file);
+
+        //Header of 10 bytes, then hash (8), rows (2), columns (2) and the labels before the status
+        int status = 22 + 2 * puzzle.getRows() * puzzle.getColumns();
+        byte[] bytes = saved.clone();
+        bytes[status] = 100;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> new SolutionCache(10).load(file));
+
+        bytes = saved.clone();
+        bytes[18] = bytes[19] = bytes[20] = bytes[21] = (byte) 0xff;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> new SolutionCache(10).load(file));
+
+        bytes = saved.clone();
+        bytes[6] = (byte) 0x80;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> new SolutionCache(10).load(file));
+
+        Files.write(file, saved);
+        assertEquals(1, new SolutionCache(10).load(file));
+        Files.delete(file);
+    }
+
+}
@@ -0,0 +1,120 @@
+package hitori.solver;
+
+import hitori.Puzzle;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolverTest {
+
+    /**
+     * The default puzzle has exactly one solution, and covering it through eliminate wins the game
+     */
+    @Test
+    void testSolveDefaultPuzzle() {
+        Puzzle puzzle = new Puzzle();
+        SolveResult result = new Solver().solve(puzzle);
+
+        assertEquals(SolveResult.Status.UNIQUE, result.getStatus());
+        assertTrue(result.getSolution().applyTo(puzzle), "Solution must pass every constraint");
+        assertTrue(puzzle.isGameOver());
+    }
+
+    /**
+     * Shading one 1 in each row and column of an all 1s 2x2 grid always leaves two white cells apart
+     */
+    @Test
+    void testUnsolvable() {
+        Puzzle puzzle = new Puzzle(new int[][]{{1, 1}, {1, 1}});
+
+        assertEquals(SolveResult.Status.UNSOLVABLE, new Solver().solve(puzzle).getStatus());
+    }
+
+    /**
+     * Either of the two 1s in the top row can be shaded
+     */
+    @Test
+    void testMultipleSolutions() {
+        Puzzle puzzle = new Puzzle(new int[][]{{1, 1}, {2, 3}});
+        Solver solver = new Solver();
+
+        assertEquals(SolveResult.Status.MULTIPLE, solver.solve(puzzle).getStatus());
+
+        solver.setSolutionLimit(1);
+        SolveResult result = solver.solve(puzzle);
+        assertEquals(SolveResult.Status.SOLVED, result.getStatus());
+        assertEquals(1, result.getSolution().getCoveredCount());
+    }
+
+    /**
+     * Searching with several workers has to reach the same verdicts as the sequential search
+     */
+    @Test
+    void testParallelSolve() {
+        try (Solver solver = new Solver()) {
+            solver.setParallelism(4);
+
+            Puzzle puzzle = new Puzzle();
+            SolveResult result = solver.solve(puzzle);
+            assertEquals(SolveResult.Status.UNIQUE, result.getStatus());
+            assertEquals(new Solver().solve(puzzle).getSolution().toString(), result.getSolution().toString());
+
+            assertEquals(SolveResult.Status.MULTIPLE,
+                    solver.solve(new Puzzle(new int[][]{{1, 1}, {2, 3}})).getStatus());
+
+            //Closing stops the workers; the next parallel solve starts new ones
+            solver.close();
+            assertEquals(SolveResult.Status.UNSOLVABLE,
+                    solver.solve(new Puzzle(new int[][]{{1, 1}, {1, 1}})).getStatus());
+        }
+    }
+
+    /**
+     * Every puzzle of every file of a directory gets a verdict, including the ones that cannot be read
+     */
+    @Test
+    void testUniquenessChecker() throws Exception {
+        Path directory = Files.createTempDirectory("hitori");
+        Files.writeString(directory.resolve("default.txt"),
+                "4 8 1 6 3 2 5 7\n3 6 7 2 1 6 5 4\n2 3 4 8 2 8 6 1\n4 1 6 5 7 7 3 5\n"
+                        + "7 2 3 1 8 5 1 2\n3 5 6 7 3 1 8 4\n6 4 2 3 5 4 7 8\n8 7 1 4 2 3 5 6\n");
+        Files.writeString(directory.resolve("multiple.txt"), "1 1\n2 3\n");
+        Files.writeString(directory.resolve("broken.txt"), "1 x\n2 3\n");
+        //Three puzzles, the last of which cannot be read
+        Files.writeString(directory.resolve("several.txt"), "1 1\n2 3\n\n1 2\n2 1\n\n# comment\n1 2 3\n2 1\n");
+        Files.writeString(directory.resolve("empty.txt"), "# nothing here\n");
+
+        Map<String, UniquenessChecker.Report> reports = new HashMap<>();
+        try (var files = UniquenessChecker.puzzleFiles(directory)) {
+            new UniquenessChecker(2).checkAll(files,
+                    report -> reports.put(report.getPath().getFileName() + "#" + report.getNumber(), report));
+        }
+
+        assertEquals(7, reports.size());
+        assertTrue(reports.get("default.txt#1").isUnique());
+        assertEquals(SolveResult.Status.MULTIPLE, reports.get("multiple.txt#1").getResult().getStatus());
+        assertNull(reports.get("broken.txt#1").getResult());
+        assertEquals(SolveResult.Status.MULTIPLE, reports.get("several.txt#1").getResult().getStatus());
+        assertNotNull(reports.get("several.txt#2").getResult());
+        assertNull(reports.get("several.txt#3").getResult());
+        assertNull(reports.get("empty.txt#1").getResult());
+
+        //The same verdicts from the calling thread, in file order
+        List<UniquenessChecker.Report> several = new UniquenessChecker(1).check(directory.resolve("several.txt"));
+        assertEquals(3, several.size());
+        for (int n = 0; n < several.size(); n++) {
+            UniquenessChecker.Report expected = reports.get("several.txt#" + (n + 1));
+            assertEquals(n + 1, several.get(n).getNumber());
+            assertEquals(expected.getError(), several.get(n).getError());
+            if (expected.getResult() != null)
+                assertEquals(expected.getResult().getStatus(), several.get(n).getResult().getStatus());
+        }
+    }
+
+}